@@ -0,0 +1,105 @@
+package edu.byu.yc.typechecker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.ASTNameType;
+import edu.byu.yc.typechecker.symboltable.ClassProperties;
+import edu.byu.yc.typechecker.symboltable.SymbolInterner;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures member lookups in a single class as the class grows. Each benchmark performs the
+ * same number of lookups whatever the class size, so a flat score across members means lookups
+ * cost the same in a class of ten members as in one of ten thousand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ClassPropertiesBenchmark {
+
+    private static final int LOOKUPS = 64;
+    private static final int LOCALS_PER_METHOD = 4;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int members;
+
+    private ClassProperties properties;
+    private String[] fieldNames = new String[LOOKUPS];
+    private String[] methodNames = new String[LOOKUPS];
+    private String[] localNames = new String[LOOKUPS];
+    private int[] fieldIds = new int[LOOKUPS];
+
+    @Setup(Level.Trial)
+    public void build() {
+        SymbolInterner interner = new SymbolInterner();
+        properties = new ClassProperties("edu.byu.yc.synthetic.Members", interner);
+        for (int i = 0; i < members; i++) {
+            properties.addField(new ASTNameType("field" + i, "int"));
+
+            List<ASTNameType> params = new ArrayList<>();
+            params.add(new ASTNameType("param" + i, "long"));
+            List<ASTNameType> locals = new ArrayList<>();
+            for (int l = 0; l < LOCALS_PER_METHOD; l++) {
+                locals.add(new ASTNameType("local" + l, "double"));
+            }
+            properties.addMethod(new ASTNameType("method" + i, "int"), params, locals);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUPS; i++) {
+            fieldNames[i] = "field" + random.nextInt(members);
+            methodNames[i] = "method" + random.nextInt(members);
+            localNames[i] = "local" + random.nextInt(LOCALS_PER_METHOD);
+            fieldIds[i] = interner.lookup(fieldNames[i]);
+        }
+    }
+
+    @Benchmark
+    public void getFieldTypeByName(Blackhole blackhole) {
+        for (String fieldName : fieldNames) {
+            blackhole.consume(properties.getFieldTypeByName(fieldName));
+        }
+    }
+
+    @Benchmark
+    public void getFieldTypeById(Blackhole blackhole) {
+        for (int fieldId : fieldIds) {
+            blackhole.consume(properties.getFieldType(fieldId));
+        }
+    }
+
+    @Benchmark
+    public void getMethodTypeByName(Blackhole blackhole) {
+        for (String methodName : methodNames) {
+            blackhole.consume(properties.getMethodTypeByName(methodName));
+        }
+    }
+
+    @Benchmark
+    public void getLocalVariableTypeByName(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(properties.getLocalVariableTypeByName(methodNames[i], localNames[i]));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The inputs every benchmark runs over. An input is either the name of a directory under
+ * test-files, or a number of synthetic classes to generate. The test-files directory is looked up
+ * from the typechecker.root system property, or from the parent of the working directory.
+ */
+public class Corpus {
+
+    /**
+     * The inputs benchmarks are parameterized over by default
+     */
+    public static final String[] INPUTS = {"typechecker", "10", "100", "1000"};
+
+    private final List<char[]> sources;
+
+    private Corpus(List<char[]> sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * Load an input
+     *
+     * @param input a directory under test-files, or a number of synthetic classes
+     * @return the sources of the input
+     * @throws IOException if the directory cannot be read
+     */
+    public static Corpus load(String input) throws IOException {
+        if (input.chars().allMatch(Character::isDigit)) {
+            return new Corpus(SyntheticSources.generate(Integer.parseInt(input)));
+        }
+
+        Path dir = Paths.get(System.getProperty("typechecker.root", ".."), "test-files", input);
+        if (!Files.isDirectory(dir)) {
+            throw new IOException("No test-files directory " + dir.toAbsolutePath()
+                    + "; set -Dtypechecker.root to the checker's checkout");
+        }
+        SourceLoader loader = new SourceLoader();
+        List<char[]> sources = new ArrayList<>();
+        for (Path path : new SourceDiscovery().discover(Collections.singletonList(dir))) {
+            sources.add(loader.load(path));
+        }
+        return new Corpus(sources);
+    }
+
+    public List<char[]> getSources() {
+        return sources;
+    }
+
+    /**
+     * @return every source parsed into its own CompilationUnit
+     */
+    public List<CompilationUnit> parse() {
+        List<CompilationUnit> units = new ArrayList<>(sources.size());
+        for (int i = 0; i < sources.size(); i++) {
+            units.add(TypeChecker.parseUnit("Source" + i + ".java", sources.get(i)));
+        }
+        return units;
+    }
+}
@@ -0,0 +1,64 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures checking one long arithmetic chain of the given number of operators. Alternating
+ * additions and subtractions parse as infix expressions nested as deeply as the chain is long,
+ * which is the worst case for typing an expression more than once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class InfixChainBenchmark {
+
+    @Param({"16", "128", "1024"})
+    public int length;
+
+    private ASTNode unit;
+    private SymbolTable symbolTable;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        StringBuilder chain = new StringBuilder("a");
+        for (int i = 0; i < length; i++) {
+            chain.append(i % 2 == 0 ? " + " : " - ").append(i % 3 == 0 ? "b" : "a");
+        }
+        String source = "package " + SyntheticSources.PACKAGE + ";\n"
+                + "public class Chain {\n"
+                + "    int a;\n    long b;\n"
+                + "    long chain() {\n        return " + chain + ";\n    }\n"
+                + "}\n";
+        unit = TypeChecker.parse(source);
+        symbolTable = TypeChecker.createSymbolTable(unit);
+    }
+
+    @Benchmark
+    public Map<ASTNode, String> typeCheckerVisitor() {
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        unit.accept(typeCheckerVisitor);
+        return typeCheckerVisitor.getTypeTable();
+    }
+}
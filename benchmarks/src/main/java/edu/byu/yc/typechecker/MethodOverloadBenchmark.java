@@ -0,0 +1,121 @@
+package edu.byu.yc.typechecker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.ASTNameType;
+import edu.byu.yc.typechecker.symboltable.ClassProperties;
+import edu.byu.yc.typechecker.symboltable.SymbolInterner;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures resolving overloaded methods in a class of 64 method names, each overloaded the given
+ * number of times with signatures of one to four parameters. The index is compared with scanning
+ * every declared method for the name and signature, which is what resolving an overload costs
+ * without it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class MethodOverloadBenchmark {
+
+    private static final int METHODS = 64;
+    private static final int LOOKUPS = 64;
+    private static final String[] TYPES = {"int", "long", "double", "boolean", "String", "char"};
+
+    @Param({"1", "8", "64"})
+    public int overloads;
+
+    private ClassProperties properties;
+    private int[] declaredNames;
+    private int[][] declaredSignatures;
+    private int[] declaredTypes;
+
+    private int[] methodIds = new int[LOOKUPS];
+    private int[][] signatures = new int[LOOKUPS][];
+
+    @Setup(Level.Trial)
+    public void build() {
+        SymbolInterner interner = new SymbolInterner();
+        properties = new ClassProperties("edu.byu.yc.synthetic.Overloads", interner);
+        declaredNames = new int[METHODS * overloads];
+        declaredSignatures = new int[METHODS * overloads][];
+        declaredTypes = new int[METHODS * overloads];
+
+        Random random = new Random(42);
+        int declared = 0;
+        for (int m = 0; m < METHODS; m++) {
+            for (int o = 0; o < overloads; o++) {
+                List<ASTNameType> params = new ArrayList<>();
+                int arity = 1 + o % 4;
+                int[] signature = new int[arity];
+                for (int p = 0; p < arity; p++) {
+                    String type = p == 0 ? TYPES[(o / 4) % TYPES.length] + (o / 24) : TYPES[random.nextInt(TYPES.length)];
+                    params.add(new ASTNameType("p" + p, type));
+                    signature[p] = interner.intern(type);
+                }
+                String returnType = TYPES[random.nextInt(TYPES.length)];
+                properties.addMethod(new ASTNameType("method" + m, returnType), params, new ArrayList<ASTNameType>());
+
+                declaredNames[declared] = interner.intern("method" + m);
+                declaredSignatures[declared] = signature;
+                declaredTypes[declared] = interner.intern(returnType);
+                declared++;
+            }
+        }
+
+        for (int i = 0; i < LOOKUPS; i++) {
+            int method = random.nextInt(declared);
+            methodIds[i] = declaredNames[method];
+            signatures[i] = declaredSignatures[method].clone();
+        }
+    }
+
+    @Benchmark
+    public void resolveIndexed(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(properties.getMethodType(methodIds[i], signatures[i]));
+        }
+    }
+
+    @Benchmark
+    public void resolveByScan(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            int type = SymbolInterner.NONE;
+            for (int method = 0; method < declaredNames.length; method++) {
+                if (declaredNames[method] == methodIds[i] && Arrays.equals(declaredSignatures[method], signatures[i])) {
+                    type = declaredTypes[method];
+                }
+            }
+            blackhole.consume(type);
+        }
+    }
+
+    @Benchmark
+    public void resolveByArity(Blackhole blackhole) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            blackhole.consume(properties.getMethodTypeByArity(methodIds[i], signatures[i].length));
+        }
+    }
+}
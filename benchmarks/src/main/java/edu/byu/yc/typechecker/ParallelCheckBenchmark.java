@@ -0,0 +1,76 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures checking every unit against a frozen symbol table, one task per type and member
+ * method, on pools of different sizes, and with a single visitor. The score of the single visitor
+ * divided by the score at a higher parallelism is the speedup from checking members in parallel,
+ * which is bounded by the cores of the machine running it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ParallelCheckBenchmark {
+
+    @Param({"100", "1000"})
+    public String input;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private List<CompilationUnit> units;
+    private SymbolTable symbolTable;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        units = Corpus.load(input).parse();
+        symbolTable = TypeChecker.createSymbolTable(units).freeze();
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Diagnostic> parallelTypeChecker() {
+        return new ParallelTypeChecker(symbolTable, pool).check(units);
+    }
+
+    @Benchmark
+    public List<Diagnostic> typeCheckerVisitor() {
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        for (CompilationUnit unit : units) {
+            unit.accept(typeCheckerVisitor);
+        }
+        return typeCheckerVisitor.getDiagnostics();
+    }
+}
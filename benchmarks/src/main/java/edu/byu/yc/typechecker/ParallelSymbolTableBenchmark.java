@@ -0,0 +1,70 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.QualifiedClassVisitor;
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures collecting the members of every unit into a symbol table on pools of different sizes.
+ * The score at parallelism 1 divided by the score at a higher parallelism is the speedup from
+ * collecting units in parallel, which is bounded by the cores of the machine running it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ParallelSymbolTableBenchmark {
+
+    @Param({"100", "1000"})
+    public String input;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private List<CompilationUnit> units;
+    private final List<QualifiedClassVisitor> declarations = new ArrayList<>();
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        units = Corpus.load(input).parse();
+        for (CompilationUnit unit : units) {
+            declarations.add(TypeChecker.collectDeclarations(unit));
+        }
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SymbolTable createSymbolTable() {
+        return TypeChecker.createSymbolTable(units, declarations, pool);
+    }
+}
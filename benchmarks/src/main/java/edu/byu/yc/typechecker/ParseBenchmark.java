@@ -0,0 +1,78 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures parsing every source of an input through TypeChecker.parse, which uses the shared
+ * ParserPool, against building a fresh parser and options map for each file as TypeChecker.parse
+ * did before the pool existed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class ParseBenchmark {
+
+    @Param({"typechecker", "10", "100", "1000"})
+    public String input;
+
+    private List<char[]> sources;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        sources = Corpus.load(input).getSources();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (char[] source : sources) {
+            blackhole.consume(TypeChecker.parse(source));
+        }
+    }
+
+    @Benchmark
+    public void parseFreshParser(Blackhole blackhole) {
+        for (char[] source : sources) {
+            blackhole.consume(parseFresh(source));
+        }
+    }
+
+    /**
+     * The way TypeChecker.parse worked before ParserPool
+     */
+    @SuppressWarnings("unchecked")
+    private static ASTNode parseFresh(char[] source) {
+        ASTParser p = ASTParser.newParser(AST.JLS3);
+        p.setKind(ASTParser.K_COMPILATION_UNIT);
+        p.setSource(source);
+        Map<String, String> options = JavaCore.getOptions();
+        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options);
+        p.setCompilerOptions(options);
+        return p.createAST(null);
+    }
+}
@@ -0,0 +1,136 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.PackageDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures building the symbol table for an input, and looking up every field, method and local
+ * variable declared in it. Each lookup benchmark performs one query per declaration, so its score
+ * divided by the declaration count is the cost of a single lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class SymbolTableBenchmark {
+
+    @Param({"typechecker", "10", "100", "1000"})
+    public String input;
+
+    private List<CompilationUnit> units;
+    private SymbolTable symbolTable;
+
+    private final List<String[]> fields = new ArrayList<>();
+    private final List<String[]> methods = new ArrayList<>();
+    private final List<String[]> locals = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        units = Corpus.load(input).parse();
+        symbolTable = TypeChecker.createSymbolTable(units);
+        for (CompilationUnit unit : units) {
+            unit.accept(new DeclarationCollector());
+        }
+    }
+
+    /**
+     * Records the class, method and variable names of every declaration to query for
+     */
+    private class DeclarationCollector extends ASTVisitor {
+        private String packageName = "";
+        private String className;
+        private String methodName;
+
+        @Override
+        public boolean visit(PackageDeclaration node) {
+            packageName = node.getName().getFullyQualifiedName() + ".";
+            return false;
+        }
+
+        @Override
+        public boolean visit(TypeDeclaration node) {
+            className = packageName + node.getName().getIdentifier();
+            return true;
+        }
+
+        @Override
+        public boolean visit(FieldDeclaration node) {
+            for (Object fragment : node.fragments()) {
+                fields.add(new String[]{className, ((VariableDeclarationFragment) fragment).getName().getIdentifier()});
+            }
+            return false;
+        }
+
+        @Override
+        public boolean visit(MethodDeclaration node) {
+            methodName = node.getName().getIdentifier();
+            methods.add(new String[]{className, methodName});
+            return true;
+        }
+
+        @Override
+        public boolean visit(VariableDeclarationStatement node) {
+            for (Object fragment : node.fragments()) {
+                locals.add(new String[]{className, methodName,
+                        ((VariableDeclarationFragment) fragment).getName().getIdentifier()});
+            }
+            return false;
+        }
+    }
+
+    @Benchmark
+    public SymbolTable createSymbolTable() {
+        return TypeChecker.createSymbolTable(units);
+    }
+
+    @Benchmark
+    public void getFieldType(Blackhole blackhole) {
+        for (String[] field : fields) {
+            blackhole.consume(symbolTable.getFieldType(field[0], field[1]));
+        }
+    }
+
+    @Benchmark
+    public void getLocalVariableType(Blackhole blackhole) {
+        for (String[] local : locals) {
+            blackhole.consume(symbolTable.getLocalVariableType(local[0], local[1], local[2]));
+        }
+    }
+
+    @Benchmark
+    public void methodExists(Blackhole blackhole) {
+        for (String[] method : methods) {
+            blackhole.consume(symbolTable.methodExists(method[0], method[1]));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package edu.byu.yc.typechecker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.MappedSymbolTable;
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+import edu.byu.yc.typechecker.symboltable.SymbolTableFile;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures what it costs to have a symbol table ready to query at startup: rebuilding it from
+ * source, against mapping one written by an earlier run and answering a first query from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class SymbolTableFileBenchmark {
+
+    @Param({"100", "1000"})
+    public String input;
+
+    private Corpus corpus;
+    private Path file;
+    private String lastClass;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        corpus = Corpus.load(input);
+        file = Files.createTempFile("symbols", ".bin");
+        SymbolTableFile.write(TypeChecker.createSymbolTable(corpus.parse()), file);
+        lastClass = SyntheticSources.className(Integer.parseInt(input) - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public SymbolTable rebuild() {
+        return TypeChecker.createSymbolTable(corpus.parse());
+    }
+
+    @Benchmark
+    public String openMapped() throws IOException {
+        return MappedSymbolTable.open(file).getFieldType(lastClass, "i0");
+    }
+}
@@ -0,0 +1,70 @@
+package edu.byu.yc.typechecker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Generates Java sources of a given size for the benchmarks. Every class has the same shape:
+ * a few fields of each primitive type, methods with parameters and locals, and arithmetic mixing
+ * all of them, with one ill-typed expression per class so the diagnostic path is measured too.
+ */
+public class SyntheticSources {
+
+    public static final String PACKAGE = "edu.byu.yc.synthetic";
+
+    public static final int FIELDS_PER_CLASS = 8;
+    public static final int METHODS_PER_CLASS = 6;
+
+    private SyntheticSources() {
+    }
+
+    /**
+     * @param index the number of a generated class
+     * @return the fully qualified name of that class
+     */
+    public static String className(int index) {
+        return PACKAGE + ".Synthetic" + index;
+    }
+
+    /**
+     * Generate classes, one source per class
+     *
+     * @param classes the number of classes to generate
+     * @return the contents of each class's file
+     */
+    public static List<char[]> generate(int classes) {
+        List<char[]> sources = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++) {
+            sources.add(generateClass(i).toCharArray());
+        }
+        return sources;
+    }
+
+    private static String generateClass(int index) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(PACKAGE).append(";\n\n");
+        source.append("public class Synthetic").append(index).append(" {\n");
+        for (int f = 0; f < FIELDS_PER_CLASS; f++) {
+            source.append("    private int i").append(f).append(" = ").append(f).append(";\n");
+            source.append("    private double d").append(f).append(" = ").append(f).append(".5;\n");
+            source.append("    private boolean b").append(f).append(" = true;\n");
+        }
+        for (int m = 0; m < METHODS_PER_CLASS; m++) {
+            source.append("\n    public int method").append(m).append("(int a, long b, float c) {\n");
+            source.append("        int x = a + i").append(m % FIELDS_PER_CLASS).append(" * 2 - a / 3;\n");
+            source.append("        long y = b + x + 4L * a;\n");
+            source.append("        float z = c * 2f + x;\n");
+            source.append("        double w = d").append(m % FIELDS_PER_CLASS).append(" + z + y + 1.5;\n");
+            source.append("        boolean p = b").append(m % FIELDS_PER_CLASS).append(";\n");
+            if (m == 0) {
+                source.append("        int wrong = a + p;\n");
+            }
+            source.append("        return x + a + i0;\n");
+            source.append("    }\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Measures a full TypeCheckerVisitor pass over the parsed units of an input, with the symbol
+ * table built once up front, and the whole check from sources to diagnostics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dlogback.configurationFile=logback-benchmark.xml")
+public class TypeCheckBenchmark {
+
+    @Param({"typechecker", "10", "100", "1000"})
+    public String input;
+
+    private Corpus corpus;
+    private List<CompilationUnit> units;
+    private SymbolTable symbolTable;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+        corpus = Corpus.load(input);
+        units = corpus.parse();
+        symbolTable = TypeChecker.createSymbolTable(units);
+    }
+
+    @Benchmark
+    public Map<ASTNode, String> typeCheckerVisitor() {
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        for (CompilationUnit unit : units) {
+            unit.accept(typeCheckerVisitor);
+        }
+        return typeCheckerVisitor.getTypeTable();
+    }
+
+    @Benchmark
+    public Map<ASTNode, String> parseAndCheck() {
+        List<CompilationUnit> parsed = corpus.parse();
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(TypeChecker.createSymbolTable(parsed));
+        for (CompilationUnit unit : parsed) {
+            unit.accept(typeCheckerVisitor);
+        }
+        return typeCheckerVisitor.getTypeTable();
+    }
+}
@@ -1,7 +1,14 @@
 package edu.byu.yc.typechecker;
 
+import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.Type;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclarationExpression;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
+import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 
 /**
  * @author Samuel Nuttall
@@ -29,4 +36,46 @@ public class ASTUtilities {
         return fieldName;
     }
 
+    /**
+     * Returns the type of a local variable declaration: a fragment of a declaration statement or
+     * of a for loop's initializer, or the variable of an enhanced for loop or a catch clause.
+     * Fields and method parameters are not locals.
+     *
+     * @param declaration VariableDeclaration ASTNode
+     * @return String type of the local, including any dimensions written after its name, or null
+     * if the declaration does not declare a local
+     */
+    public static String getLocalVariableType(VariableDeclaration declaration) {
+        Type type = getLocalVariableTypeNode(declaration);
+        if (type == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder(type.toString());
+        for (int i = 0; i < declaration.getExtraDimensions(); i++) {
+            sb.append("[]");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the type node of a local variable declaration, as getLocalVariableType does
+     *
+     * @param declaration VariableDeclaration ASTNode
+     * @return the declared Type, without any dimensions written after the local's name, or null
+     * if the declaration does not declare a local
+     */
+    public static Type getLocalVariableTypeNode(VariableDeclaration declaration) {
+        ASTNode parent = declaration.getParent();
+        if (declaration instanceof SingleVariableDeclaration) {
+            if (!(parent instanceof MethodDeclaration)) {
+                return ((SingleVariableDeclaration) declaration).getType();
+            }
+        } else if (parent instanceof VariableDeclarationStatement) {
+            return ((VariableDeclarationStatement) parent).getType();
+        } else if (parent instanceof VariableDeclarationExpression) {
+            return ((VariableDeclarationExpression) parent).getType();
+        }
+        return null;
+    }
 }
@@ -2,6 +2,7 @@ package edu.byu.yc.typechecker;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
 import org.eclipse.jdt.core.dom.SimpleType;
 import org.eclipse.jdt.core.dom.Type;
@@ -30,18 +31,33 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
     private String curClassFQN; // Current class being explored
     private String curClassSN; // Current class simple name
     private String curMethodName; // Current class being explored
+    private int[] curMethodSignature; // Parameter types of the current method, which pick its overload
 
     private ASTClassValidator validator;
     private ASTEnvironment currentEnv;
     private Set<String> declaredTypeBaseNames = new HashSet<>();
     private Map<String, ASTEnvironment> nameEnvironmentMap = new HashMap<>();
     private Set<String> violations = new HashSet<>();
+    private List<Diagnostic> diagnostics = new ArrayList<>();
 
     public AbstractTypeCheckerVisitor(SymbolTable symbolTable) {
         this.symbolTable = symbolTable;
 
-        this.validator = symbolTable.getValidator();
+        useValidator(symbolTable.getValidator());
+    }
+
+    /**
+     * Switch to the validator of the file being visited and recompute the declared base names
+     *
+     * @param classValidator validator of the current file
+     */
+    private void useValidator(ASTClassValidator classValidator) {
+        if (classValidator == validator) {
+            return;
+        }
+        this.validator = classValidator;
 
+        declaredTypeBaseNames.clear();
         Set<String> declaredTypes = validator.getDeclaredTypes();
 
         for (String type : declaredTypes) {
@@ -74,6 +90,8 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
             TypeDeclaration parentTD = (TypeDeclaration) parent;
             String parentName = parentTD.getName().toString();
             parentEnvironment = nameEnvironmentMap.get(parentName);
+        } else {
+            useValidator(symbolTable.getValidator(td));
         }
 
         currentEnv = new ASTEnvironment(declarationName, parentEnvironment);
@@ -121,8 +139,10 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
      * If it is, then it is considered a valid usage and returns true.
      * If not then returns false.
      * Also takes the context into consideration to see that the environment name + type name may
-     * be valid. Assumes heavily nested classes (more than 1 level) are static. Does not check that
-     * Previous levels are instantiated.
+     * be valid. Types that are neither are looked up in the classpath index, if there is one, as
+     * java.lang types, types of packages imported on demand, or fully qualified names. Assumes
+     * heavily nested classes (more than 1 level) are static. Does not check that Previous levels
+     * are instantiated.
      *
      * @param type AST type
      * @return boolean true or false depending on whether the type is used correctly
@@ -133,6 +153,9 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
             String environment = resolveEnvironmentName(type);
             valid = declaredTypeBaseNames.contains(environment + "." + type);
         }
+        if (!valid && symbolTable.getClasspathIndex() != null) {
+            valid = symbolTable.getClasspathIndex().resolve(type.toString(), validator.getImportedPackages()) != null;
+        }
         return valid;
     }
 
@@ -168,6 +191,33 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
         return violations;
     }
 
+    /**
+     * Returns the errors found so far, in the order they were found
+     *
+     * @return list of diagnostics
+     */
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * Record an error found at the given node. The file and line are taken from the
+     * CompilationUnit the node belongs to.
+     *
+     * @param node    the node the error was found at
+     * @param message description of the error
+     */
+    public void addDiagnostic(ASTNode node, String message) {
+        String sourcePath = null;
+        int line = -1;
+        ASTNode root = node.getRoot();
+        if (root instanceof CompilationUnit) {
+            sourcePath = (String) root.getProperty(TypeChecker.SOURCE_PATH_PROPERTY);
+            line = ((CompilationUnit) root).getLineNumber(node.getStartPosition());
+        }
+        diagnostics.add(new Diagnostic(sourcePath, line, message));
+    }
+
     /**
      * Visits SimpleType nodes to determine if the code being analyzed contains valid uses of a class
      * It checks if the classes used are either imported or defined within the class.
@@ -183,6 +233,7 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
         boolean valid = isValidTypeUsage(node);
         if (!valid) {
             violations.add(node.toString() + ":\n" + node.getParent().toString());
+            addDiagnostic(node, "Type " + node + " is not declared or imported");
         } else {
             getSymbolTable().addValidType(getCurClassFQN(), node.getName().toString());
         }
@@ -194,7 +245,8 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
     /**
      * In order to correctly identify the current environment, once a TypeDeclaration has been
      * traversed, endVisit makes the current environment the parent environment of the TD Node
-     * that is now out of scope
+     * that is now out of scope. Leaving a member type makes the type it is declared in the
+     * current class again, so members declared after it are checked in the right class.
      *
      * @param node TypeDeclaration node
      */
@@ -204,6 +256,10 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
         if (currentEnv != null) {
             currentEnv = currentEnv.getParentEnv();
         }
+        if (node.getParent() instanceof TypeDeclaration) {
+            curClassSN = ((TypeDeclaration) node.getParent()).getName().toString();
+            curClassFQN = symbolTable.getClassSimpleToQualifiedName().get(curClassSN);
+        }
         super.endVisit(node);
     }
 
@@ -217,6 +273,7 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
     @Override
     public boolean visit(MethodDeclaration md) {
         setCurMethodName(md.getName().toString());
+        setCurMethodSignature(symbolTable.getSignature(md));
         return true;
     }
 
@@ -224,6 +281,7 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
     @Override
     public void endVisit(MethodDeclaration node) {
         setCurMethodName(null);
+        setCurMethodSignature(null);
     }
 
     public String getCurClassFQN() {
@@ -245,4 +303,12 @@ public class AbstractTypeCheckerVisitor extends ASTVisitor {
     public void setCurMethodName(String curMethodName) {
         this.curMethodName = curMethodName;
     }
+
+    public int[] getCurMethodSignature() {
+        return curMethodSignature;
+    }
+
+    public void setCurMethodSignature(int[] curMethodSignature) {
+        this.curMethodSignature = curMethodSignature;
+    }
 }
@@ -0,0 +1,343 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import edu.byu.yc.typechecker.classpath.ClasspathIndex;
+import edu.byu.yc.typechecker.symboltable.QualifiedClassVisitor;
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Runs a check as a pipeline of stages connected by bounded queues:
+ * <pre>
+ *   discover -> read -> parse -> collect declarations -> | barrier | -> check
+ * </pre>
+ * Reading, parsing and collecting each unit's declarations all run at the same time, each on its
+ * own workers. Only the check stage waits for every unit, since it needs the complete symbol
+ * table. It collects the members of the units and then checks their types and methods on a
+ * fork-join pool of its own, as wide as the parse stage, which is shut down when the run ends, so
+ * the thread count of a run is bounded and runs in one JVM do not share a pool. A full queue
+ * makes the stage feeding it wait, so memory stays bounded by the queue capacity however fast
+ * discovery is. A pipeline runs once.
+ */
+public class CheckPipeline {
+
+    private static Logger logger = LoggerFactory.getLogger(CheckPipeline.class);
+
+    private static final Object END = new Object();
+
+    private final SourceDiscovery discovery;
+    private final int readers;
+    private final int parsers;
+    private final int collectors;
+    private final int capacity;
+    private final SourceLoader loader;
+
+    private final StageMetrics discoverMetrics = new StageMetrics("discover");
+    private final StageMetrics readMetrics = new StageMetrics("read");
+    private final StageMetrics parseMetrics = new StageMetrics("parse");
+    private final StageMetrics collectMetrics = new StageMetrics("collect");
+    private final StageMetrics checkMetrics = new StageMetrics("check");
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private List<CompilationUnit> units = Collections.emptyList();
+    private SymbolTable symbolTable;
+    private ParallelTypeChecker typeChecker;
+    private ClasspathIndex classpathIndex;
+    private ExecutorService workers;
+
+    public CheckPipeline(SourceDiscovery discovery, int threads) {
+        this(discovery, Math.max(1, threads / 4), Math.max(1, threads), 1, 256);
+    }
+
+    /**
+     * Constructor for a pipeline
+     *
+     * @param discovery  the discovery stage that decides which files are sources
+     * @param readers    the number of threads reading files
+     * @param parsers    the number of threads parsing files, and collecting members and checking
+     *                   once every unit is parsed
+     * @param collectors the number of threads collecting declarations
+     * @param capacity   the capacity of each queue between stages
+     */
+    public CheckPipeline(SourceDiscovery discovery, int readers, int parsers, int collectors, int capacity) {
+        this(discovery, new SourceLoader(), readers, parsers, collectors, capacity);
+    }
+
+    /**
+     * Constructor for a pipeline that reads files with the given loader
+     */
+    CheckPipeline(SourceDiscovery discovery, SourceLoader loader, int readers, int parsers, int collectors,
+                  int capacity) {
+        this.discovery = discovery;
+        this.loader = loader;
+        this.readers = readers;
+        this.parsers = parsers;
+        this.collectors = collectors;
+        this.capacity = capacity;
+    }
+
+    /**
+     * A file that has been read but not yet parsed
+     */
+    private static class Source {
+        private final String path;
+        private final char[] contents;
+
+        Source(String path, char[] contents) {
+            this.path = path;
+            this.contents = contents;
+        }
+    }
+
+    /**
+     * A unit whose declarations have been collected
+     */
+    private static class CollectedUnit {
+        private final CompilationUnit unit;
+        private final QualifiedClassVisitor declarations;
+
+        CollectedUnit(CompilationUnit unit, QualifiedClassVisitor declarations) {
+            this.unit = unit;
+            this.declarations = declarations;
+        }
+
+        String getPath() {
+            return (String) unit.getProperty(TypeChecker.SOURCE_PATH_PROPERTY);
+        }
+    }
+
+    /**
+     * Check every Java file under roots
+     *
+     * @param roots files or directories to check
+     * @return the errors found in every file
+     */
+    public List<Diagnostic> run(Collection<Path> roots) {
+        BlockingQueue<Object> paths = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Object> sources = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Object> parsed = new ArrayBlockingQueue<>(capacity);
+        ConcurrentLinkedQueue<CollectedUnit> collected = new ConcurrentLinkedQueue<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(readers + parsers + collectors);
+        workers = pool;
+        boolean fed = false;
+        try {
+            startStage(pool, readMetrics, readers, paths, sources, parseMetrics, parsers,
+                    (Path path) -> new Source(path.toString(), TypeChecker.readSource(path.toString(), loader)));
+            startStage(pool, parseMetrics, parsers, sources, parsed, collectMetrics, collectors,
+                    (Source source) -> TypeChecker.parseUnit(source.path, source.contents));
+            startStage(pool, collectMetrics, collectors, parsed, null, null, 0,
+                    (CompilationUnit unit) -> collected.add(new CollectedUnit(unit, TypeChecker.collectDeclarations(unit))));
+
+            discoverMetrics.start();
+            discovery.discover(roots, path -> {
+                discoverMetrics.record(0);
+                enqueue(paths, path, readMetrics);
+            });
+            discoverMetrics.finish();
+            for (int i = 0; i < readers; i++) {
+                enqueue(paths, END, readMetrics);
+            }
+            fed = true;
+        } finally {
+            if (fed) {
+                pool.shutdown();
+            } else {
+                // The readers will never see END, for example because the caller was interrupted
+                // to cancel the check, so interrupt every worker instead of leaving them waiting
+                pool.shutdownNow();
+            }
+        }
+
+        awaitTermination(pool);
+        if (failure.get() != null) {
+            throw new IllegalStateException("Pipeline failed", failure.get());
+        }
+
+        // Barrier: the check stage needs every unit's declarations
+        List<CollectedUnit> ordered = new ArrayList<>(collected);
+        ordered.sort(Comparator.comparing(CollectedUnit::getPath));
+        units = new ArrayList<>(ordered.size());
+        List<QualifiedClassVisitor> declarations = new ArrayList<>(ordered.size());
+        for (CollectedUnit unit : ordered) {
+            units.add(unit.unit);
+            declarations.add(unit.declarations);
+        }
+        if (units.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        checkMetrics.start();
+        long start = System.nanoTime();
+        ForkJoinPool checkPool = new ForkJoinPool(parsers);
+        try {
+            SymbolTable built = TypeChecker.createSymbolTable(units, declarations, checkPool);
+            built.setClasspathIndex(classpathIndex);
+            SymbolTable snapshot = built.freeze();
+            typeChecker = new ParallelTypeChecker(snapshot, checkPool);
+            typeChecker.check(units);
+            symbolTable = typeChecker.getSymbolTable();
+        } finally {
+            checkPool.shutdown();
+        }
+        checkMetrics.record(System.nanoTime() - start);
+        checkMetrics.finish();
+
+        for (StageMetrics metrics : getMetrics()) {
+            logger.info("{}", metrics);
+        }
+        logger.info("{}", symbolTable.getTypeRegistry());
+        return typeChecker.getDiagnostics();
+    }
+
+    /**
+     * Start the workers of one stage. Each worker takes items from in until it sees END, and
+     * the last worker of the stage to finish passes one END on to each downstream worker.
+     */
+    @SuppressWarnings("unchecked")
+    private <I, O> void startStage(ExecutorService pool, StageMetrics metrics, int workers,
+                                   BlockingQueue<Object> in, BlockingQueue<Object> out,
+                                   StageMetrics downstream, int downstreamWorkers, Function<I, O> work) {
+        AtomicInteger running = new AtomicInteger(workers);
+        metrics.start();
+        for (int i = 0; i < workers; i++) {
+            pool.execute(() -> {
+                try {
+                    Object item;
+                    while ((item = in.take()) != END) {
+                        long start = System.nanoTime();
+                        try {
+                            O result = work.apply((I) item);
+                            if (out != null) {
+                                enqueue(out, result, downstream);
+                            }
+                        } catch (Throwable e) {
+                            // Keep draining the queue so upstream stages are never left blocked,
+                            // even after an Error such as a StackOverflowError from the parser
+                            failure.compareAndSet(null, e);
+                        }
+                        metrics.record(System.nanoTime() - start);
+                    }
+                } catch (InterruptedException e) {
+                    failure.compareAndSet(null, e);
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (running.decrementAndGet() == 0) {
+                        metrics.finish();
+                        releaseDownstream(out, downstreamWorkers, downstream);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Pass one END to each downstream worker, even from a worker that was interrupted, so no
+     * downstream worker is left waiting for an item that will never come. An interrupted worker
+     * only passes on the ENDs there is room for: the pool is being shut down, so the downstream
+     * workers are interrupted too and may no longer be taking from a full queue.
+     */
+    private void releaseDownstream(BlockingQueue<Object> out, int downstreamWorkers, StageMetrics downstream) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            for (int j = 0; j < downstreamWorkers; j++) {
+                if (!interrupted) {
+                    enqueue(out, END, downstream);
+                } else if (!out.offer(END)) {
+                    break;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void enqueue(BlockingQueue<Object> queue, Object item, StageMetrics consumer) {
+        try {
+            queue.put(item);
+            consumer.observeQueueDepth(queue.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing " + item, e);
+        }
+    }
+
+    private void awaitTermination(ExecutorService pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                logger.debug("Waiting for pipeline: {}", getMetrics());
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running pipeline", e);
+        }
+    }
+
+    /**
+     * @return the metrics of every stage, in pipeline order
+     */
+    public List<StageMetrics> getMetrics() {
+        return Arrays.asList(discoverMetrics, readMetrics, parseMetrics, collectMetrics, checkMetrics);
+    }
+
+    /**
+     * @param classpathIndex index to resolve library types against, or null for none
+     */
+    public void setClasspathIndex(ClasspathIndex classpathIndex) {
+        this.classpathIndex = classpathIndex;
+    }
+
+    /**
+     * @return the pool the read, parse and collect stages of the last run ran on
+     */
+    ExecutorService getWorkers() {
+        return workers;
+    }
+
+    public SourceLoader getLoader() {
+        return loader;
+    }
+
+    /**
+     * @return the parsed units sorted by path, once run has returned
+     */
+    public List<CompilationUnit> getUnits() {
+        return units;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    public Map<ASTNode, String> getTypeTable() {
+        return typeChecker == null ? Collections.emptyMap() : typeChecker.getTypeTable();
+    }
+}
@@ -0,0 +1,93 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The outcome of one call to TypeChecker.check: the diagnostics, the type computed for each
+ * expression, and how long each phase took. A result holds on to the parsed units, since the
+ * type table is keyed by their nodes.
+ */
+public class CheckResult {
+
+    private final List<Diagnostic> diagnostics;
+    private final List<CompilationUnit> units;
+    private final SymbolTable symbolTable;
+    private final Map<ASTNode, String> typeTable;
+    private final Map<String, Long> phaseMillis;
+    private final long totalMillis;
+
+    /**
+     * Constructor for a result
+     *
+     * @param diagnostics the errors found in every file
+     * @param units       the parsed units, sorted by path
+     * @param symbolTable the symbol table the units were checked against, null if there were none
+     * @param typeTable   the type of each checked expression
+     * @param phaseMillis wall clock milliseconds spent in each phase, in the order the phases run
+     * @param totalMillis wall clock milliseconds spent in the whole check
+     */
+    public CheckResult(List<Diagnostic> diagnostics, List<CompilationUnit> units, SymbolTable symbolTable,
+                       Map<ASTNode, String> typeTable, Map<String, Long> phaseMillis, long totalMillis) {
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+        this.units = Collections.unmodifiableList(units);
+        this.symbolTable = symbolTable;
+        this.typeTable = Collections.unmodifiableMap(typeTable);
+        this.phaseMillis = Collections.unmodifiableMap(new LinkedHashMap<>(phaseMillis));
+        this.totalMillis = totalMillis;
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return true if no errors were found
+     */
+    public boolean isClean() {
+        return diagnostics.isEmpty();
+    }
+
+    public List<CompilationUnit> getUnits() {
+        return units;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    public Map<ASTNode, String> getTypeTable() {
+        return typeTable;
+    }
+
+    /**
+     * @return wall clock milliseconds spent in each phase, keyed by phase name in the order the
+     * phases run. Phases overlap, so they need not add up to the total.
+     */
+    public Map<String, Long> getPhaseMillis() {
+        return phaseMillis;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckResult{" +
+                "diagnostics=" + diagnostics.size() +
+                ", units=" + units.size() +
+                ", phaseMillis=" + phaseMillis +
+                ", totalMillis=" + totalMillis +
+                '}';
+    }
+}
@@ -0,0 +1,348 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import edu.byu.yc.typechecker.classpath.ClasspathIndex;
+import edu.byu.yc.typechecker.symboltable.QualifiedClassVisitor;
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+import edu.byu.yc.typechecker.symboltable.SymbolTableStats;
+import edu.byu.yc.typechecker.symboltable.SymbolTableVisitor;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Keeps parsed compilation units and the symbol table built from them in memory between checks.
+ * Each check re-parses only the files whose size or modification time changed since the last
+ * check, and rebuilds the symbol table and diagnostics only when some file changed. When the
+ * changed files are known up front, update patches the symbol table in place and re-checks only
+ * the units affected by the change.
+ */
+public class CheckSession {
+
+    private static Logger logger = LoggerFactory.getLogger(CheckSession.class);
+
+    private final SourceDiscovery discovery;
+    private final SourceLoader loader = new SourceLoader();
+    private final ExecutorService pool;
+    private final ForkJoinPool collectPool;
+
+    private final Map<String, CompilationUnit> units = new TreeMap<>();
+    private final Map<String, QualifiedClassVisitor> declarations = new HashMap<>();
+    private final Map<String, String> stamps = new HashMap<>();
+    private final Map<String, List<Diagnostic>> diagnostics = new TreeMap<>();
+    private SymbolTable symbolTable;
+    private ClasspathIndex classpathIndex;
+
+    private int checks;
+    private int filesParsed;
+    private int unitsChecked;
+
+    /**
+     * Constructor for a session
+     *
+     * @param discovery the discovery stage that decides which files are sources
+     * @param threads   the number of worker threads to parse and collect members with
+     */
+    public CheckSession(SourceDiscovery discovery, int threads) {
+        this.discovery = discovery;
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "check-session-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.collectPool = new ForkJoinPool(Math.max(1, threads));
+    }
+
+    /**
+     * Check every Java file under roots, reusing whatever is unchanged since the last check
+     *
+     * @param roots files or directories to check
+     * @return the errors found in every file, ordered by file
+     */
+    public synchronized List<Diagnostic> check(Collection<Path> roots) {
+        checks++;
+        List<Path> paths = discovery.discover(roots);
+
+        Set<String> current = new HashSet<>();
+        List<Path> changed = new ArrayList<>();
+        for (Path path : paths) {
+            current.add(path.toString());
+            if (!stamp(path).equals(stamps.get(path.toString()))) {
+                changed.add(path);
+            }
+        }
+
+        boolean removed = units.keySet().retainAll(current);
+        declarations.keySet().retainAll(current);
+        stamps.keySet().retainAll(current);
+        diagnostics.keySet().retainAll(current);
+        parse(changed);
+
+        if (removed || !changed.isEmpty() || symbolTable == null) {
+            rebuild();
+        }
+        return getDiagnostics();
+    }
+
+    /**
+     * Bring the session up to date with files known to have been created, changed or deleted.
+     * Only those files are parsed again. Their old classes are removed from the symbol table and
+     * their new ones added, and only the changed units are checked again, since every other unit
+     * depends on nothing but its own classes. If a changed file declares a simple name that
+     * another file also declares, the whole session is rebuilt instead.
+     *
+     * @param paths files that were created, changed or deleted since the last check
+     * @return the errors found in every file, ordered by file
+     */
+    public synchronized List<Diagnostic> update(Collection<Path> paths) {
+        checks++;
+        if (symbolTable == null) {
+            logger.debug("Nothing checked yet, ignoring update of {}", paths);
+            return getDiagnostics();
+        }
+
+        List<Path> changed = new ArrayList<>();
+        Set<String> affected = new TreeSet<>();
+        for (Path path : paths) {
+            String sourcePath = path.toString();
+            String stamp = stamp(path);
+            if (stamp.equals(stamps.get(sourcePath))) {
+                continue;
+            }
+            QualifiedClassVisitor old = declarations.remove(sourcePath);
+            if (old != null) {
+                symbolTable.removeDeclarations(old.getSimpleNameToFullyQualifiedName(), old.getClassValidators());
+            }
+            units.remove(sourcePath);
+            diagnostics.remove(sourcePath);
+            stamps.remove(sourcePath);
+            affected.add(sourcePath);
+            if (!stamp.isEmpty()) {
+                changed.add(path);
+            }
+        }
+        if (affected.isEmpty()) {
+            return getDiagnostics();
+        }
+        parse(changed);
+
+        Set<String> otherNames = new HashSet<>();
+        for (Map.Entry<String, QualifiedClassVisitor> unit : declarations.entrySet()) {
+            if (!affected.contains(unit.getKey())) {
+                otherNames.addAll(unit.getValue().getSimpleNameToFullyQualifiedName().keySet());
+            }
+        }
+        for (String sourcePath : affected) {
+            QualifiedClassVisitor declared = declarations.get(sourcePath);
+            if (declared != null && !Collections.disjoint(otherNames, declared.getSimpleNameToFullyQualifiedName().keySet())) {
+                logger.info("{} declares a type declared elsewhere, rebuilding", sourcePath);
+                rebuild();
+                return getDiagnostics();
+            }
+        }
+
+        List<CompilationUnit> updated = new ArrayList<>();
+        for (String sourcePath : affected) {
+            CompilationUnit unit = units.get(sourcePath);
+            if (unit != null) {
+                QualifiedClassVisitor declared = declarations.get(sourcePath);
+                symbolTable.addDeclarations(declared.getSimpleNameToFullyQualifiedName(), declared.getClassValidators());
+                updated.add(unit);
+            }
+        }
+        SymbolTableVisitor symbolTableVisitor = new SymbolTableVisitor(symbolTable);
+        for (CompilationUnit unit : updated) {
+            unit.accept(symbolTableVisitor);
+        }
+        checkUnits(updated);
+        return getDiagnostics();
+    }
+
+    /**
+     * Parse the given files and collect their declarations
+     */
+    private void parse(List<Path> paths) {
+        List<Future<CompilationUnit>> parses = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            final String sourcePath = path.toString();
+            stamps.put(sourcePath, stamp(path));
+            parses.add(pool.submit(() -> TypeChecker.parseUnit(sourcePath, loader)));
+        }
+        for (Future<CompilationUnit> parse : parses) {
+            CompilationUnit unit = await(parse);
+            String sourcePath = (String) unit.getProperty(TypeChecker.SOURCE_PATH_PROPERTY);
+            units.put(sourcePath, unit);
+            declarations.put(sourcePath, TypeChecker.collectDeclarations(unit));
+        }
+        filesParsed += paths.size();
+    }
+
+    /**
+     * Rebuild the symbol table from every unit and check them all
+     */
+    private void rebuild() {
+        diagnostics.clear();
+        if (units.isEmpty()) {
+            symbolTable = null;
+            return;
+        }
+
+        List<CompilationUnit> all = new ArrayList<>(units.values());
+        List<QualifiedClassVisitor> collected = new ArrayList<>(all.size());
+        for (String sourcePath : units.keySet()) {
+            collected.add(declarations.get(sourcePath));
+        }
+        symbolTable = TypeChecker.createSymbolTable(all, collected, collectPool);
+        symbolTable.setClasspathIndex(classpathIndex);
+        checkUnits(all);
+    }
+
+    private void checkUnits(List<CompilationUnit> toCheck) {
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        for (CompilationUnit unit : toCheck) {
+            diagnostics.put((String) unit.getProperty(TypeChecker.SOURCE_PATH_PROPERTY), new ArrayList<>());
+            unit.accept(typeCheckerVisitor);
+        }
+        for (Diagnostic diagnostic : typeCheckerVisitor.getDiagnostics()) {
+            diagnostics.get(diagnostic.getSourcePath()).add(diagnostic);
+        }
+        unitsChecked += toCheck.size();
+    }
+
+    /**
+     * Size and modification time of a file, or an empty String if the file does not exist; the
+     * file is parsed again whenever this changes
+     */
+    private static String stamp(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.size() + "@" + attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            logger.debug(e.getMessage());
+            return "";
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to parse sources", e.getCause());
+        }
+    }
+
+    /**
+     * Stop the worker threads. The session cannot check again after it is closed.
+     */
+    public void close() {
+        pool.shutdown();
+        collectPool.shutdown();
+    }
+
+    /**
+     * @param directory a directory
+     * @return the files of this session under the directory, for example to update once the
+     * directory is deleted
+     */
+    public synchronized List<Path> getSourcesUnder(Path directory) {
+        List<Path> sources = new ArrayList<>();
+        for (String sourcePath : stamps.keySet()) {
+            Path source = Paths.get(sourcePath);
+            if (source.startsWith(directory)) {
+                sources.add(source);
+            }
+        }
+        Collections.sort(sources);
+        return sources;
+    }
+
+    /**
+     * @return the errors found in every file at the last check, ordered by file
+     */
+    public synchronized List<Diagnostic> getDiagnostics() {
+        List<Diagnostic> all = new ArrayList<>();
+        for (List<Diagnostic> fileDiagnostics : diagnostics.values()) {
+            all.addAll(fileDiagnostics);
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    /**
+     * @param classpathIndex index to resolve library types against from the next check on, or
+     *                       null for none
+     */
+    public synchronized void setClasspathIndex(ClasspathIndex classpathIndex) {
+        this.classpathIndex = classpathIndex;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * @return a snapshot of the size of the symbol table, taken between checks, or null before
+     * the first check
+     */
+    public synchronized SymbolTableStats getStats() {
+        return symbolTable == null ? null : symbolTable.getStats();
+    }
+
+    public synchronized void resetLookupCounts() {
+        if (symbolTable != null) {
+            symbolTable.resetLookupCounts();
+        }
+    }
+
+    public int getUnitCount() {
+        return units.size();
+    }
+
+    public int getChecks() {
+        return checks;
+    }
+
+    public int getFilesParsed() {
+        return filesParsed;
+    }
+
+    public int getUnitsChecked() {
+        return unitsChecked;
+    }
+
+    @Override
+    public String toString() {
+        return "CheckSession{" +
+                "checks=" + checks +
+                ", units=" + units.size() +
+                ", filesParsed=" + filesParsed +
+                ", unitsChecked=" + unitsChecked +
+                ", read=" + loader +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package edu.byu.yc.typechecker;
+
+import java.util.Objects;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * An error found while checking a file: where it was found and what was wrong
+ */
+public class Diagnostic {
+
+    private final String sourcePath;
+    private final int line;
+    private final String message;
+
+    /**
+     * Constructor for a diagnostic
+     *
+     * @param sourcePath path of the file the error is in, or null if the source has no file
+     * @param line       1-based line number of the error, or -1 if unknown
+     * @param message    description of the error
+     */
+    public Diagnostic(String sourcePath, int line, String message) {
+        this.sourcePath = sourcePath;
+        this.line = line;
+        this.message = message;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Diagnostic)) return false;
+        Diagnostic that = (Diagnostic) o;
+        return line == that.line &&
+                Objects.equals(sourcePath, that.sourcePath) &&
+                message.equals(that.message);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sourcePath, line, message);
+    }
+
+    @Override
+    public String toString() {
+        return (sourcePath == null ? "<source>" : sourcePath) + ":" + line + ": " + message;
+    }
+}
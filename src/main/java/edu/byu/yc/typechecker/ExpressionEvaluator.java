@@ -2,60 +2,51 @@ package edu.byu.yc.typechecker;
 
 
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.InfixExpression;
 import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.ParenthesizedExpression;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.helpers.MessageFormatter;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 import edu.byu.yc.typechecker.symboltable.ASTNameType;
 
 /**
  * @author Samuel Nuttall
+ * <p>
+ * Checks arithmetic infix expressions: both operands must be numeric primitives, they are promoted
+ * as the JLS promotes them, and the promoted type must widen to the type the expression is
+ * assigned to or returned as. Promotion and widening are looked up in the tables of Primitive.
+ * Expressions are typed bottom up: the TypeCheckerVisitor types every operand before the
+ * expression it is an operand of, and the evaluator only reads their types.
  */
 public class ExpressionEvaluator {
 
     private Logger logger = LoggerFactory.getLogger(ExpressionEvaluator.class);
 
     private static final String UNKNOWN_TYPE = "$UNKNOWN";
-    private Map<ASTNode, String> typeTable;
+    private TypeTable typeTable;
     private TypeCheckerVisitor typeCheckerVisitor;
     private List<String> operations = new ArrayList<>();
 
     private Map<InfixExpression.Operator, String> operatorToOperationMap = new HashMap<>();
 
-    //Numeric primitives
-    private static final String SHORT = "short";
-    private static final String INT = "int";
-    private static final String LONG = "long";
-    private static final String FLOAT = "float";
-    private static final String DOUBLE = "double";
-
-    //Textual primitives
-    private static final String BYTE = "byte";
-    private static final String CHAR = "char";
-
-    // Boolean and null primitives
-    private static final String BOOLEAN = "boolean";
     private static final String NULL = "null";
 
-    private Set<String> primitiveTypes = new HashSet<>();
     private List<InfixExpression.Operator> arithmeticOperators = new ArrayList<>();
 
 
     public ExpressionEvaluator(TypeCheckerVisitor typeCheckerVisitor) {
         this.typeCheckerVisitor = typeCheckerVisitor;
-        this.typeTable = typeCheckerVisitor.getTypeTable();
+        this.typeTable = typeCheckerVisitor.getTypes();
         addOperators();
-        addPrimitives();
         initOperatorToOperations();
     }
 
@@ -85,148 +76,156 @@ public class ExpressionEvaluator {
         }
     }
 
-    private Set<String> numericPrimitives = new TreeSet<>(new NumericTypesComparator());
-
-    class NumericTypesComparator implements Comparator<String> {
-        public int compare(String type1, String type2) {
-            return compareNumericTypes(type1, type2);
-        }
-    }
-
+    /**
+     * Type an infix expression from the types its operands were already given. It is called once
+     * per expression, after its operands have been visited, so no operand is typed twice. The
+     * operands are folded left to right, extended operands included. An operand that is an infix
+     * expression that failed to type has been reported already, so the expression is left unknown
+     * without reporting it again.
+     *
+     * @param expressionNameType the name and type the expression is assigned to or returned as,
+     *                           or null if it is an operand of another infix expression or is
+     *                           not assigned or returned
+     * @param ie                 the infix expression
+     */
     public void evaluateExpression(ASTNameType expressionNameType, InfixExpression ie) {
         typeTable.put(ie, UNKNOWN_TYPE); // init as unknown type until resolved
         if (!arithmeticOperators.contains(ie.getOperator())) {
-            logger.error("unsupported operation: {}, {}", ie.getOperator(), ie);
+            error(ie, "unsupported operation: {}, {}", ie.getOperator(), ie);
             return;
         }
 
-        ASTNode lhs = ie.getLeftOperand();
-        ASTNode rhs = ie.getRightOperand();
-        checkIfNumberLiteral(lhs);
-        checkIfNumberLiteral(rhs);
-        lhs.accept(typeCheckerVisitor);
+        String operation = operatorToOperationMap.get(ie.getOperator());
+        Expression lhs = ie.getLeftOperand();
+        if (hasFailed(lhs)) {
+            return;
+        }
         String lhType = typeTable.get(lhs);
-
         if (!isPrimitive(lhType)) {
-            logger.error("Tried to {} a non-primitive type: {} --> {}", operatorToOperationMap.get(ie.getOperator()), lhType, ie);
+            error(ie, "Tried to {} a non-primitive type: {} --> {}", operation, lhType, ie);
             return;
         }
-        if (isNumericPrimitive(lhType)) {
-            logger.error("Tried to {} a non-numeric type: {} --> {}", operatorToOperationMap.get(ie.getOperator()), lhType, ie);
+        Primitive left = Primitive.of(lhType);
+        if (left == null || !left.isNumeric()) {
+            error(ie, "Tried to {} a non-numeric type: {} --> {}", operation, lhType, ie);
             return;
         }
-        rhs.accept(typeCheckerVisitor);
-        String rhType = typeTable.get(rhs);
-        if (isNumericPrimitive(rhType)) {
-            logger.error("Tried to {} a non-numeric type: {} --> {}", operatorToOperationMap.get(ie.getOperator()), rhType, ie);
+
+        boolean shift = isShift(ie.getOperator());
+        if (shift && !left.isIntegral()) {
+            error(ie, "Tried to {} a non-integral type: {} --> {}", operation, lhType, ie);
             return;
         }
+        Primitive promoted = shift ? left.promote() : left;
+        for (Expression rhs : getRightOperands(ie)) {
+            if (hasFailed(rhs)) {
+                return;
+            }
+            String rhType = typeTable.get(rhs);
+            Primitive right = Primitive.of(rhType);
+            if (right == null || !right.isNumeric()) {
+                error(ie, "Tried to {} a non-numeric type: {} --> {}", operation, rhType, ie);
+                return;
+            }
+            if (shift && !right.isIntegral()) {
+                error(ie, "Tried to {} a non-integral type: {} --> {}", operation, rhType, ie);
+                return;
+            }
+            promoted = shift ? promoted : promoted.promote(right);
+        }
 
-
-        if (isExpressionTypeCompatible(expressionNameType.getType(), lhType, rhType)) {
+        if (expressionNameType == null) {
+            typeTable.put(ie, promoted.getKeyword());
+        } else if (isExpressionTypeCompatible(expressionNameType.getType(), promoted)) {
             logger.info("**** DEEMED VALID **** ===> {} {} = {}", expressionNameType.getType(), expressionNameType.getName(), ie);
             typeTable.put(ie, expressionNameType.getType());
         } else
-            logger.error("Infix expression: {} {} = {}, is not type compatible or cannot be widened to type {}", expressionNameType.getType(), expressionNameType.getName(), ie, expressionNameType.getType());
+            error(ie, "Infix expression: {} {} = {}, is not type compatible or cannot be widened to type {}", expressionNameType.getType(), expressionNameType.getName(), ie, expressionNameType.getType());
 
     }
 
-    private void checkIfNumberLiteral(ASTNode node) {
-        if (node instanceof NumberLiteral) {
-            NumberLiteral nl = (NumberLiteral) node;
-            typeTable.put(node, getNumberLiteralType(nl));
+    /**
+     * @param ie an infix expression
+     * @return the right operand and then the extended operands, in order
+     */
+    private static List<Expression> getRightOperands(InfixExpression ie) {
+        if (!ie.hasExtendedOperands()) {
+            return Collections.singletonList(ie.getRightOperand());
         }
-    }
-
-    public static boolean isNumeric(String strNum) {
-        try {
-            Double.parseDouble(strNum);
-        } catch (NumberFormatException | NullPointerException nfe) {
-            return false;
+        List<Expression> operands = new ArrayList<>(1 + ie.extendedOperands().size());
+        operands.add(ie.getRightOperand());
+        for (Object operand : ie.extendedOperands()) {
+            operands.add((Expression) operand);
         }
-        return true;
+        return operands;
     }
 
-
-    private boolean isExpressionTypeCompatible(String expressionType, String lhType, String rhType) {
-        if (expressionType != null) {
-            return (compareNumericTypes(expressionType, lhType) >= 0 &&
-                    compareNumericTypes(expressionType, rhType) >= 0);
+    /**
+     * @param operand an operand of an infix expression
+     * @return true if the operand is an infix expression, possibly parenthesized, that could not
+     * be typed
+     */
+    private boolean hasFailed(Expression operand) {
+        while (operand instanceof ParenthesizedExpression) {
+            operand = ((ParenthesizedExpression) operand).getExpression();
         }
-
-        return false;
-    }
-
-    public boolean isPrimitive(String t) {
-        if (t == null || t.equals(UNKNOWN_TYPE)) return false;
-        return primitiveTypes.contains(t);
+        return operand instanceof InfixExpression && UNKNOWN_TYPE.equals(typeTable.get(operand));
     }
 
-
-    private boolean isNumericPrimitive(String t) {
-        if (t == null || t.equals(UNKNOWN_TYPE)) return true;
-        return !numericPrimitives.contains(t);
+    /**
+     * @param ie an infix expression
+     * @return true if the expression, possibly parenthesized, is an operand of another infix
+     * expression, whose type it is promoted into rather than checked against the type expected
+     * of the whole
+     */
+    public static boolean isOperand(InfixExpression ie) {
+        ASTNode parent = ie.getParent();
+        while (parent instanceof ParenthesizedExpression) {
+            parent = parent.getParent();
+        }
+        return parent instanceof InfixExpression;
     }
 
-
     /**
-     * Compare method for comparing and sorting numeric primitive  types
+     * Log an error and record it as a diagnostic of the type checker
      *
-     * @param prim1 primitive 1
-     * @param prim2 primitive 2
-     * @return int indicating the comparison
+     * @param node   the node the error was found at
+     * @param format slf4j style message format
+     * @param args   arguments of the message
      */
-    public int compareNumericTypes(String prim1, String prim2) {
-        switch (prim1) {
-            case SHORT:
-                if (prim2.equals(SHORT))
-                    return 0;
-                else return -1;
-            case INT:
-                if (prim2.equals(SHORT)) {
-                    return 1;
-                } else if (prim2.equals(INT)) {
-                    return 0;
-                } else return -1;
-            case LONG:
-                if (prim2.equals(SHORT) || prim2.equals(INT)) {
-                    return 1;
-                } else if (prim2.equals(LONG)) {
-                    return 0;
-                } else return -1;
-            case FLOAT:
-                if (prim2.equals(DOUBLE)) {
-                    return -1;
-                } else if (prim2.equals(FLOAT)) {
-                    return 0;
-                } else return 1;
-            case DOUBLE:
-                if (prim2.equals(DOUBLE))
-                    return 0;
-                else return 1;
-            default:
-                return -1;
+    private void error(ASTNode node, String format, Object... args) {
+        logger.error(format, args);
+        typeCheckerVisitor.addDiagnostic(node, MessageFormatter.arrayFormat(format, args).getMessage());
+    }
+
+    public static boolean isNumeric(String strNum) {
+        try {
+            Double.parseDouble(strNum);
+        } catch (NumberFormatException | NullPointerException nfe) {
+            return false;
         }
+        return true;
     }
 
 
     /**
-     * Add the supported primitive types to a set
+     * @param expressionType type the expression is assigned to or returned as
+     * @param promoted       type the operands were promoted to
+     * @return true if the promoted type widens to the expression type
      */
-    private void addPrimitives() {
-        primitiveTypes.add(SHORT);
-        primitiveTypes.add(INT);
-        primitiveTypes.add(LONG);
-        primitiveTypes.add(FLOAT);
-        primitiveTypes.add(DOUBLE);
-
-        numericPrimitives.addAll(primitiveTypes); // Add the numeric primitives to separate set
+    private boolean isExpressionTypeCompatible(String expressionType, Primitive promoted) {
+        Primitive expected = Primitive.of(expressionType);
+        return expected != null && promoted.widensTo(expected);
+    }
 
-        primitiveTypes.add(BYTE);
-        primitiveTypes.add(CHAR);
+    private static boolean isShift(InfixExpression.Operator operator) {
+        return operator == InfixExpression.Operator.LEFT_SHIFT
+                || operator == InfixExpression.Operator.RIGHT_SHIFT_SIGNED
+                || operator == InfixExpression.Operator.RIGHT_SHIFT_UNSIGNED;
+    }
 
-        primitiveTypes.add(BOOLEAN);
-        primitiveTypes.add(NULL);
+    public boolean isPrimitive(String t) {
+        return Primitive.of(t) != null || NULL.equals(t);
     }
 
 
@@ -246,18 +245,18 @@ public class ExpressionEvaluator {
     public static String getNumberLiteralType(final NumberLiteral nl) {
         String token = nl.getToken();
         if (token.endsWith("f") || token.endsWith("F")) {
-            return FLOAT;
+            return Primitive.FLOAT.getKeyword();
         }
         if (token.endsWith("l") || token.endsWith("L")) {
-            return LONG;
+            return Primitive.LONG.getKeyword();
         }
         if (token.endsWith("d") || token.endsWith("D")) {
-            return DOUBLE;
+            return Primitive.DOUBLE.getKeyword();
         }
         if (token.indexOf('.') == -1) {
-            return INT;
+            return Primitive.INT.getKeyword();
         } else {
-            return DOUBLE;
+            return Primitive.DOUBLE.getKeyword();
         }
     }
 }
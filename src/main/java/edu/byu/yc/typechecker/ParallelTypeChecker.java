@@ -0,0 +1,186 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Checks units on a fork-join pool, one task per top-level type and one per member method, each
+ * with a TypeCheckerVisitor of its own. Once the symbol table is frozen the tasks share nothing
+ * but it: each task checks against an overlay of its own, which holds its scopes and the valid
+ * types it records. Each task writes its results to a slot of its own and the slots are read once
+ * every task has joined, so results are merged without locks, and the overlays are merged in task
+ * order, so neither depends on how the pool scheduled the tasks.
+ * <p>
+ * Diagnostics come out in the order a single visitor would find them, whatever the pool: units in
+ * the order given, the types of a unit in declaration order, and the diagnostics of each member
+ * method where the check of its type came to the method.
+ */
+public class ParallelTypeChecker {
+
+    private final SymbolTable symbolTable;
+    private final ForkJoinPool pool;
+
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+    private final TypeTable typeTable = new TypeTable();
+    private final List<SymbolTable> overlays = new ArrayList<>();
+
+    /**
+     * @param symbolTable a frozen symbol table of every unit to check
+     * @param pool        the pool to check on
+     */
+    public ParallelTypeChecker(SymbolTable symbolTable, ForkJoinPool pool) {
+        if (!symbolTable.isFrozen()) {
+            throw new IllegalArgumentException("Parallel checking needs a frozen symbol table");
+        }
+        this.symbolTable = symbolTable;
+        this.pool = pool;
+    }
+
+    /**
+     * A top-level type or member method to check, and what checking it found
+     */
+    private static class Member {
+        private final ASTNode node;
+        private SymbolTable overlay;
+        private List<Diagnostic> diagnostics;
+        private TypeTable types;
+        private Map<MethodDeclaration, Integer> skippedMethods;
+
+        Member(ASTNode node) {
+            this.node = node;
+        }
+    }
+
+    /**
+     * Check units, adding to what earlier calls found
+     *
+     * @param units the units to check
+     * @return the diagnostics of every unit checked so far
+     */
+    public List<Diagnostic> check(List<? extends ASTNode> units) {
+        List<Member> types = new ArrayList<>();
+        List<Member> members = new ArrayList<>();
+        for (ASTNode unit : units) {
+            // Number every unit before any task enters it, since numbering writes to the nodes
+            TypeTable.number(unit);
+            if (unit instanceof CompilationUnit) {
+                for (Object type : ((CompilationUnit) unit).types()) {
+                    Member member = new Member((AbstractTypeDeclaration) type);
+                    types.add(member);
+                    members.add(member);
+                    if (type instanceof TypeDeclaration) {
+                        addMethods((TypeDeclaration) type, members);
+                    }
+                }
+            }
+        }
+
+        pool.invoke(new CheckTask(symbolTable, members, 0, members.size()));
+
+        Map<MethodDeclaration, Member> methods = new IdentityHashMap<>();
+        for (Member member : members) {
+            overlays.add(member.overlay);
+            typeTable.putAll(member.types);
+            if (member.node instanceof MethodDeclaration) {
+                methods.put((MethodDeclaration) member.node, member);
+            }
+        }
+        for (Member type : types) {
+            int next = 0;
+            for (Map.Entry<MethodDeclaration, Integer> skipped : type.skippedMethods.entrySet()) {
+                diagnostics.addAll(type.diagnostics.subList(next, skipped.getValue()));
+                diagnostics.addAll(methods.get(skipped.getKey()).diagnostics);
+                next = skipped.getValue();
+            }
+            diagnostics.addAll(type.diagnostics.subList(next, type.diagnostics.size()));
+        }
+        return diagnostics;
+    }
+
+    /**
+     * Add the methods of a type and of its member types, which are the methods checkType skips
+     */
+    private static void addMethods(TypeDeclaration type, List<Member> members) {
+        for (MethodDeclaration md : type.getMethods()) {
+            members.add(new Member(md));
+        }
+        for (TypeDeclaration memberType : type.getTypes()) {
+            addMethods(memberType, members);
+        }
+    }
+
+    public List<Diagnostic> getDiagnostics() {
+        return diagnostics;
+    }
+
+    /**
+     * @return a frozen snapshot of the symbol table checked against, with the valid types every
+     * task recorded so far merged in task order
+     */
+    public SymbolTable getSymbolTable() {
+        return symbolTable.mergeOverlays(overlays);
+    }
+
+    /**
+     * @return a read only view of the types of every expression checked so far
+     */
+    public Map<ASTNode, String> getTypeTable() {
+        return typeTable.asMap();
+    }
+
+    /**
+     * Checks a range of members, splitting the range in halves until it is a single member
+     */
+    @SuppressWarnings("serial")
+    private static class CheckTask extends RecursiveAction {
+
+        private final SymbolTable symbolTable;
+        private final List<Member> members;
+        private final int from;
+        private final int to;
+
+        CheckTask(SymbolTable symbolTable, List<Member> members, int from, int to) {
+            this.symbolTable = symbolTable;
+            this.members = members;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Member member = members.get(from);
+                member.overlay = symbolTable.newOverlay();
+                TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(member.overlay);
+                if (member.node instanceof MethodDeclaration) {
+                    typeCheckerVisitor.checkMethod((MethodDeclaration) member.node);
+                } else {
+                    typeCheckerVisitor.checkType((AbstractTypeDeclaration) member.node);
+                }
+                member.diagnostics = typeCheckerVisitor.getDiagnostics();
+                member.types = typeCheckerVisitor.getTypes();
+                member.skippedMethods = typeCheckerVisitor.getSkippedMethods();
+                return;
+            }
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CheckTask(symbolTable, members, from, middle),
+                        new CheckTask(symbolTable, members, middle, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.AST;
+import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Hands out pre-configured ASTParsers, one per thread, so parsing a file does not build a new
+ * parser and a new compiler options map each time. The compiler options are computed once for
+ * all pools. A parser is confined to the thread that created it, so a pool may be shared freely.
+ * <p>
+ * ASTParser resets itself after every parse, so the options still have to be handed back to it
+ * before each parse; the parser copies them, which is cheap next to recomputing them.
+ */
+public class ParserPool {
+
+    private static final Map<String, String> COMPILER_OPTIONS = createCompilerOptions();
+
+    private final ThreadLocal<ASTParser> parsers = ThreadLocal.withInitial(() -> ASTParser.newParser(AST.JLS3));
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> createCompilerOptions() {
+        Map<String, String> options = new HashMap<>(JavaCore.getOptions());
+        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options);
+        return Collections.unmodifiableMap(options);
+    }
+
+    /**
+     * @return the compiler options every parser is configured with
+     */
+    public static Map<String, String> getCompilerOptions() {
+        return COMPILER_OPTIONS;
+    }
+
+    /**
+     * Parse a compilation unit with this thread's parser
+     *
+     * @param source The contents of a Java file.
+     * @return The parsed CompilationUnit.
+     */
+    public CompilationUnit parse(char[] source) {
+        ASTParser p = parsers.get();
+        p.setKind(ASTParser.K_COMPILATION_UNIT);
+        p.setCompilerOptions(COMPILER_OPTIONS);
+        p.setSource(source);
+        return (CompilationUnit) p.createAST(null);
+    }
+
+    /**
+     * Parse a batch of compilation units back to back with this thread's parser
+     *
+     * @param sources The contents of each Java file.
+     * @return The parsed CompilationUnits, in the same order as sources.
+     */
+    public List<CompilationUnit> parseBatch(List<char[]> sources) {
+        List<CompilationUnit> units = new ArrayList<>(sources.size());
+        for (char[] source : sources) {
+            units.add(parse(source));
+        }
+        return units;
+    }
+}
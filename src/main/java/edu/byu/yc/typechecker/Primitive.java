@@ -0,0 +1,156 @@
+package edu.byu.yc.typechecker;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The eight primitive types and the conversions between them. Widening primitive conversion
+ * (JLS 5.1.2) and binary numeric promotion (JLS 5.6.2) are worked out once, into tables indexed
+ * by ordinal, so checking an operand or the type of an arithmetic expression is an array load
+ * rather than a comparison of type names.
+ */
+public enum Primitive {
+
+    BOOLEAN("boolean"),
+    BYTE("byte"),
+    SHORT("short"),
+    CHAR("char"),
+    INT("int"),
+    LONG("long"),
+    FLOAT("float"),
+    DOUBLE("double");
+
+    private static final Primitive[] VALUES = values();
+    private static final boolean[][] WIDENS = new boolean[VALUES.length][VALUES.length];
+    private static final Primitive[][] PROMOTED = new Primitive[VALUES.length][VALUES.length];
+
+    static {
+        for (Primitive from : VALUES) {
+            for (Primitive to : VALUES) {
+                WIDENS[from.ordinal()][to.ordinal()] = from == to || widens(from, to);
+                PROMOTED[from.ordinal()][to.ordinal()] = promote(from, to);
+            }
+        }
+    }
+
+    private final String keyword;
+
+    Primitive(String keyword) {
+        this.keyword = keyword;
+    }
+
+    /**
+     * @param type the name of a type
+     * @return the primitive type of that name, or null if it is not a primitive type
+     */
+    public static Primitive of(String type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case "boolean":
+                return BOOLEAN;
+            case "byte":
+                return BYTE;
+            case "short":
+                return SHORT;
+            case "char":
+                return CHAR;
+            case "int":
+                return INT;
+            case "long":
+                return LONG;
+            case "float":
+                return FLOAT;
+            case "double":
+                return DOUBLE;
+            default:
+                return null;
+        }
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public boolean isNumeric() {
+        return this != BOOLEAN;
+    }
+
+    public boolean isIntegral() {
+        return this != BOOLEAN && this != FLOAT && this != DOUBLE;
+    }
+
+    /**
+     * @param to a primitive type
+     * @return true if a value of this type may be assigned to to, by identity or widening
+     * primitive conversion
+     */
+    public boolean widensTo(Primitive to) {
+        return WIDENS[ordinal()][to.ordinal()];
+    }
+
+    /**
+     * @param other the type of the other operand
+     * @return the type both operands of a binary numeric operator are promoted to, or null if
+     * either is not numeric
+     */
+    public Primitive promote(Primitive other) {
+        return PROMOTED[ordinal()][other.ordinal()];
+    }
+
+    /**
+     * @return the type this type is promoted to as the operand of a unary operator or a shift,
+     * or null if it is not numeric
+     */
+    public Primitive promote() {
+        return PROMOTED[ordinal()][ordinal()];
+    }
+
+    /**
+     * JLS 5.1.2: byte widens to short, and short and char to int, which widens to long, float
+     * and double in turn. Conversions to a wider type that skip a step widen too.
+     */
+    private static boolean widens(Primitive from, Primitive to) {
+        switch (from) {
+            case BYTE:
+                return to == SHORT || widens(SHORT, to);
+            case SHORT:
+            case CHAR:
+                return to == INT || widens(INT, to);
+            case INT:
+                return to == LONG || widens(LONG, to);
+            case LONG:
+                return to == FLOAT || widens(FLOAT, to);
+            case FLOAT:
+                return to == DOUBLE;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * JLS 5.6.2: if either operand is double the other is converted to double, otherwise to
+     * float if either is float, otherwise to long if either is long, and otherwise both are
+     * converted to int
+     */
+    private static Primitive promote(Primitive a, Primitive b) {
+        if (!a.isNumeric() || !b.isNumeric()) {
+            return null;
+        }
+        if (a == DOUBLE || b == DOUBLE) {
+            return DOUBLE;
+        }
+        if (a == FLOAT || b == FLOAT) {
+            return FLOAT;
+        }
+        if (a == LONG || b == LONG) {
+            return LONG;
+        }
+        return INT;
+    }
+
+    @Override
+    public String toString() {
+        return keyword;
+    }
+}
@@ -0,0 +1,372 @@
+package edu.byu.yc.typechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * A persistent cache of per-file check results. Each entry is keyed by the file's path and
+ * stores a hash of its contents, the types it declares, and a hash of the symbol table facts its
+ * check depended on. When both hashes still match, the stored diagnostics and type table summary
+ * can be replayed without parsing the file again.
+ */
+public class ResultCache {
+
+    private static Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    private static final int MAGIC = 0x54435243; // "TCRC"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private ResultCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Load the cache stored at file. A missing, outdated or unreadable cache file gives an empty
+     * cache, so every file is checked and the cache is rewritten on save.
+     *
+     * @param file location of the cache
+     * @return the loaded cache
+     */
+    public static ResultCache load(Path file) {
+        ResultCache cache = new ResultCache(file);
+        if (!Files.exists(file)) {
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                logger.info("Ignoring cache {} written by another version", file);
+                return cache;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Entry entry = Entry.read(in);
+                cache.entries.put(entry.getSourcePath(), entry);
+            }
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cache {}: {}", file, e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Write the cache back to its file. The file is replaced atomically so an interrupted save
+     * never leaves a truncated cache behind.
+     *
+     * @throws IOException if the cache cannot be written
+     */
+    public void save() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Entry entry : new TreeMap<>(entries).values()) {
+                entry.write(out);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Entry get(String sourcePath) {
+        return entries.get(sourcePath);
+    }
+
+    public void put(Entry entry) {
+        entries.put(entry.getSourcePath(), entry);
+    }
+
+    /**
+     * Drop the entries of files that are no longer part of the checked sources
+     *
+     * @param sourcePaths the paths of every file that was checked
+     */
+    public void retainAll(Collection<String> sourcePaths) {
+        entries.keySet().retainAll(new HashSet<>(sourcePaths));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Hash the contents of a source file
+     *
+     * @param source the contents of the file
+     * @return hex encoded SHA-256 of the contents
+     */
+    public static String hash(char[] source) {
+        MessageDigest digest = newDigest();
+        byte[] chunk = new byte[8192];
+        int length = 0;
+        for (char c : source) {
+            if (length == chunk.length) {
+                digest.update(chunk, 0, length);
+                length = 0;
+            }
+            chunk[length++] = (byte) (c >> 8);
+            chunk[length++] = (byte) c;
+        }
+        digest.update(chunk, 0, length);
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Hash a set of symbol table facts, one String per fact
+     *
+     * @param facts the facts in a stable order
+     * @return hex encoded SHA-256 of the facts
+     */
+    public static String hash(List<String> facts) {
+        MessageDigest digest = newDigest();
+        for (String fact : facts) {
+            digest.update(fact.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The stored result of checking one file
+     */
+    public static class Entry {
+
+        private final String sourcePath;
+        private final String contentHash;
+        private final Map<String, String> declaredTypes;
+        private final String factsHash;
+        private final List<Diagnostic> diagnostics;
+        private final Map<String, Integer> typeSummary;
+        private boolean replayed;
+
+        /**
+         * Constructor for a cache entry
+         *
+         * @param sourcePath    path of the checked file
+         * @param contentHash   hash of the file's contents
+         * @param declaredTypes simple names of the types the file declares mapped to their FQNs
+         * @param factsHash     hash of the symbol table facts the check depended on
+         * @param diagnostics   errors found in the file
+         * @param typeSummary   number of type table entries of each type in the file
+         */
+        public Entry(String sourcePath, String contentHash, Map<String, String> declaredTypes, String factsHash,
+                     List<Diagnostic> diagnostics, Map<String, Integer> typeSummary) {
+            this.sourcePath = sourcePath;
+            this.contentHash = contentHash;
+            this.declaredTypes = declaredTypes;
+            this.factsHash = factsHash;
+            this.diagnostics = diagnostics;
+            this.typeSummary = typeSummary;
+        }
+
+        public String getSourcePath() {
+            return sourcePath;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        public Map<String, String> getDeclaredTypes() {
+            return declaredTypes;
+        }
+
+        public String getFactsHash() {
+            return factsHash;
+        }
+
+        public List<Diagnostic> getDiagnostics() {
+            return diagnostics;
+        }
+
+        public Map<String, Integer> getTypeSummary() {
+            return typeSummary;
+        }
+
+        /**
+         * @return true if this result was replayed from the cache rather than checked this run
+         */
+        public boolean isReplayed() {
+            return replayed;
+        }
+
+        void setReplayed(boolean replayed) {
+            this.replayed = replayed;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            writeString(out, sourcePath);
+            writeString(out, contentHash);
+            out.writeInt(declaredTypes.size());
+            for (Map.Entry<String, String> type : declaredTypes.entrySet()) {
+                writeString(out, type.getKey());
+                writeString(out, type.getValue());
+            }
+            writeString(out, factsHash);
+            out.writeInt(diagnostics.size());
+            for (Diagnostic diagnostic : diagnostics) {
+                out.writeInt(diagnostic.getLine());
+                writeString(out, diagnostic.getMessage());
+            }
+            out.writeInt(typeSummary.size());
+            for (Map.Entry<String, Integer> type : typeSummary.entrySet()) {
+                writeString(out, type.getKey());
+                out.writeInt(type.getValue());
+            }
+        }
+
+        private static Entry read(DataInputStream in) throws IOException {
+            String sourcePath = readString(in);
+            String contentHash = readString(in);
+            int typeCount = in.readInt();
+            Map<String, String> declaredTypes = new LinkedHashMap<>();
+            for (int i = 0; i < typeCount; i++) {
+                declaredTypes.put(readString(in), readString(in));
+            }
+            String factsHash = readString(in);
+            int diagnosticCount = in.readInt();
+            List<Diagnostic> diagnostics = new ArrayList<>(diagnosticCount);
+            for (int i = 0; i < diagnosticCount; i++) {
+                int line = in.readInt();
+                diagnostics.add(new Diagnostic(sourcePath, line, readString(in)));
+            }
+            int summaryCount = in.readInt();
+            Map<String, Integer> typeSummary = new TreeMap<>();
+            for (int i = 0; i < summaryCount; i++) {
+                typeSummary.put(readString(in), in.readInt());
+            }
+            return new Entry(sourcePath, contentHash, declaredTypes, factsHash, diagnostics, typeSummary);
+        }
+    }
+
+    /**
+     * Compute the facts hash of every file. A file's check depends on which FQN each simple name
+     * it declares resolves to across all files, on the contents of every file that declares that
+     * FQN, since their members share one entry in the symbol table, and on the classpath.
+     *
+     * @param sourcePaths   every checked file, in check order
+     * @param contentHashes the content hash of each file
+     * @param declaredTypes the simple name to FQN map of each file
+     * @param classpathKey  the cache key of the classpath library types resolve against, or null
+     *                      if they are not resolved
+     * @return the facts hash of each file
+     */
+    static String[] factsHashes(List<String> sourcePaths, String[] contentHashes,
+                                List<Map<String, String>> declaredTypes, String classpathKey) {
+        Map<String, String> simpleToQualified = new HashMap<>();
+        Map<String, List<Integer>> qualifiedToFiles = new HashMap<>();
+        for (int i = 0; i < sourcePaths.size(); i++) {
+            simpleToQualified.putAll(declaredTypes.get(i));
+            for (String fqn : new HashSet<>(declaredTypes.get(i).values())) {
+                qualifiedToFiles.computeIfAbsent(fqn, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        String[] hashes = new String[sourcePaths.size()];
+        for (int i = 0; i < sourcePaths.size(); i++) {
+            List<String> facts = new ArrayList<>();
+            if (classpathKey != null) {
+                facts.add("classpath=" + classpathKey);
+            }
+            for (String simpleName : new TreeMap<>(declaredTypes.get(i)).keySet()) {
+                String fqn = simpleToQualified.get(simpleName);
+                StringBuilder fact = new StringBuilder(simpleName).append('=').append(fqn);
+                for (int declaring : qualifiedToFiles.get(fqn)) {
+                    fact.append('@').append(contentHashes[declaring]);
+                }
+                facts.add(fact.toString());
+            }
+            hashes[i] = hash(facts);
+        }
+        return hashes;
+    }
+
+    /**
+     * Find every file that declares a simple name also declared by one of the given files. Those
+     * files compete for the same symbol table entries and have to be checked together.
+     *
+     * @param toCheck       indexes of the files that have to be checked, grown in place
+     * @param declaredTypes the simple name to FQN map of each file
+     */
+    static void addCollidingFiles(Set<Integer> toCheck, List<Map<String, String>> declaredTypes) {
+        Map<String, List<Integer>> simpleToFiles = new HashMap<>();
+        for (int i = 0; i < declaredTypes.size(); i++) {
+            for (String simpleName : declaredTypes.get(i).keySet()) {
+                simpleToFiles.computeIfAbsent(simpleName, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        List<Integer> work = new ArrayList<>(toCheck);
+        while (!work.isEmpty()) {
+            int file = work.remove(work.size() - 1);
+            for (String simpleName : declaredTypes.get(file).keySet()) {
+                for (int other : simpleToFiles.get(simpleName)) {
+                    if (toCheck.add(other)) {
+                        work.add(other);
+                    }
+                }
+            }
+        }
+    }
+}
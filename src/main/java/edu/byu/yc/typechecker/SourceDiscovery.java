@@ -0,0 +1,273 @@
+package edu.byu.yc.typechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Finds the Java files under a set of roots. Directories are walked in parallel on a fork-join
+ * pool, one task per directory, and every matching file is handed to a sink as soon as it is
+ * found so parsing can start before the walk finishes. Paths are matched against include and
+ * exclude globs relative to the root they were found under. Version control and tool directories
+ * are skipped wherever they are found, and build output directories where a build puts them:
+ * directly under a root or next to a build file. A package of the same name deeper in a source
+ * tree is still searched.
+ */
+public class SourceDiscovery {
+
+    private static Logger logger = LoggerFactory.getLogger(SourceDiscovery.class);
+
+    /**
+     * Directory names that never contain sources worth checking
+     */
+    public static final Set<String> DEFAULT_SKIPPED_DIRECTORIES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList(".git", ".svn", ".hg", ".idea", ".gradle", "node_modules")));
+
+    /**
+     * Names of the directories builds write their output to, which are skipped directly under a
+     * root or next to a build file, but may also be packages
+     */
+    public static final Set<String> DEFAULT_OUTPUT_DIRECTORIES = Collections.unmodifiableSet(new HashSet<>(
+            Arrays.asList("target", "build", "out", "bin", "generated", "generated-sources")));
+
+    /**
+     * Files that mark a directory as the root of a project, whose output directories are skipped
+     */
+    public static final List<String> BUILD_FILES = Collections.unmodifiableList(
+            Arrays.asList("pom.xml", "build.gradle", "build.gradle.kts", "build.xml"));
+
+    public static final String DEFAULT_INCLUDE = "**.java";
+
+    private final List<PathMatcher> includes = new ArrayList<>();
+    private final List<PathMatcher> excludes = new ArrayList<>();
+    private final Set<String> skippedDirectories = new HashSet<>(DEFAULT_SKIPPED_DIRECTORIES);
+    private final int parallelism;
+
+    public SourceDiscovery() {
+        this(Collections.singletonList(DEFAULT_INCLUDE), Collections.emptyList());
+    }
+
+    public SourceDiscovery(List<String> includeGlobs, List<String> excludeGlobs) {
+        this(includeGlobs, excludeGlobs, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for a discovery stage with its own include and exclude globs
+     *
+     * @param includeGlobs globs a file must match one of to be discovered, "**.java" if empty
+     * @param excludeGlobs globs of files and directories to leave out
+     * @param parallelism  the number of threads to walk directories with
+     */
+    public SourceDiscovery(List<String> includeGlobs, List<String> excludeGlobs, int parallelism) {
+        for (String glob : includeGlobs.isEmpty() ? Collections.singletonList(DEFAULT_INCLUDE) : includeGlobs) {
+            includes.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        }
+        for (String glob : excludeGlobs) {
+            excludes.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        }
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Walk every root and return the matching files, sorted so callers see a stable order
+     *
+     * @param roots files or directories to search
+     * @return every Java file found under roots
+     */
+    public List<Path> discover(Collection<Path> roots) {
+        ConcurrentLinkedQueue<Path> found = new ConcurrentLinkedQueue<>();
+        discover(roots, found::add);
+
+        List<Path> result = new ArrayList<>(found);
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Walk every root, passing each matching file to sink as soon as it is found. The sink is
+     * called concurrently from the walking threads. Returns once the walk is complete.
+     *
+     * @param roots files or directories to search
+     * @param sink  receives each file found
+     */
+    public void discover(Collection<Path> roots, Consumer<Path> sink) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<DirectoryTask> tasks = new ArrayList<>();
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) {
+                    tasks.add(new DirectoryTask(root, root, sink));
+                } else if (root.toString().endsWith(".java") && !isExcluded(root.getFileName())) {
+                    sink.accept(root);
+                }
+            }
+            for (DirectoryTask task : tasks) {
+                pool.execute(task);
+            }
+            for (DirectoryTask task : tasks) {
+                task.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Add a directory name to skip wherever it is found, even when it is the name of an output
+     * directory
+     *
+     * @param name the directory name
+     */
+    public void skipDirectory(String name) {
+        skippedDirectories.add(name);
+    }
+
+    /**
+     * Whether discover would report a file found under a root
+     *
+     * @param root the root the file was found under
+     * @param file the file
+     * @return true if the file is a source
+     */
+    public boolean matches(Path root, Path file) {
+        Path relative = root.relativize(file);
+        Path directory = root;
+        for (int i = 0; i < relative.getNameCount() - 1; i++) {
+            directory = directory.resolve(relative.getName(i));
+            if (isSkipped(root, directory)) {
+                return false;
+            }
+        }
+        return isIncluded(relative) && !isExcluded(relative);
+    }
+
+    /**
+     * Whether discover would descend into a directory found under a root
+     *
+     * @param root      the root the directory was found under
+     * @param directory the directory
+     * @return true if the directory is searched
+     */
+    public boolean searches(Path root, Path directory) {
+        if (directory.equals(root)) {
+            return true;
+        }
+        Path relative = root.relativize(directory);
+        Path ancestor = root;
+        for (Path name : relative) {
+            ancestor = ancestor.resolve(name);
+            if (isSkipped(root, ancestor)) {
+                return false;
+            }
+        }
+        return !isExcluded(relative);
+    }
+
+    /**
+     * @param root      the root the directory was found under
+     * @param directory a directory under root, but not root itself
+     * @return true if the directory is skipped by name, or is an output directory of the root or
+     * of a project
+     */
+    private boolean isSkipped(Path root, Path directory) {
+        String name = directory.getFileName().toString();
+        if (skippedDirectories.contains(name)) {
+            return true;
+        }
+        if (!DEFAULT_OUTPUT_DIRECTORIES.contains(name)) {
+            return false;
+        }
+        Path parent = directory.getParent();
+        if (parent.equals(root)) {
+            return true;
+        }
+        for (String buildFile : BUILD_FILES) {
+            if (Files.isRegularFile(parent.resolve(buildFile))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isIncluded(Path relative) {
+        for (PathMatcher include : includes) {
+            if (include.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isExcluded(Path relative) {
+        for (PathMatcher exclude : excludes) {
+            if (exclude.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists a single directory, forking a task for each subdirectory. Symbolic links to
+     * directories are not followed so cycles cannot make the walk run forever.
+     */
+    @SuppressWarnings("serial")
+    private class DirectoryTask extends RecursiveAction {
+
+        private final Path root;
+        private final Path directory;
+        private final Consumer<Path> sink;
+
+        DirectoryTask(Path root, Path directory, Consumer<Path> sink) {
+            this.root = root;
+            this.directory = directory;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    Path relative = root.relativize(entry);
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        if (isSkipped(root, entry)) {
+                            if (skippedDirectories.contains(entry.getFileName().toString())) {
+                                logger.debug("Skipping directory {}", entry);
+                            } else {
+                                logger.info("Skipping build output directory {}", entry);
+                            }
+                        } else if (!isExcluded(relative)) {
+                            subtasks.add(new DirectoryTask(root, entry, sink));
+                        }
+                    } else if (isIncluded(relative) && !isExcluded(relative)) {
+                        sink.accept(entry);
+                    }
+                }
+            } catch (IOException | SecurityException e) {
+                logger.warn("Skipping unreadable directory {}: {}", directory, e.getMessage());
+            }
+            invokeAll(subtasks);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package edu.byu.yc.typechecker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Reads Java source files straight into the char[] that ASTParser.setSource consumes. Small files
+ * are read into a pooled direct ByteBuffer and large files are memory-mapped, then decoded once
+ * with a reused CharsetDecoder, so each file is copied a single time on its way to the parser.
+ * A loader may be shared by several threads; the buffer and decoder are confined to each thread.
+ */
+public class SourceLoader {
+
+    /**
+     * Files at least this large are memory-mapped instead of read into the pooled buffer
+     */
+    static final long MAP_THRESHOLD = 1L << 20;
+
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final Charset charset;
+    private final ThreadLocal<CharsetDecoder> decoders;
+    private final ThreadLocal<ByteBuffer> buffers = new ThreadLocal<>();
+
+    private final LongAdder filesRead = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder nanosReading = new LongAdder();
+
+    public SourceLoader() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    public SourceLoader(Charset charset) {
+        this.charset = charset;
+        this.decoders = ThreadLocal.withInitial(() -> charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE));
+    }
+
+    /**
+     * Read and decode the file at path
+     *
+     * @param path The location of the file to be read
+     * @return the decoded contents of the file, sized exactly to its length in chars
+     * @throws IOException if the file cannot be read
+     */
+    public char[] load(Path path) throws IOException {
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer bytes = size >= MAP_THRESHOLD
+                    ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size)
+                    : readPooled(channel, (int) size);
+
+            char[] chars = decode(bytes);
+
+            filesRead.increment();
+            bytesRead.add(size);
+            return chars;
+        } finally {
+            nanosReading.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Read the whole channel into this thread's pooled direct buffer, growing it if needed
+     */
+    private ByteBuffer readPooled(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = buffers.get();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Math.max(INITIAL_BUFFER_SIZE, Integer.highestOneBit(size) << 1));
+            buffers.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private char[] decode(ByteBuffer bytes) throws CharacterCodingException {
+        CharsetDecoder decoder = decoders.get().reset();
+        char[] chars = new char[(int) (bytes.remaining() * (double) decoder.maxCharsPerByte())];
+        CharBuffer out = CharBuffer.wrap(chars);
+
+        CoderResult result = decoder.decode(bytes, out, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = decoder.flush(out);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+
+        // Only multi-byte input decodes to fewer chars than the array was sized for
+        return out.position() == chars.length ? chars : Arrays.copyOf(chars, out.position());
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public long getFilesRead() {
+        return filesRead.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * Returns the read throughput summed over every thread that used this loader
+     *
+     * @return bytes read per second of time spent reading
+     */
+    public double getBytesPerSecond() {
+        long nanos = nanosReading.sum();
+        if (nanos == 0) {
+            return 0;
+        }
+        return getBytesRead() / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d files, %d bytes, %.1f MB/s", getFilesRead(), getBytesRead(),
+                getBytesPerSecond() / (1024 * 1024));
+    }
+}
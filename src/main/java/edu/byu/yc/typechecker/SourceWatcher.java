@@ -0,0 +1,270 @@
+package edu.byu.yc.typechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Watches source roots with a WatchService and re-checks only the files that change. Editors
+ * often write a file several times per save, so events are collected until none has arrived for
+ * the debounce interval and then handed to CheckSession.update as one batch. Each cycle logs the
+ * diagnostics and the latency from the earliest save in the batch to the diagnostics being ready.
+ */
+public class SourceWatcher implements AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(SourceWatcher.class);
+
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    private final CheckSession session;
+    private final SourceDiscovery discovery;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new HashMap<>();
+    private final Map<WatchKey, Path> roots = new HashMap<>();
+    private final Set<Path> fileRoots = new LinkedHashSet<>();
+    private final List<Path> watchedRoots = new ArrayList<>();
+    private boolean overflowed;
+    private int cycles;
+    private long lastLatencyMillis;
+
+    /**
+     * Constructor for a watcher
+     *
+     * @param session        the session kept up to date
+     * @param discovery      the discovery stage that decides which files are sources
+     * @param debounceMillis how long the event stream must be quiet before a re-check
+     * @throws IOException if the watch service cannot be created
+     */
+    public SourceWatcher(CheckSession session, SourceDiscovery discovery, long debounceMillis) throws IOException {
+        this.session = session;
+        this.discovery = discovery;
+        this.debounceMillis = debounceMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    /**
+     * Check every root once and start watching them
+     *
+     * @param sourceRoots files or directories to check
+     * @return the errors found by the initial check
+     * @throws IOException if a directory cannot be watched
+     */
+    public List<Diagnostic> start(Collection<Path> sourceRoots) throws IOException {
+        for (Path root : sourceRoots) {
+            Path absolute = root.toAbsolutePath().normalize();
+            watchedRoots.add(absolute);
+            if (!Files.isDirectory(absolute)) {
+                // A file root is watched through its directory, without searching below it
+                fileRoots.add(absolute);
+                WatchKey key = register(absolute.getParent());
+                if (!roots.containsKey(key)) {
+                    roots.put(key, null);
+                }
+            }
+        }
+        for (Path root : watchedRoots) {
+            if (Files.isDirectory(root)) {
+                registerAll(root, root, null);
+            }
+        }
+        List<Diagnostic> diagnostics = session.check(watchedRoots);
+        report(diagnostics);
+        return diagnostics;
+    }
+
+    private WatchKey register(Path directory) throws IOException {
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        directories.put(key, directory);
+        return key;
+    }
+
+    /**
+     * Register a directory and every directory below it that discovery would search
+     *
+     * @param found if not null, receives every source in those directories, matched relative to
+     *              root as discovery would match it
+     */
+    private void registerAll(Path root, Path directory, Set<Path> found) throws IOException {
+        if (!discovery.searches(root, directory)) {
+            return;
+        }
+        roots.put(register(directory), root);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                    registerAll(root, entry, found);
+                } else if (found != null && discovery.matches(root, entry)) {
+                    found.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop watching a directory and every directory below it
+     */
+    private void unregisterAll(Path directory) {
+        for (Iterator<Map.Entry<WatchKey, Path>> it = directories.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<WatchKey, Path> watched = it.next();
+            if (watched.getValue().startsWith(directory)) {
+                watched.getKey().cancel();
+                roots.remove(watched.getKey());
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Wait for changes and re-check them until interrupted or closed
+     */
+    public void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                awaitChanges();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Watch service closed");
+        }
+    }
+
+    /**
+     * Block until some source changes, wait for the burst of changes to settle, then re-check
+     * the changed files
+     *
+     * @return the errors found in every file after the re-check
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public List<Diagnostic> awaitChanges() throws InterruptedException {
+        Set<Path> changed = new LinkedHashSet<>();
+        WatchKey key = watchService.take();
+        do {
+            collect(key, changed);
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        } while (key != null);
+        if (changed.isEmpty() && !overflowed) {
+            return session.getDiagnostics();
+        }
+
+        long saved = Long.MAX_VALUE;
+        for (Path path : changed) {
+            saved = Math.min(saved, lastModified(path));
+        }
+        List<Diagnostic> diagnostics = overflowed ? session.check(watchedRoots) : session.update(changed);
+        overflowed = false;
+        cycles++;
+        lastLatencyMillis = saved == Long.MAX_VALUE ? 0 : Math.max(0, System.currentTimeMillis() - saved);
+        report(diagnostics);
+        logger.info("Re-checked {} changed files in {} ms from save to diagnostics", changed.size(), lastLatencyMillis);
+        return diagnostics;
+    }
+
+    /**
+     * Add the sources changed by one key's events to changed, and register new directories
+     */
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path directory = directories.get(key);
+        Path root = roots.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                logger.warn("Missed events in {}, re-checking everything", directory);
+                overflowed = true;
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (fileRoots.contains(path)) {
+                changed.add(path);
+            } else if (root == null) {
+                // Only watched for a file root
+                logger.trace("Ignoring {}", path);
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && directories.containsValue(path)) {
+                // The sources of a deleted or moved directory get no events of their own
+                unregisterAll(path);
+                changed.addAll(session.getSourcesUnder(path));
+            } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                    registerCreated(root, path, changed);
+                }
+            } else if (discovery.matches(root, path)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            directories.remove(key);
+            roots.remove(key);
+        }
+    }
+
+    /**
+     * Register a directory created, or moved in, after watching started; files may already have
+     * been written into it before it was registered, so they are all treated as changed
+     */
+    private void registerCreated(Path root, Path directory, Set<Path> changed) {
+        try {
+            registerAll(root, directory, changed);
+        } catch (IOException e) {
+            logger.warn("Unable to watch {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            // Deleted files have no save time
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private void report(List<Diagnostic> diagnostics) {
+        for (Diagnostic diagnostic : diagnostics) {
+            logger.error("{}", diagnostic);
+        }
+        logger.info("{} diagnostics in {} files", diagnostics.size(), session.getUnitCount());
+    }
+
+    /**
+     * @return the number of re-checks since watching started
+     */
+    public int getCycles() {
+        return cycles;
+    }
+
+    /**
+     * @return the latency in milliseconds from save to diagnostics of the last re-check
+     */
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        session.close();
+    }
+}
@@ -0,0 +1,104 @@
+package edu.byu.yc.typechecker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Counters for one stage of the CheckPipeline: how many items it processed, how long its workers
+ * were busy, and how deep its input queue got
+ */
+public class StageMetrics {
+
+    private final String name;
+    private final LongAdder items = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private volatile long startNanos;
+    private volatile long endNanos;
+
+    public StageMetrics(String name) {
+        this.name = name;
+    }
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * Record one processed item
+     *
+     * @param nanos time spent processing it
+     */
+    void record(long nanos) {
+        items.increment();
+        busyNanos.add(nanos);
+    }
+
+    /**
+     * Record the depth of the stage's input queue after an item was added to it
+     *
+     * @param depth current number of queued items
+     */
+    void observeQueueDepth(int depth) {
+        queueDepth.set(depth);
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getItems() {
+        return items.sum();
+    }
+
+    public long getBusyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(busyNanos.sum());
+    }
+
+    /**
+     * @return the last observed depth of the input queue
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * @return wall clock time between the stage starting and finishing, or until now if it has
+     * not finished
+     */
+    public long getElapsedMillis() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    /**
+     * @return items processed per second between the stage starting and finishing
+     */
+    public double getThroughput() {
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        long nanos = end - startNanos;
+        return nanos <= 0 ? 0 : getItems() / (nanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d items, %.1f items/s, busy %d ms, queue depth %d (max %d)", name,
+                getItems(), getThroughput(), getBusyMillis(), getQueueDepth(), getMaxQueueDepth());
+    }
+}
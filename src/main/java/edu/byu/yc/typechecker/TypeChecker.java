@@ -1,21 +1,39 @@
 package edu.byu.yc.typechecker;
 
-import org.eclipse.jdt.core.JavaCore;
-import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.ASTParser;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
 
+import edu.byu.yc.typechecker.classpath.ClasspathIndex;
+import edu.byu.yc.typechecker.symboltable.ASTClassValidator;
 import edu.byu.yc.typechecker.symboltable.QualifiedClassVisitor;
 import edu.byu.yc.typechecker.symboltable.SymbolTable;
+import edu.byu.yc.typechecker.symboltable.SymbolTableMonitor;
 import edu.byu.yc.typechecker.symboltable.SymbolTableVisitor;
 
 
@@ -27,51 +45,190 @@ public class TypeChecker {
     private static Logger logger = LoggerFactory.getLogger(TypeChecker.class);
 
     /**
-     * Expand directory names to their contained Java files.
+     * Property set on every CompilationUnit produced by parseUnits, holding the path of the file
+     * it was parsed from.
+     */
+    public static final String SOURCE_PATH_PROPERTY = "edu.byu.yc.typechecker.sourcePath";
+
+    private static final ParserPool parserPool = new ParserPool();
+
+    /**
+     * Settings for a call to check. Every setting has a default, so a new Options checks every
+     * Java file under the roots on one thread per processor.
+     */
+    public static class Options {
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private List<String> includes = new ArrayList<>();
+        private List<String> excludes = new ArrayList<>();
+        private ClasspathIndex classpathIndex;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = Math.max(1, threads);
+        }
+
+        public List<String> getIncludes() {
+            return includes;
+        }
+
+        /**
+         * @param includes globs a file must match one of to be checked, "**.java" if empty
+         */
+        public void setIncludes(List<String> includes) {
+            this.includes = new ArrayList<>(includes);
+        }
+
+        public List<String> getExcludes() {
+            return excludes;
+        }
+
+        /**
+         * @param excludes globs of files and directories to leave out
+         */
+        public void setExcludes(List<String> excludes) {
+            this.excludes = new ArrayList<>(excludes);
+        }
+
+        public ClasspathIndex getClasspathIndex() {
+            return classpathIndex;
+        }
+
+        /**
+         * @param classpathIndex index to resolve JDK and library types against, or null to only
+         *                       know the checked sources' own types and imports
+         */
+        public void setClasspathIndex(ClasspathIndex classpathIndex) {
+            this.classpathIndex = classpathIndex;
+        }
+    }
+
+    /**
+     * Check every Java file under roots. Each call builds its own parser threads, symbol table
+     * and visitors, so calls may run concurrently and repeatedly in one JVM. Nothing is
+     * reported through System.exit; finding no sources gives an empty result.
      *
-     * @param paths An array of file or directory names to be expanded.
-     * @return A sequence of paths to Java files, either from paths or contained in
-     * a directory specified by paths.
+     * @param roots   files or directories to check
+     * @param options the settings for this check
+     * @return the diagnostics, type table and phase timings of the check
      */
-    private static ArrayList<String> expand(final String[] paths) {
-        ArrayList<String> result = new ArrayList<>(Math.max(10, paths.length));
-        for (final String path : paths) {
-            final File f = new File(path);
-            if (f.isDirectory()) {
-                final File[] children = f.listFiles();
-                String[] childPaths = new String[children.length];
-                for (int i = 0; i < children.length; ++i) {
-                    childPaths[i] = children[i].getPath();
-                }
-                result.addAll(expand(childPaths));
-            } else {
-                if (path.endsWith(".java")) {
-                    result.add(f.getPath());
-                }
-            }
+    public static CheckResult check(final Collection<Path> roots, final Options options) {
+        long start = System.nanoTime();
+        SourceDiscovery discovery = new SourceDiscovery(options.getIncludes(), options.getExcludes(),
+                options.getThreads());
+        CheckPipeline pipeline = new CheckPipeline(discovery, options.getThreads());
+        pipeline.setClasspathIndex(options.getClasspathIndex());
+        List<Diagnostic> diagnostics = pipeline.run(roots);
+
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        for (StageMetrics metrics : pipeline.getMetrics()) {
+            phaseMillis.put(metrics.getName(), metrics.getElapsedMillis());
+        }
+        return new CheckResult(diagnostics, pipeline.getUnits(), pipeline.getSymbolTable(),
+                pipeline.getTypeTable(), phaseMillis, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static List<Path> toPaths(final List<String> names) {
+        List<Path> paths = new ArrayList<>(names.size());
+        for (final String name : names) {
+            paths.add(Paths.get(name));
         }
-        return result;
+        return paths;
     }
 
     /**
-     * Parse all of the Java files in paths and return the concatenation of their
-     * contents.
+     * Parse each of the Java files in paths into its own CompilationUnit. Files are parsed
+     * concurrently on a pool of worker threads, but the returned list is in the same order as
+     * paths so later passes see the files in a deterministic order.
      *
-     * @param paths A sequence of paths to Java files.
-     * @return A single AST representing all file contents.
+     * @param paths   A sequence of paths to Java files.
+     * @param threads The number of worker threads to parse with.
+     * @return One CompilationUnit per path, each tagged with its SOURCE_PATH_PROPERTY.
      */
-    private static ASTNode parseAll(final ArrayList<String> paths) {
+    static List<CompilationUnit> parseUnits(final List<String> paths, final int threads) {
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        final SourceLoader loader = new SourceLoader();
+        try {
+            List<Future<CompilationUnit>> futures = new ArrayList<>(paths.size());
+            for (final String path : paths) {
+                futures.add(pool.submit(() -> parseUnit(path, loader)));
+            }
 
-        StringBuilder ssb = new StringBuilder();
-        for (final String path : paths) {
-            ssb.append(readFile(path));
+            List<CompilationUnit> units = new ArrayList<>(paths.size());
+            for (Future<CompilationUnit> future : futures) {
+                units.add(future.get());
+            }
+            logger.info("Read {}", loader);
+            return units;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to parse sources", e.getCause());
+        } finally {
+            pool.shutdown();
         }
-        final String sourceString = ssb.toString();
-        if (sourceString.isEmpty()) {
-            logger.error("No java source found");
-            System.exit(-1);
+    }
+
+    /**
+     * Read and parse a single Java file.
+     *
+     * @param path   The location of the file to be parsed.
+     * @param loader The loader to read the file with.
+     * @return The file's CompilationUnit, tagged with its SOURCE_PATH_PROPERTY.
+     */
+    static CompilationUnit parseUnit(final String path, final SourceLoader loader) {
+        return parseUnit(path, readSource(path, loader));
+    }
+
+    /**
+     * Parse the already read contents of a single Java file.
+     *
+     * @param path   The location the source was read from.
+     * @param source The contents of the file.
+     * @return The file's CompilationUnit, tagged with its SOURCE_PATH_PROPERTY.
+     */
+    static CompilationUnit parseUnit(final String path, final char[] source) {
+        CompilationUnit unit = (CompilationUnit) parse(source);
+        unit.setProperty(SOURCE_PATH_PROPERTY, path);
+        return unit;
+    }
+
+    /**
+     * Discover and parse the Java files under roots. Each file is handed to the parsing pool as
+     * soon as the discovery walk finds it, so parsing overlaps with the walk. The returned units
+     * are sorted by path regardless of the order they were found in.
+     *
+     * @param roots     Files or directories to search.
+     * @param discovery The discovery stage that decides which files are sources.
+     * @param threads   The number of worker threads to parse with.
+     * @return One CompilationUnit per discovered file, each tagged with its SOURCE_PATH_PROPERTY.
+     */
+    static List<CompilationUnit> parseUnits(final Collection<Path> roots, final SourceDiscovery discovery,
+                                            final int threads) {
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        final SourceLoader loader = new SourceLoader();
+        try {
+            final ConcurrentLinkedQueue<Future<CompilationUnit>> futures = new ConcurrentLinkedQueue<>();
+            discovery.discover(roots, path -> futures.add(pool.submit(() -> parseUnit(path.toString(), loader))));
+
+            List<CompilationUnit> units = new ArrayList<>(futures.size());
+            for (Future<CompilationUnit> future : futures) {
+                units.add(future.get());
+            }
+            units.sort(Comparator.comparing(unit -> (String) unit.getProperty(SOURCE_PATH_PROPERTY)));
+            logger.info("Read {}", loader);
+            return units;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to parse sources", e.getCause());
+        } finally {
+            pool.shutdown();
         }
-        return parse(sourceString);
     }
 
     /**
@@ -81,12 +238,23 @@ public class TypeChecker {
      * @return The contents of the file as a String.
      */
     static String readFile(final String path) {
+        return new String(readSource(path, new SourceLoader()));
+    }
+
+    /**
+     * Read the file at path with the given loader and return its contents as a char[].
+     *
+     * @param path   The location of the file to be read.
+     * @param loader The loader to read the file with.
+     * @return The contents of the file, or an empty array if it could not be read.
+     */
+    static char[] readSource(final String path, final SourceLoader loader) {
         try {
-            return String.join("\n", Files.readAllLines(Paths.get(path)));
+            return loader.load(Paths.get(path));
         } catch (IOException ioe) {
             logger.debug(ioe.getMessage());
         }
-        return "";
+        return new char[0];
     }
 
     /**
@@ -96,13 +264,17 @@ public class TypeChecker {
      * @return An ASTNode representing the entire program.
      */
     static ASTNode parse(final String sourceString) {
-        ASTParser p = ASTParser.newParser(AST.JLS3);
-        p.setKind(ASTParser.K_COMPILATION_UNIT);
-        p.setSource(sourceString.toCharArray());
-        Map<?, ?> options = JavaCore.getOptions();
-        JavaCore.setComplianceOptions(JavaCore.VERSION_1_7, options);
-        p.setCompilerOptions(options);
-        return p.createAST(null);
+        return parse(sourceString.toCharArray());
+    }
+
+    /**
+     * Parse the given source without copying it.
+     *
+     * @param source The contents of some set of Java files.
+     * @return An ASTNode representing the entire program.
+     */
+    static ASTNode parse(final char[] source) {
+        return parserPool.parse(source);
     }
 
 
@@ -124,13 +296,369 @@ public class TypeChecker {
         return symbolTable;
     }
 
+    /**
+     * Build a single symbol table spanning several compilation units. Every unit is visited by
+     * the QualifiedClassVisitor before any unit is visited by the SymbolTableVisitor, so types
+     * declared in one file can be resolved from any other.
+     *
+     * @param units The parsed compilation units
+     * @return Symbol Table
+     */
+    public static SymbolTable createSymbolTable(List<? extends ASTNode> units) {
+        List<QualifiedClassVisitor> declarations = new ArrayList<>(units.size());
+        for (ASTNode unit : units) {
+            declarations.add(collectDeclarations(unit));
+        }
+        return createSymbolTable(units, declarations);
+    }
+
+    /**
+     * Collect the types declared and imported by a single compilation unit
+     *
+     * @param unit The parsed compilation unit
+     * @return the QualifiedClassVisitor after visiting the unit
+     */
+    public static QualifiedClassVisitor collectDeclarations(ASTNode unit) {
+        final QualifiedClassVisitor classVisitor = new QualifiedClassVisitor();
+        unit.accept(classVisitor);
+        return classVisitor;
+    }
+
+    /**
+     * Build a single symbol table from compilation units whose declarations were already
+     * collected one unit at a time. Declarations are merged in the order of units, so a simple
+     * name declared by more than one unit resolves to the last of them. Members are collected on
+     * the common fork-join pool; callers that bound their thread count pass a pool of their own.
+     *
+     * @param units        The parsed compilation units
+     * @param declarations The collected declarations of each unit, in the same order
+     * @return Symbol Table
+     */
+    public static SymbolTable createSymbolTable(List<? extends ASTNode> units,
+                                                List<QualifiedClassVisitor> declarations) {
+        return createSymbolTable(units, declarations, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Build a single symbol table, collecting the members of the units in parallel. Each unit is
+     * visited into a fragment of the table, and fragments are merged in the order of units, so
+     * the table is the same as if the units were visited one after another whatever the pool.
+     *
+     * @param units        The parsed compilation units
+     * @param declarations The collected declarations of each unit, in the same order
+     * @param pool         the pool to collect members on
+     * @return Symbol Table
+     */
+    public static SymbolTable createSymbolTable(List<? extends ASTNode> units,
+                                                List<QualifiedClassVisitor> declarations, ForkJoinPool pool) {
+        Map<String, String> simpleToQualifiedName = new HashMap<>();
+        List<ASTClassValidator> validators = new ArrayList<>();
+        for (QualifiedClassVisitor classVisitor : declarations) {
+            for (Map.Entry<String, String> entry : classVisitor.getSimpleNameToFullyQualifiedName().entrySet()) {
+                String previous = simpleToQualifiedName.put(entry.getKey(), entry.getValue());
+                if (previous != null) {
+                    logger.warn("Type {} is declared by more than one file, using {}", entry.getKey(), entry.getValue());
+                }
+            }
+            validators.addAll(classVisitor.getClassValidators());
+        }
+
+        SymbolTable symbolTable = new SymbolTable(simpleToQualifiedName, validators);
+        symbolTable.merge(pool.invoke(new SymbolCollectionTask(symbolTable, units, 0, units.size())));
+        return symbolTable;
+    }
+
+    /**
+     * Check the given files, replaying the stored result of every file whose contents and symbol
+     * table facts are unchanged since it was cached. Only the remaining files are parsed and
+     * checked, and the cache is updated with their new results.
+     *
+     * @param paths   The Java files to check, in check order.
+     * @param cache   The cache of earlier results.
+     * @param threads The number of worker threads to read, parse and collect members with.
+     * @return One result per path, in the same order.
+     */
+    static List<ResultCache.Entry> checkWithCache(final List<Path> paths, final ResultCache cache,
+                                                  final int threads) {
+        return checkWithCache(paths, cache, threads, null);
+    }
+
+    /**
+     * Check the given files as checkWithCache does, resolving library types against a classpath
+     * index. The index's cache key is one of the facts every file depends on, so results cached
+     * against a different JDK or different jars are not replayed.
+     *
+     * @param paths          The Java files to check, in check order.
+     * @param cache          The cache of earlier results.
+     * @param threads        The number of worker threads to read, parse and collect members with.
+     * @param classpathIndex The index to resolve library types against, or null for none.
+     * @return One result per path, in the same order.
+     */
+    static List<ResultCache.Entry> checkWithCache(final List<Path> paths, final ResultCache cache,
+                                                  final int threads, final ClasspathIndex classpathIndex) {
+        final int count = paths.size();
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        final ForkJoinPool collectPool = new ForkJoinPool(Math.max(1, threads));
+        final SourceLoader loader = new SourceLoader();
+        try {
+            final List<String> sourcePaths = new ArrayList<>(count);
+            for (Path path : paths) {
+                sourcePaths.add(path.toString());
+            }
+
+            // Hash every file, parsing the ones whose contents changed
+            final String[] contentHashes = new String[count];
+            final CompilationUnit[] units = new CompilationUnit[count];
+            List<Future<?>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                final int file = i;
+                futures.add(pool.submit(() -> {
+                    char[] source = readSource(sourcePaths.get(file), loader);
+                    contentHashes[file] = ResultCache.hash(source);
+                    ResultCache.Entry entry = cache.get(sourcePaths.get(file));
+                    if (entry == null || !entry.getContentHash().equals(contentHashes[file])) {
+                        units[file] = parseUnit(sourcePaths.get(file), source);
+                    }
+                }));
+            }
+            await(futures);
+
+            List<Map<String, String>> declaredTypes = new ArrayList<>(count);
+            Set<Integer> toCheck = new TreeSet<>();
+            for (int i = 0; i < count; i++) {
+                if (units[i] == null) {
+                    declaredTypes.add(cache.get(sourcePaths.get(i)).getDeclaredTypes());
+                } else {
+                    QualifiedClassVisitor classVisitor = collectDeclarations(units[i]);
+                    declaredTypes.add(new LinkedHashMap<>(classVisitor.getSimpleNameToFullyQualifiedName()));
+                    toCheck.add(i);
+                }
+            }
+
+            String[] factsHashes = ResultCache.factsHashes(sourcePaths, contentHashes, declaredTypes,
+                    classpathIndex == null ? null : classpathIndex.getCacheKey());
+            for (int i = 0; i < count; i++) {
+                ResultCache.Entry cached = cache.get(sourcePaths.get(i));
+                if (!factsHashes[i].equals(cached == null ? null : cached.getFactsHash())) {
+                    toCheck.add(i);
+                }
+            }
+            ResultCache.addCollidingFiles(toCheck, declaredTypes);
+
+            futures.clear();
+            for (final int file : toCheck) {
+                if (units[file] == null) {
+                    futures.add(pool.submit(() -> {
+                        units[file] = parseUnit(sourcePaths.get(file), loader);
+                    }));
+                }
+            }
+            await(futures);
+
+            // Check the units that could not be replayed against a table built from them alone
+            List<CompilationUnit> checked = new ArrayList<>(toCheck.size());
+            for (int file : toCheck) {
+                checked.add(units[file]);
+            }
+            Map<String, List<Diagnostic>> diagnostics = new HashMap<>();
+            Map<String, Map<String, Integer>> typeSummaries = new HashMap<>();
+            if (!checked.isEmpty()) {
+                List<QualifiedClassVisitor> checkedDeclarations = new ArrayList<>(checked.size());
+                for (CompilationUnit unit : checked) {
+                    checkedDeclarations.add(collectDeclarations(unit));
+                }
+                SymbolTable symbolTable = createSymbolTable(checked, checkedDeclarations, collectPool);
+                symbolTable.setClasspathIndex(classpathIndex);
+                TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+                for (CompilationUnit unit : checked) {
+                    unit.accept(typeCheckerVisitor);
+                }
+                for (Diagnostic diagnostic : typeCheckerVisitor.getDiagnostics()) {
+                    diagnostics.computeIfAbsent(diagnostic.getSourcePath(), k -> new ArrayList<>()).add(diagnostic);
+                }
+                for (Map.Entry<ASTNode, String> typed : typeCheckerVisitor.getTypeTable().entrySet()) {
+                    String sourcePath = (String) typed.getKey().getRoot().getProperty(SOURCE_PATH_PROPERTY);
+                    typeSummaries.computeIfAbsent(sourcePath, k -> new TreeMap<>()).merge(typed.getValue(), 1, Integer::sum);
+                }
+            }
+
+            List<ResultCache.Entry> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String sourcePath = sourcePaths.get(i);
+                ResultCache.Entry entry;
+                if (toCheck.contains(i)) {
+                    entry = new ResultCache.Entry(sourcePath, contentHashes[i], declaredTypes.get(i), factsHashes[i],
+                            diagnostics.getOrDefault(sourcePath, new ArrayList<>()),
+                            typeSummaries.getOrDefault(sourcePath, new TreeMap<>()));
+                    cache.put(entry);
+                } else {
+                    entry = cache.get(sourcePath);
+                    entry.setReplayed(true);
+                }
+                results.add(entry);
+            }
+            cache.retainAll(sourcePaths);
+
+            logger.info("Replayed {} of {} files from cache, read {}", count - toCheck.size(), count, loader);
+            return results;
+        } finally {
+            pool.shutdown();
+            collectPool.shutdown();
+        }
+    }
+
+    private static void await(final List<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Unable to parse sources", e.getCause());
+        }
+    }
 
     public static void main(String[] args) {
-        ASTNode node = parseAll(expand(args));
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> roots = new ArrayList<>();
+        List<String> includes = new ArrayList<>();
+        List<String> excludes = new ArrayList<>();
+        Path cacheFile = null;
+        boolean daemon = false;
+        boolean watch = false;
+        boolean jdkTypes = false;
+        List<Path> classpath = new ArrayList<>();
+        Path indexFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if ((args[i].equals("-j") || args[i].equals("--threads")) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--include") && i + 1 < args.length) {
+                includes.add(args[++i]);
+            } else if (args[i].equals("--exclude") && i + 1 < args.length) {
+                excludes.add(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                cacheFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--jdk")) {
+                jdkTypes = true;
+            } else if ((args[i].equals("-cp") || args[i].equals("--classpath")) && i + 1 < args.length) {
+                jdkTypes = true;
+                for (String jar : args[++i].split(File.pathSeparator)) {
+                    if (!jar.isEmpty()) {
+                        classpath.add(Paths.get(jar));
+                    }
+                }
+            } else if (args[i].equals("--index-cache") && i + 1 < args.length) {
+                indexFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--daemon")) {
+                daemon = true;
+            } else if (args[i].equals("--watch")) {
+                watch = true;
+            } else {
+                roots.add(args[i]);
+            }
+        }
+
+        SourceDiscovery discovery = new SourceDiscovery(includes, excludes, threads);
+        ClasspathIndex classpathIndex = !jdkTypes ? null : new ClasspathIndex(classpath, true,
+                indexFile != null ? indexFile : ClasspathIndex.defaultCacheFile(classpath));
+        if (daemon) {
+            try {
+                CheckSession session = new CheckSession(discovery, threads);
+                session.setClasspathIndex(classpathIndex);
+                SymbolTableMonitor.register(new SymbolTableMonitor(session::getStats, session::resetLookupCounts));
+                new TypeCheckerDaemon(session).serve();
+            } catch (IOException e) {
+                logger.error("Daemon stopped: {}", e.getMessage());
+                System.exit(-1);
+            }
+            return;
+        }
+        if (watch) {
+            CheckSession session = new CheckSession(discovery, threads);
+            session.setClasspathIndex(classpathIndex);
+            SymbolTableMonitor.register(new SymbolTableMonitor(session::getStats, session::resetLookupCounts));
+            try (SourceWatcher watcher = new SourceWatcher(session, discovery, SourceWatcher.DEFAULT_DEBOUNCE_MILLIS)) {
+                watcher.start(toPaths(roots));
+                watcher.watch();
+            } catch (IOException e) {
+                logger.error("Watch stopped: {}", e.getMessage());
+                System.exit(-1);
+            }
+            return;
+        }
+        if (cacheFile != null) {
+            List<Path> paths = discovery.discover(toPaths(roots));
+            if (paths.isEmpty()) {
+                logger.error("No java source found");
+                System.exit(-1);
+            }
+            ResultCache cache = ResultCache.load(cacheFile);
+            for (ResultCache.Entry entry : checkWithCache(paths, cache, threads, classpathIndex)) {
+                if (entry.isReplayed()) {
+                    for (Diagnostic diagnostic : entry.getDiagnostics()) {
+                        logger.error("{} (cached)", diagnostic);
+                    }
+                }
+            }
+            try {
+                cache.save();
+            } catch (IOException e) {
+                logger.warn("Unable to save cache {}: {}", cacheFile, e.getMessage());
+            }
+            return;
+        }
+
+        Options options = new Options();
+        options.setThreads(threads);
+        options.setIncludes(includes);
+        options.setExcludes(excludes);
+        options.setClasspathIndex(classpathIndex);
+        CheckResult result = check(toPaths(roots), options);
+        logger.info("{}", result);
+        if (result.getUnits().isEmpty()) {
+            logger.error("No java source found");
+            System.exit(-1);
+        }
+    }
+
+    /**
+     * Collects the members of a range of units into a fragment of a symbol table, splitting the
+     * range until it is small, then merging the halves left to right.
+     */
+    @SuppressWarnings("serial")
+    private static class SymbolCollectionTask extends RecursiveTask<SymbolTable> {
+
+        private static final int UNITS_PER_TASK = 4;
 
-        SymbolTable symbolTable = createSymbolTable(node);
+        private final SymbolTable symbolTable;
+        private final List<? extends ASTNode> units;
+        private final int from;
+        private final int to;
 
-        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
-        node.accept(typeCheckerVisitor);
+        SymbolCollectionTask(SymbolTable symbolTable, List<? extends ASTNode> units, int from, int to) {
+            this.symbolTable = symbolTable;
+            this.units = units;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SymbolTable compute() {
+            if (to - from <= UNITS_PER_TASK) {
+                SymbolTable fragment = symbolTable.newFragment();
+                for (int i = from; i < to; i++) {
+                    units.get(i).accept(new SymbolTableVisitor(fragment));
+                }
+                return fragment;
+            }
+            int middle = (from + to) >>> 1;
+            SymbolCollectionTask right = new SymbolCollectionTask(symbolTable, units, middle, to);
+            right.fork();
+            SymbolTable fragment = new SymbolCollectionTask(symbolTable, units, from, middle).compute();
+            fragment.merge(right.join());
+            return fragment;
+        }
     }
 }
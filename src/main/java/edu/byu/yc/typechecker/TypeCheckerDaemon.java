@@ -0,0 +1,113 @@
+package edu.byu.yc.typechecker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * A long running type checker that keeps the JVM, the parser and a CheckSession warm between
+ * requests. Requests are read one per line and every response line starts with a tag, so a
+ * client can tell responses apart from log output on the same stream:
+ * <pre>
+ *   check PATH...   check the given files or directories
+ *                   replies "E file:line: message" per diagnostic, then
+ *                   "OK diagnostics=N files=N millis=N"
+ *   stats           replies "OK " followed by the session statistics
+ *   quit            stops the daemon, as does the end of the input
+ * </pre>
+ * A request that cannot be handled is answered with "ERR message".
+ */
+public class TypeCheckerDaemon {
+
+    private static Logger logger = LoggerFactory.getLogger(TypeCheckerDaemon.class);
+
+    private final CheckSession session;
+
+    public TypeCheckerDaemon(CheckSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Serve requests from stdin, answering on stdout, until quit or the end of stdin
+     */
+    public void serve() throws IOException {
+        serve(new InputStreamReader(System.in, StandardCharsets.UTF_8), System.out);
+    }
+
+    /**
+     * Serve requests from in, answering on out, until quit or the end of in
+     *
+     * @param in  the request stream
+     * @param out the response stream
+     * @throws IOException if the requests cannot be read
+     */
+    public void serve(Reader in, PrintStream out) throws IOException {
+        BufferedReader requests = new BufferedReader(in);
+        String request;
+        while ((request = requests.readLine()) != null) {
+            request = request.trim();
+            if (request.isEmpty()) {
+                continue;
+            }
+            if (request.equals("quit")) {
+                break;
+            }
+            try {
+                handle(request, out);
+            } catch (RuntimeException e) {
+                logger.error("Request failed: {}", request, e);
+                out.println("ERR " + e);
+            }
+            out.flush();
+        }
+        session.close();
+    }
+
+    private void handle(String request, PrintStream out) {
+        String[] words = request.split("\\s+");
+        switch (words[0]) {
+            case "check":
+                check(words, out);
+                break;
+            case "stats":
+                out.println("OK " + session);
+                break;
+            default:
+                out.println("ERR unknown request: " + words[0]);
+        }
+    }
+
+    private void check(String[] words, PrintStream out) {
+        if (words.length < 2) {
+            out.println("ERR check needs at least one path");
+            return;
+        }
+        List<Path> roots = new ArrayList<>(words.length - 1);
+        for (int i = 1; i < words.length; i++) {
+            roots.add(Paths.get(words[i]));
+        }
+
+        long start = System.nanoTime();
+        List<Diagnostic> diagnostics = session.check(roots);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        for (Diagnostic diagnostic : diagnostics) {
+            out.println("E " + diagnostic);
+        }
+        out.println("OK diagnostics=" + diagnostics.size() + " files=" + session.getUnitCount() + " millis=" + millis);
+        logger.info("Checked {} files in {} ms", session.getUnitCount(), millis);
+    }
+}
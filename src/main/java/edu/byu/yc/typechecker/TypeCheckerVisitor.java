@@ -1,18 +1,34 @@
 package edu.byu.yc.typechecker;
 
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
 import org.eclipse.jdt.core.dom.Assignment;
+import org.eclipse.jdt.core.dom.Block;
+import org.eclipse.jdt.core.dom.BooleanLiteral;
+import org.eclipse.jdt.core.dom.CatchClause;
+import org.eclipse.jdt.core.dom.CharacterLiteral;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.EnhancedForStatement;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.ForStatement;
 import org.eclipse.jdt.core.dom.InfixExpression;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+import org.eclipse.jdt.core.dom.NumberLiteral;
+import org.eclipse.jdt.core.dom.ParenthesizedExpression;
 import org.eclipse.jdt.core.dom.ReturnStatement;
 import org.eclipse.jdt.core.dom.SimpleName;
-
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import edu.byu.yc.typechecker.symboltable.ASTNameType;
@@ -26,8 +42,11 @@ import edu.byu.yc.typechecker.symboltable.SymbolTable;
  */
 public class TypeCheckerVisitor extends AbstractTypeCheckerVisitor {
     private Logger logger = LoggerFactory.getLogger(TypeCheckerVisitor.class);
-    private Map<ASTNode, String> typeTable = new HashMap<>(); //Assign nodes to the type that they are?
+    private final TypeTable typeTable = new TypeTable();
     private ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(this);
+    private final Deque<ExpectedType> expectedTypes = new ArrayDeque<>();
+    private final Map<MethodDeclaration, Integer> skippedMethods = new LinkedHashMap<>();
+    private boolean skipMemberMethods;
 
     private static final String UNKNOWN_TYPE = "$UNKNOWN";
 
@@ -41,6 +60,107 @@ public class TypeCheckerVisitor extends AbstractTypeCheckerVisitor {
         super(symbolTable);
     }
 
+    /**
+     * Start each file with no locals in scope and no expected types
+     *
+     * @param cu CompilationUnit being visited
+     * @return true to visit children
+     */
+    @Override
+    public boolean visit(CompilationUnit cu) {
+        getSymbolTable().clearScopes();
+        expectedTypes.clear();
+        typeTable.enter(cu);
+        return true;
+    }
+
+    /**
+     * Close the scopes left open by the file, so the thread does not hold on to them
+     *
+     * @param cu CompilationUnit visited
+     */
+    @Override
+    public void endVisit(CompilationUnit cu) {
+        getSymbolTable().clearScopes();
+    }
+
+    /**
+     * Blocks, for loops and catch clauses each open a scope for the locals declared in them
+     *
+     * @param block Block being visited
+     * @return true to visit children
+     */
+    @Override
+    public boolean visit(Block block) {
+        getSymbolTable().pushScope();
+        return true;
+    }
+
+    @Override
+    public void endVisit(Block block) {
+        getSymbolTable().popScope();
+    }
+
+    @Override
+    public boolean visit(ForStatement fs) {
+        getSymbolTable().pushScope();
+        return true;
+    }
+
+    @Override
+    public void endVisit(ForStatement fs) {
+        getSymbolTable().popScope();
+    }
+
+    @Override
+    public boolean visit(EnhancedForStatement efs) {
+        getSymbolTable().pushScope();
+        return true;
+    }
+
+    @Override
+    public void endVisit(EnhancedForStatement efs) {
+        getSymbolTable().popScope();
+    }
+
+    @Override
+    public boolean visit(CatchClause cc) {
+        getSymbolTable().pushScope();
+        return true;
+    }
+
+    @Override
+    public void endVisit(CatchClause cc) {
+        getSymbolTable().popScope();
+    }
+
+    /**
+     * Declare a local in the innermost scope before its name and initializer are visited, so it
+     * is in scope for both
+     *
+     * @param fragment VariableDeclarationFragment being visited
+     * @return true to visit children
+     */
+    @Override
+    public boolean visit(VariableDeclarationFragment fragment) {
+        declareLocal(fragment);
+        pushTarget(fragment);
+        return true;
+    }
+
+    @Override
+    public boolean visit(SingleVariableDeclaration declaration) {
+        declareLocal(declaration);
+        return true;
+    }
+
+    private void declareLocal(VariableDeclaration declaration) {
+        String type = ASTUtilities.getLocalVariableType(declaration);
+        if (type != null) {
+            getSymbolTable().addLocal(declaration.getName().getIdentifier(), type);
+        }
+    }
+
     /**
      * Visit the ASTNode SimpleNames and then look them up in a typeTable to see if they are valid
      *
@@ -57,80 +177,253 @@ public class TypeCheckerVisitor extends AbstractTypeCheckerVisitor {
 
 
     /**
-     * Visit the infix expression and resolve the type, make sure the operands are type compatible
+     * Statements and declarations that give the infix expressions inside them the type they are
+     * expected to have push a frame on entry and pop it on exit, so each infix expression finds
+     * its expected type at the top of the stack instead of walking up its ancestors
+     *
+     * @param assignment Assignment being visited
+     * @return true to visit children
+     */
+    @Override
+    public boolean visit(Assignment assignment) {
+        pushTarget(assignment);
+        return true;
+    }
+
+    @Override
+    public void endVisit(Assignment assignment) {
+        expectedTypes.pop();
+    }
+
+    @Override
+    public boolean visit(ReturnStatement rs) {
+        pushTarget(rs);
+        return true;
+    }
+
+    @Override
+    public void endVisit(ReturnStatement rs) {
+        expectedTypes.pop();
+    }
+
+    @Override
+    public void endVisit(VariableDeclarationFragment fragment) {
+        expectedTypes.pop();
+    }
+
+    /**
+     * A method of the symbol table bounds the search for an expected type: infix expressions in
+     * it that are not assigned or returned have none. A method the table does not know is not a
+     * bound, as a field of it is not.
+     *
+     * @param md MethodDeclaration being visited
+     * @return true to visit children
+     */
+    @Override
+    public boolean visit(MethodDeclaration md) {
+        if (skipMemberMethods && isMemberMethod(md)) {
+            skippedMethods.put(md, getDiagnostics().size());
+            return false;
+        }
+        super.visit(md);
+        if (getSymbolTable().methodExists(getCurClassFQN(), md.getName().toString())) {
+            expectedTypes.push(new ExpectedType(null, true, null));
+        } else {
+            ExpectedType outer = expectedTypes.peek();
+            expectedTypes.push(new ExpectedType(null, outer != null && outer.found, outer == null ? null : outer.target));
+        }
+        return true;
+    }
+
+    @Override
+    public void endVisit(MethodDeclaration md) {
+        if (skipMemberMethods && isMemberMethod(md)) {
+            return;
+        }
+        expectedTypes.pop();
+        super.endVisit(md);
+    }
+
+    @Override
+    public boolean visit(FieldDeclaration fd) {
+        if (getSymbolTable().fieldExists(getCurClassFQN(), ASTUtilities.getFieldDeclarationName(fd))) {
+            ExpectedType field = new ExpectedType(fd, true, null);
+            expectedTypes.push(field.targeting(field));
+        } else {
+            pushTarget(fd);
+        }
+        return true;
+    }
+
+    @Override
+    public void endVisit(FieldDeclaration fd) {
+        expectedTypes.pop();
+    }
+
+    /**
+     * Push a frame for a node that gives its infix expressions their expected type, unless an
+     * enclosing one within the same bound already does: the outermost one wins
+     */
+    private void pushTarget(ASTNode node) {
+        ExpectedType outer = expectedTypes.peek();
+        ExpectedType frame = new ExpectedType(node, outer != null && outer.found, null);
+        expectedTypes.push(frame.targeting(outer != null && outer.target != null ? outer.target : frame));
+    }
+
+    /**
+     * Check that the infix expression is somewhere its type can be checked, and visit its operands
+     * so they are typed before it is
      *
      * @param ie infix expression
      * @return false to stop exploring children and true to continue exploring children
      */
     @Override
     public boolean visit(InfixExpression ie) {
-        //get the parent of the infix expression
-        ASTNode parent = ie;
-        boolean parentFound = false;
-        String expressionType;
-        ASTNameType expressionNameType = null;
-        //Find if the variable is in the symbol table
-        while (!parentFound && parent != null) {
-            parent = parent.getParent();
-
-            if (parent instanceof Assignment) {
-                Assignment assignment = (Assignment) parent;
-                expressionType = typeTable.get(assignment.getLeftHandSide());
-                expressionNameType = new ASTNameType(assignment.getLeftHandSide().toString(), expressionType);
-            } else if (parent instanceof ReturnStatement) {
-                expressionType = getSymbolTable().getMethodReturnType(getCurClassFQN(), getCurMethodName());
-                expressionNameType = new ASTNameType(getCurMethodName(), expressionType);
-
-            } else if (parent instanceof VariableDeclarationFragment) {
-                VariableDeclarationFragment fragment = (VariableDeclarationFragment) parent;
-                expressionType = typeTable.get(fragment.getName());
-                expressionNameType = new ASTNameType(fragment.getName().toString(), expressionType);
-            } else if (parent instanceof MethodDeclaration) {
-
-                MethodDeclaration md = (MethodDeclaration) parent;
-                String methodName = md.getName().toString();
-                parentFound = getSymbolTable().methodExists(getCurClassFQN(), methodName);
-
-            } else if (parent instanceof FieldDeclaration) {
-                FieldDeclaration fd = (FieldDeclaration) parent;
-                String fieldName = ASTUtilities.getFieldDeclarationName(fd);
-                parentFound = getSymbolTable().fieldExists(getCurClassFQN(), fieldName);
-                expressionType = getSymbolTable().getFieldType(getCurClassFQN(), fieldName);
-                expressionNameType = new ASTNameType(fieldName, expressionType);
-            }
-        }
-
-        if (!parentFound) {
+        ExpectedType context = expectedTypes.peek();
+        if (context == null || !context.found) {
             logger.error("Unable to find context for infix expression {}", ie);
+            addDiagnostic(ie, "Unable to find context for infix expression " + ie);
             return false;
         }
-
-        expressionEvaluator.evaluateExpression(expressionNameType, ie);
         return true;
+    }
 
+    /**
+     * Type the infix expression from its operands, and check the outermost expression of an
+     * assignment, return, declaration or field against the type it expects
+     *
+     * @param ie infix expression
+     */
+    @Override
+    public void endVisit(InfixExpression ie) {
+        ExpectedType context = expectedTypes.peek();
+        if (context == null || !context.found) {
+            return;
+        }
+        ASTNameType expected = context.target == null || ExpressionEvaluator.isOperand(ie) ? null : resolve(context.target);
+        expressionEvaluator.evaluateExpression(expected, ie);
+    }
+
+    /**
+     * Literals and parenthesized expressions are typed where they are operands of an infix
+     * expression, so it can be typed from them
+     */
+    @Override
+    public boolean visit(NumberLiteral nl) {
+        if (isOperand(nl)) {
+            typeTable.put(nl, ExpressionEvaluator.getNumberLiteralType(nl));
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visit(CharacterLiteral cl) {
+        if (isOperand(cl)) {
+            typeTable.put(cl, Primitive.CHAR.getKeyword());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean visit(BooleanLiteral bl) {
+        if (isOperand(bl)) {
+            typeTable.put(bl, Primitive.BOOLEAN.getKeyword());
+        }
+        return false;
+    }
+
+    @Override
+    public void endVisit(ParenthesizedExpression pe) {
+        String type = typeTable.get(pe.getExpression());
+        if (type != null && isOperand(pe)) {
+            typeTable.put(pe, type);
+        }
+    }
+
+    private static boolean isOperand(ASTNode node) {
+        return node.getParent() instanceof InfixExpression || node.getParent() instanceof ParenthesizedExpression;
+    }
+
+    /**
+     * The type an assignment, return, declaration or field expects, made the first time an infix
+     * expression inside it asks and kept once the type is known
+     */
+    private ASTNameType resolve(ExpectedType target) {
+        if (target.nameType != null) {
+            return target.nameType;
+        }
+        ASTNameType nameType;
+        ASTNode node = target.node;
+        if (node instanceof Assignment) {
+            Assignment assignment = (Assignment) node;
+            nameType = new ASTNameType(assignment.getLeftHandSide().toString(), typeTable.get(assignment.getLeftHandSide()));
+        } else if (node instanceof ReturnStatement) {
+            String returnType = getCurMethodSignature() == null
+                    ? getSymbolTable().getMethodReturnType(getCurClassFQN(), getCurMethodName())
+                    : getSymbolTable().getMethodReturnType(getCurClassFQN(), getCurMethodName(), getCurMethodSignature());
+            nameType = new ASTNameType(getCurMethodName(), returnType);
+        } else if (node instanceof VariableDeclarationFragment) {
+            VariableDeclarationFragment fragment = (VariableDeclarationFragment) node;
+            nameType = new ASTNameType(fragment.getName().toString(), typeTable.get(fragment.getName()));
+        } else {
+            String fieldName = ASTUtilities.getFieldDeclarationName((FieldDeclaration) node);
+            nameType = new ASTNameType(fieldName, getSymbolTable().getFieldType(getCurClassFQN(), fieldName));
+        }
+        if (nameType.getType() != null) {
+            target.nameType = nameType;
+        }
+        return nameType;
+    }
+
+    /**
+     * A frame of the expected type stack
+     */
+    private static final class ExpectedType {
+
+        private final ASTNode node; //the node that gives the expected type, null for a method
+        private final boolean found; //whether the frame is inside a method or field of the symbol table
+        private ExpectedType target; //the frame whose node gives the expected type, or null for none
+        private ASTNameType nameType;
+
+        ExpectedType(ASTNode node, boolean found, ExpectedType target) {
+            this.node = node;
+            this.found = found;
+            this.target = target;
+        }
+
+        ExpectedType targeting(ExpectedType target) {
+            this.target = target;
+            return this;
+        }
     }
 
 
     /**
      * Lookup to see if the SimpleName is in the symbol table
-     * Get the type of the node and add it to the symbolTable
+     * Get the type of the node and add it to the symbolTable. Locals in scope shadow parameters,
+     * which shadow fields.
      *
      * @param name name of the SimpleName ASTNode
      * @param node The ASTNode
      */
     private void lookup(String name, ASTNode node) {
         String type = UNKNOWN_TYPE;
+        String localType = getSymbolTable().getScopedLocalType(name);
         if (name.equals(getCurClassSN())) {
             type = getCurClassFQN();
+        } else if (localType != null) {
+            type = localType;
+        } else if (isParam(name)) {
+            type = getCurMethodSignature() == null
+                    ? getSymbolTable().getParameterType(getCurClassFQN(), getCurMethodName(), name)
+                    : getSymbolTable().getParameterType(getCurClassFQN(), getCurMethodName(), getCurMethodSignature(), name);
         } else if (isField(name)) {
             type = getSymbolTable().getFieldType(getCurClassFQN(), name);
-            typeTable.put(node, type);
         } else if (isMethod(name)) {
-            type = getSymbolTable().getMethodReturnType(getCurClassFQN(), name);
-        } else if (isParam(name)) {
-            type = getSymbolTable().getParameterType(getCurClassFQN(), getCurMethodName(), name);
-        } else if (getCurMethodName() != null) {
-            type = getSymbolTable().getLocalVariableType(getCurClassFQN(), getCurMethodName(), name);
+            type = isInvokedName(node)
+                    ? getSymbolTable().getMethodReturnType(getCurClassFQN(), name,
+                    ((MethodInvocation) node.getParent()).arguments().size())
+                    : getSymbolTable().getMethodReturnType(getCurClassFQN(), name);
         } else if (getSymbolTable().validTypeExists(getCurClassFQN(), name)) {
             type = name;
         }
@@ -170,15 +463,105 @@ public class TypeCheckerVisitor extends AbstractTypeCheckerVisitor {
      * @return true if is a method param in the current class
      */
     private boolean isParam(String name) {
-        return getSymbolTable().parameterExists(getCurClassFQN(), getCurMethodName(), name);
+        if (getCurMethodSignature() == null) {
+            return getSymbolTable().parameterExists(getCurClassFQN(), getCurMethodName(), name);
+        }
+        return getSymbolTable().parameterExists(getCurClassFQN(), getCurMethodName(), getCurMethodSignature(), name);
+    }
+
+    /**
+     * Check if a node is the name of the method a call invokes, so its overload can be picked by
+     * the number of arguments
+     *
+     * @param node The ASTNode
+     * @return true if the node is the name of a MethodInvocation
+     */
+    private boolean isInvokedName(ASTNode node) {
+        return node.getLocationInParent() == MethodInvocation.NAME_PROPERTY;
+    }
+
+    /**
+     * Check a top-level type on its own, leaving out the member methods of it and of its member
+     * types, so they can be checked by checkMethod at the same time. Where each was left out is
+     * kept by getSkippedMethods.
+     *
+     * @param type a type of a CompilationUnit
+     */
+    void checkType(AbstractTypeDeclaration type) {
+        enterUnit(type.getRoot());
+        skipMemberMethods = true;
+        try {
+            type.accept(this);
+        } finally {
+            skipMemberMethods = false;
+        }
+    }
+
+    /**
+     * Check a member method on its own, in the classes it is declared in, as if the types around
+     * it had just been visited
+     *
+     * @param md a method of a type that is a top-level type or a member type of one
+     */
+    void checkMethod(MethodDeclaration md) {
+        Deque<TypeDeclaration> enclosing = new ArrayDeque<>();
+        for (ASTNode parent = md.getParent(); parent instanceof TypeDeclaration; parent = parent.getParent()) {
+            enclosing.push((TypeDeclaration) parent);
+        }
+        enterUnit(md.getRoot());
+        for (TypeDeclaration td : enclosing) {
+            visit(td);
+        }
+        md.accept(this);
+        for (Iterator<TypeDeclaration> it = enclosing.descendingIterator(); it.hasNext(); ) {
+            endVisit(it.next());
+        }
+    }
+
+    private void enterUnit(ASTNode root) {
+        if (root instanceof CompilationUnit) {
+            visit((CompilationUnit) root);
+        } else {
+            getSymbolTable().clearScopes();
+            expectedTypes.clear();
+            typeTable.enter(root);
+        }
+    }
+
+    /**
+     * @param md a method declaration
+     * @return true if the method is declared by a top-level type or a member type of one, rather
+     * than by an enum, an anonymous class or a local class
+     */
+    static boolean isMemberMethod(MethodDeclaration md) {
+        ASTNode parent = md.getParent();
+        while (parent instanceof TypeDeclaration) {
+            parent = parent.getParent();
+        }
+        return parent instanceof CompilationUnit && md.getParent() instanceof TypeDeclaration;
+    }
+
+    /**
+     * @return the member methods checkType left out, in the order it came to them, each with the
+     * number of diagnostics it had found when it did
+     */
+    Map<MethodDeclaration, Integer> getSkippedMethods() {
+        return skippedMethods;
     }
 
     /**
      * Returns a table of the ASTNodes associated with their resolved type
      *
-     * @return A map that maps the ASTNode to it's type
+     * @return A read only view of the type table that maps the ASTNode to it's type
      */
     public Map<ASTNode, String> getTypeTable() {
+        return typeTable.asMap();
+    }
+
+    /**
+     * @return the type table itself, which the expression evaluator records types in
+     */
+    TypeTable getTypes() {
         return typeTable;
     }
 
@@ -0,0 +1,302 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.Expression;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.byu.yc.typechecker.symboltable.SymbolInterner;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The type of each checked expression, stored densely. Every expression of a unit is numbered the
+ * first time any table sees the unit, in order of source position with enclosing expressions
+ * first, which is pre-order. The numbering is kept once per unit, on its root, as the expressions
+ * sorted by start position and length, so the number of an expression is found by a binary search
+ * on its position and nothing is stored on the expression itself. A table gives each unit it
+ * checks a contiguous range of slots and stores the interned id of each expression's type at the
+ * slot of its number, so recording or reading a type involves no hashing of nodes and no entry
+ * objects. The interner holds a single copy of each type name.
+ * <p>
+ * The table reads and writes types in the unit it was last told to enter. asMap is a read only
+ * view of the table as a map from node to type, which finds the unit of a node from its root.
+ */
+public class TypeTable {
+
+    private static final String NUMBERING_PROPERTY = "edu.byu.yc.typechecker.numbering";
+
+    private final SymbolInterner types = new SymbolInterner();
+    private final Map<ASTNode, Integer> bases = new IdentityHashMap<>();
+    private final List<ASTNode> roots = new ArrayList<>();
+    private int[] typeIds = new int[64];
+    private int slots;
+    private int size;
+
+    private ASTNode currentRoot;
+    private int currentBase;
+    private Numbering currentNumbering;
+
+    private final Map<ASTNode, String> view = new MapView();
+
+    /**
+     * Number the expressions of a unit in pre-order, unless they already are
+     *
+     * @param root the root of a unit
+     * @return the number of expressions in the unit
+     */
+    public static int number(ASTNode root) {
+        return numbering(root).size();
+    }
+
+    private static Numbering numbering(ASTNode root) {
+        synchronized (root) {
+            Numbering numbering = (Numbering) root.getProperty(NUMBERING_PROPERTY);
+            if (numbering == null) {
+                numbering = new Numbering(root);
+                root.setProperty(NUMBERING_PROPERTY, numbering);
+            }
+            return numbering;
+        }
+    }
+
+    /**
+     * Read and write types in a unit from now on, giving it slots the first time it is entered
+     *
+     * @param root the root of a unit
+     */
+    public void enter(ASTNode root) {
+        if (root == currentRoot) {
+            return;
+        }
+        Integer base = bases.get(root);
+        Numbering numbering = numbering(root);
+        if (base == null) {
+            base = slots;
+            slots += numbering.size();
+            if (slots > typeIds.length) {
+                typeIds = Arrays.copyOf(typeIds, Math.max(slots, typeIds.length * 2));
+            }
+            Arrays.fill(typeIds, base, slots, SymbolInterner.NONE);
+            bases.put(root, base);
+            roots.add(root);
+        }
+        currentRoot = root;
+        currentBase = base;
+        currentNumbering = numbering;
+    }
+
+    /**
+     * Record the type of an expression of the current unit, entering the unit of the expression
+     * if no unit has been entered
+     *
+     * @param node an expression
+     * @param type its type, or null to forget it
+     */
+    public void put(ASTNode node, String type) {
+        if (currentRoot == null) {
+            enter(node.getRoot());
+        }
+        assert node.getRoot() == currentRoot : "Not a node of the current unit: " + node;
+        int slot = slot(node, currentBase, currentNumbering);
+        if (slot == SymbolInterner.NONE) {
+            throw new IllegalArgumentException("Only the types of expressions are recorded: " + node);
+        }
+        int id = types.intern(type);
+        if (typeIds[slot] == SymbolInterner.NONE && id != SymbolInterner.NONE) {
+            size++;
+        } else if (typeIds[slot] != SymbolInterner.NONE && id == SymbolInterner.NONE) {
+            size--;
+        }
+        typeIds[slot] = id;
+    }
+
+    /**
+     * @param node a node of the current unit
+     * @return its type, or null if it has none
+     */
+    public String get(ASTNode node) {
+        if (currentRoot == null) {
+            return null;
+        }
+        assert node.getRoot() == currentRoot : "Not a node of the current unit: " + node;
+        int slot = slot(node, currentBase, currentNumbering);
+        return slot == SymbolInterner.NONE ? null : types.name(typeIds[slot]);
+    }
+
+    /**
+     * @param node a node of any unit
+     * @return its type, or null if it has none
+     */
+    private String lookup(ASTNode node) {
+        ASTNode root = node.getRoot();
+        Integer base = bases.get(root);
+        if (base == null) {
+            return null;
+        }
+        int slot = slot(node, base, numbering(root));
+        return slot == SymbolInterner.NONE ? null : types.name(typeIds[slot]);
+    }
+
+    private static int slot(ASTNode node, int base, Numbering numbering) {
+        int ordinal = numbering.ordinal(node);
+        return ordinal == SymbolInterner.NONE ? SymbolInterner.NONE : base + ordinal;
+    }
+
+    /**
+     * Record every type another table has recorded, replacing any this table has for the same
+     * expression. Afterwards no unit is entered.
+     *
+     * @param other a table
+     */
+    public void putAll(TypeTable other) {
+        for (ASTNode root : other.roots) {
+            enter(root);
+            int otherBase = other.bases.get(root);
+            for (int ordinal = 0; ordinal < currentNumbering.size(); ordinal++) {
+                int id = other.typeIds[otherBase + ordinal];
+                if (id != SymbolInterner.NONE) {
+                    if (typeIds[currentBase + ordinal] == SymbolInterner.NONE) {
+                        size++;
+                    }
+                    typeIds[currentBase + ordinal] = types.intern(other.types.name(id));
+                }
+            }
+        }
+        currentRoot = null;
+    }
+
+    /**
+     * @return the number of expressions that have a type
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return a read only view of the table, whose entries are in the order units were entered
+     * and then in the order expressions are numbered
+     */
+    public Map<ASTNode, String> asMap() {
+        return view;
+    }
+
+    private class MapView extends AbstractMap<ASTNode, String> {
+
+        @Override
+        public String get(Object key) {
+            return key instanceof ASTNode ? lookup((ASTNode) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<ASTNode, String>> entrySet() {
+            return new AbstractSet<Entry<ASTNode, String>>() {
+                @Override
+                public Iterator<Entry<ASTNode, String>> iterator() {
+                    List<Entry<ASTNode, String>> entries = new ArrayList<>(size);
+                    for (ASTNode root : roots) {
+                        int base = bases.get(root);
+                        Numbering numbering = numbering(root);
+                        for (int ordinal = 0; ordinal < numbering.size(); ordinal++) {
+                            int id = typeIds[base + ordinal];
+                            if (id != SymbolInterner.NONE) {
+                                entries.add(new SimpleImmutableEntry<>(numbering.expression(ordinal), types.name(id)));
+                            }
+                        }
+                    }
+                    return entries.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+
+    /**
+     * The expressions of a unit in the order they are numbered: by start position, and among
+     * expressions starting at the same position, longest first
+     */
+    private static final class Numbering {
+
+        private final ASTNode[] expressions;
+        private final int[] starts;
+        private final int[] lengths;
+
+        Numbering(ASTNode root) {
+            List<ASTNode> found = new ArrayList<>();
+            root.accept(new ASTVisitor(true) {
+                @Override
+                public void preVisit(ASTNode node) {
+                    if (node instanceof Expression) {
+                        found.add(node);
+                    }
+                }
+            });
+            // Already in order for a parsed unit; the stable sort keeps pre-order among ties
+            found.sort(Comparator.comparingInt(ASTNode::getStartPosition)
+                    .thenComparing(Comparator.comparingInt(ASTNode::getLength).reversed()));
+            expressions = found.toArray(new ASTNode[0]);
+            starts = new int[expressions.length];
+            lengths = new int[expressions.length];
+            for (int i = 0; i < expressions.length; i++) {
+                starts[i] = expressions[i].getStartPosition();
+                lengths[i] = expressions[i].getLength();
+            }
+        }
+
+        int size() {
+            return expressions.length;
+        }
+
+        ASTNode expression(int ordinal) {
+            return expressions[ordinal];
+        }
+
+        /**
+         * @return the number of an expression of the unit, or NONE if the node is not one
+         */
+        int ordinal(ASTNode node) {
+            int start = node.getStartPosition();
+            int length = node.getLength();
+            int low = 0;
+            int high = expressions.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (starts[middle] < start || (starts[middle] == start && lengths[middle] > length)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            for (int i = low; i < expressions.length && starts[i] == start && lengths[i] == length; i++) {
+                if (expressions[i] == node) {
+                    return i;
+                }
+            }
+            return SymbolInterner.NONE;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package edu.byu.yc.typechecker.classpath;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The header of a compiled class: its name, access flags, superclass and interfaces. Read from
+ * the class file on first use by the ClasspathIndex, leaving the fields, methods and attributes
+ * that follow the header unread.
+ */
+public class ClassSignature {
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_INTERFACE = 0x0200;
+
+    private static final int CLASS_MAGIC = 0xCAFEBABE;
+
+    private final String name;
+    private final int accessFlags;
+    private final String superName;
+    private final List<String> interfaceNames;
+
+    public ClassSignature(String name, int accessFlags, String superName, List<String> interfaceNames) {
+        this.name = name;
+        this.accessFlags = accessFlags;
+        this.superName = superName;
+        this.interfaceNames = Collections.unmodifiableList(interfaceNames);
+    }
+
+    /**
+     * Read the header of a class file
+     *
+     * @param classFile the bytes of the class file
+     * @return the signature, with names dotted, and nested classes separated by '$'
+     * @throws IOException if the bytes are not a class file
+     */
+    public static ClassSignature read(byte[] classFile) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+        if (in.readInt() != CLASS_MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        int poolCount = in.readUnsignedShort();
+        String[] utf8 = new String[poolCount];
+        int[] classNames = new int[poolCount];
+        for (int i = 1; i < poolCount; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: // Utf8
+                    utf8[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                    classNames[i] = in.readUnsignedShort();
+                    break;
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    in.readUnsignedShort();
+                    break;
+                case 15: // MethodHandle
+                    in.readUnsignedByte();
+                    in.readUnsignedShort();
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.readInt();
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.readLong();
+                    i++;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        int accessFlags = in.readUnsignedShort();
+        String name = className(utf8, classNames, in.readUnsignedShort());
+        String superName = className(utf8, classNames, in.readUnsignedShort());
+        int interfaceCount = in.readUnsignedShort();
+        List<String> interfaceNames = new ArrayList<>(interfaceCount);
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaceNames.add(className(utf8, classNames, in.readUnsignedShort()));
+        }
+        return new ClassSignature(name, accessFlags, superName, interfaceNames);
+    }
+
+    private static String className(String[] utf8, int[] classNames, int index) {
+        return index == 0 ? null : utf8[classNames[index]].replace('/', '.');
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAccessFlags() {
+        return accessFlags;
+    }
+
+    public boolean isPublic() {
+        return (accessFlags & ACC_PUBLIC) != 0;
+    }
+
+    public boolean isInterface() {
+        return (accessFlags & ACC_INTERFACE) != 0;
+    }
+
+    /**
+     * @return the superclass, or null for java.lang.Object and module descriptors
+     */
+    public String getSuperName() {
+        return superName;
+    }
+
+    public List<String> getInterfaceNames() {
+        return interfaceNames;
+    }
+
+    @Override
+    public String toString() {
+        return "ClassSignature{" +
+                "name='" + name + '\'' +
+                ", accessFlags=" + accessFlags +
+                ", superName='" + superName + '\'' +
+                ", interfaceNames=" + interfaceNames +
+                '}';
+    }
+}
@@ -0,0 +1,474 @@
+package edu.byu.yc.typechecker.classpath;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * An index of the classes on a classpath of jars and, optionally, in the running JDK, used to
+ * resolve library types the checked sources refer to. Nothing is read until the first lookup;
+ * the index of class names is then loaded from its cache file, or built by listing every jar and
+ * the JDK's module image and saved to the cache file for the next run. The cache is keyed by the
+ * JDK and by the path, size and modification time of every jar, so it is rebuilt when they change.
+ * <p>
+ * Looking a type up only consults the in-memory name index. A class's signature is read from its
+ * class file the first time it is resolved and kept in a bounded least-recently-used cache.
+ * Instances are safe to share between threads.
+ */
+public class ClasspathIndex implements AutoCloseable {
+
+    private static Logger logger = LoggerFactory.getLogger(ClasspathIndex.class);
+
+    private static final int MAGIC = 0x54434349; // "TCCI"
+    private static final int VERSION = 2;
+
+    public static final int DEFAULT_SIGNATURE_CACHE_SIZE = 1024;
+
+    private static final String JAR_LOCATION = "jar:";
+    private static final String MODULE_LOCATION = "jrt:";
+
+    private final List<Path> jars;
+    private final boolean includeJdk;
+    private final Path cacheFile;
+    private final Map<String, ClassSignature> signatures;
+
+    private volatile Map<String, Integer> classLocations;
+    private List<String> locations;
+    private final Map<String, ZipFile> openJars = new HashMap<>();
+    private FileSystem modules;
+
+    /**
+     * Constructor for an index
+     *
+     * @param jars               jars to index, in classpath order
+     * @param includeJdk         whether to index the classes of the running JDK as well
+     * @param cacheFile          where to cache the name index, or null to build it on every run
+     * @param signatureCacheSize the most class signatures to keep in memory
+     */
+    public ClasspathIndex(List<Path> jars, boolean includeJdk, Path cacheFile, int signatureCacheSize) {
+        this.jars = new ArrayList<>(jars);
+        this.includeJdk = includeJdk;
+        this.cacheFile = cacheFile;
+        this.signatures = new LinkedHashMap<String, ClassSignature>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ClassSignature> eldest) {
+                return size() > signatureCacheSize;
+            }
+        };
+    }
+
+    public ClasspathIndex(List<Path> jars, boolean includeJdk, Path cacheFile) {
+        this(jars, includeJdk, cacheFile, DEFAULT_SIGNATURE_CACHE_SIZE);
+    }
+
+    /**
+     * @param jars jars on the classpath
+     * @return a cache file for an index of the JDK and those jars, in the temporary directory
+     */
+    public static Path defaultCacheFile(List<Path> jars) {
+        return Paths.get(System.getProperty("java.io.tmpdir"),
+                "typechecker-classpath-" + Integer.toHexString(cacheKey(jars, true).hashCode()) + ".idx");
+    }
+
+    /**
+     * @return a key that changes whenever the JDK or the path, size or modification time of a jar
+     * changes, which is when lookups may give different answers
+     */
+    public String getCacheKey() {
+        return cacheKey(jars, includeJdk);
+    }
+
+    /**
+     * Resolve the name of a type as written in a file
+     *
+     * @param name             the type's simple or qualified name
+     * @param importedPackages the packages the file imports on demand; java.lang is always imported
+     * @return the binary name of the public class the type resolves to, or null if there is none
+     */
+    public String resolve(String name, Collection<String> importedPackages) {
+        if (name.indexOf('.') >= 0) {
+            String candidate = name;
+            while (candidate != null) {
+                if (isPublicClass(candidate)) {
+                    return candidate;
+                }
+                int dot = candidate.lastIndexOf('.');
+                candidate = dot < 0 ? null : candidate.substring(0, dot) + '$' + candidate.substring(dot + 1);
+            }
+            return null;
+        }
+        if (isPublicClass("java.lang." + name)) {
+            return "java.lang." + name;
+        }
+        for (String importedPackage : importedPackages) {
+            if (isPublicClass(importedPackage + "." + name)) {
+                return importedPackage + "." + name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param binaryName the binary name of a class, for example java.util.Map$Entry
+     * @return true if the class is on the classpath
+     */
+    public boolean classExists(String binaryName) {
+        return index().containsKey(binaryName);
+    }
+
+    private boolean isPublicClass(String binaryName) {
+        if (!classExists(binaryName)) {
+            return false;
+        }
+        ClassSignature signature = getSignature(binaryName);
+        return signature == null || signature.isPublic();
+    }
+
+    /**
+     * Read the signature of a class, or take it from the cache of recently used signatures
+     *
+     * @param binaryName the binary name of a class
+     * @return the signature, or null if the class is not on the classpath or cannot be read
+     */
+    public ClassSignature getSignature(String binaryName) {
+        Integer location = index().get(binaryName);
+        if (location == null) {
+            return null;
+        }
+        synchronized (signatures) {
+            ClassSignature signature = signatures.get(binaryName);
+            if (signature != null) {
+                return signature;
+            }
+        }
+        // Read outside the lock, so threads resolving different classes do not wait on each
+        // other's I/O. Two threads may read the same class; the first to finish is kept.
+        ClassSignature signature;
+        try {
+            signature = ClassSignature.read(readClassFile(locations.get(location), binaryName));
+        } catch (IOException e) {
+            logger.warn("Unable to read class {}: {}", binaryName, e.getMessage());
+            return null;
+        }
+        synchronized (signatures) {
+            ClassSignature cached = signatures.putIfAbsent(binaryName, signature);
+            return cached != null ? cached : signature;
+        }
+    }
+
+    /**
+     * @return the number of classes indexed, loading the index if it has not been loaded yet
+     */
+    public int size() {
+        return index().size();
+    }
+
+    /**
+     * @return the number of class signatures currently cached
+     */
+    public int getCachedSignatureCount() {
+        synchronized (signatures) {
+            return signatures.size();
+        }
+    }
+
+    private Map<String, Integer> index() {
+        Map<String, Integer> index = classLocations;
+        if (index == null) {
+            synchronized (this) {
+                index = classLocations;
+                if (index == null) {
+                    index = loadIndex();
+                    classLocations = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private Map<String, Integer> loadIndex() {
+        String key = cacheKey(jars, includeJdk);
+        if (cacheFile != null && Files.exists(cacheFile)) {
+            try {
+                Map<String, Integer> index = readCache(key);
+                if (index != null) {
+                    return index;
+                }
+                logger.info("Rebuilding outdated classpath index {}", cacheFile);
+            } catch (IOException e) {
+                logger.warn("Rebuilding unreadable classpath index {}: {}", cacheFile, e.getMessage());
+            }
+        }
+
+        long start = System.nanoTime();
+        Map<String, List<String>> classesByLocation = new LinkedHashMap<>();
+        if (includeJdk) {
+            indexJdk(classesByLocation);
+        }
+        for (Path jar : jars) {
+            indexJar(jar, classesByLocation);
+        }
+        Map<String, Integer> index = toIndex(classesByLocation);
+        logger.info("Indexed {} classpath classes in {} ms", index.size(), (System.nanoTime() - start) / 1000000);
+
+        if (cacheFile != null) {
+            try {
+                writeCache(key, classesByLocation);
+            } catch (IOException e) {
+                logger.warn("Unable to save classpath index {}: {}", cacheFile, e.getMessage());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Earlier locations win, so a class on the JDK or early on the classpath hides later copies
+     */
+    private Map<String, Integer> toIndex(Map<String, List<String>> classesByLocation) {
+        locations = new ArrayList<>(classesByLocation.keySet());
+        Map<String, Integer> index = new HashMap<>();
+        for (int location = 0; location < locations.size(); location++) {
+            for (String binaryName : classesByLocation.get(locations.get(location))) {
+                index.putIfAbsent(binaryName, location);
+            }
+        }
+        return index;
+    }
+
+    private void indexJdk(Map<String, List<String>> classesByLocation) {
+        Path javaHome = Paths.get(System.getProperty("java.home"));
+        if (!Files.exists(javaHome.resolve("lib").resolve("modules"))) {
+            indexJar(javaHome.resolve("lib").resolve("rt.jar"), classesByLocation);
+            return;
+        }
+        try (DirectoryStream<Path> moduleDirs = Files.newDirectoryStream(modules().getPath("/modules"))) {
+            for (Path moduleDir : moduleDirs) {
+                List<String> classes = new ArrayList<>();
+                try (Stream<Path> files = Files.walk(moduleDir)) {
+                    files.forEach(file -> addClass(moduleDir.relativize(file).toString(), classes));
+                }
+                classesByLocation.put(MODULE_LOCATION + moduleDir.getFileName().toString().replace("/", ""), classes);
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to index the JDK: {}", e.getMessage());
+        }
+    }
+
+    private void indexJar(Path jar, Map<String, List<String>> classesByLocation) {
+        List<String> classes = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String entry = entries.nextElement().getName();
+                if (!entry.startsWith("META-INF/")) {
+                    addClass(entry, classes);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to index {}: {}", jar, e.getMessage());
+            return;
+        }
+        classesByLocation.put(JAR_LOCATION + jar.toAbsolutePath(), classes);
+    }
+
+    /**
+     * Add the class a file in a jar or module holds, leaving out module and package descriptors
+     * and anonymous classes, which no source can name
+     */
+    private static void addClass(String file, List<String> classes) {
+        if (!file.endsWith(".class") || file.endsWith("module-info.class") || file.endsWith("package-info.class")) {
+            return;
+        }
+        String binaryName = file.substring(0, file.length() - ".class".length()).replace('/', '.');
+        int nested = binaryName.lastIndexOf('$');
+        if (nested >= 0 && nested + 1 < binaryName.length() && Character.isDigit(binaryName.charAt(nested + 1))) {
+            return;
+        }
+        classes.add(binaryName);
+    }
+
+    private byte[] readClassFile(String location, String binaryName) throws IOException {
+        String file = binaryName.replace('.', '/') + ".class";
+        if (location.startsWith(MODULE_LOCATION)) {
+            return Files.readAllBytes(modules().getPath("/modules", location.substring(MODULE_LOCATION.length()), file));
+        }
+        ZipFile zip;
+        synchronized (openJars) {
+            zip = openJars.get(location);
+            if (zip == null) {
+                zip = new ZipFile(location.substring(JAR_LOCATION.length()));
+                openJars.put(location, zip);
+            }
+        }
+        ZipEntry entry = zip.getEntry(file);
+        if (entry == null) {
+            throw new IOException(file + " is no longer in " + zip.getName());
+        }
+        try (InputStream in = zip.getInputStream(entry)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = in.read(chunk)) != -1) {
+                bytes.write(chunk, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private synchronized FileSystem modules() {
+        if (modules == null) {
+            modules = FileSystems.getFileSystem(URI.create("jrt:/"));
+        }
+        return modules;
+    }
+
+    private static String cacheKey(List<Path> jars, boolean includeJdk) {
+        StringBuilder key = new StringBuilder();
+        if (includeJdk) {
+            key.append(System.getProperty("java.home")).append('|').append(System.getProperty("java.version"));
+        }
+        for (Path jar : jars) {
+            Path absolute = jar.toAbsolutePath();
+            key.append('|').append(absolute);
+            try {
+                key.append(':').append(Files.size(absolute)).append(':').append(Files.getLastModifiedTime(absolute).toMillis());
+            } catch (IOException e) {
+                key.append(":missing");
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Hash a cache key, which names every jar and can be longer than writeUTF allows
+     */
+    private static String hashKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Map<String, Integer> readCache(String key) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || !in.readUTF().equals(hashKey(key))) {
+                return null;
+            }
+            Map<String, List<String>> classesByLocation = new LinkedHashMap<>();
+            int locationCount = in.readInt();
+            for (int i = 0; i < locationCount; i++) {
+                String location = in.readUTF();
+                List<String> classes = new ArrayList<>();
+                int packageCount = in.readInt();
+                for (int p = 0; p < packageCount; p++) {
+                    String packagePrefix = in.readUTF();
+                    int classCount = in.readInt();
+                    for (int c = 0; c < classCount; c++) {
+                        classes.add(packagePrefix + in.readUTF());
+                    }
+                }
+                classesByLocation.put(location, classes);
+            }
+            return toIndex(classesByLocation);
+        }
+    }
+
+    /**
+     * Write the name index grouped by package, so each package name is stored once
+     */
+    private void writeCache(String key, Map<String, List<String>> classesByLocation) throws IOException {
+        Path parent = cacheFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, cacheFile.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(hashKey(key));
+            out.writeInt(classesByLocation.size());
+            for (Map.Entry<String, List<String>> location : classesByLocation.entrySet()) {
+                out.writeUTF(location.getKey());
+                Map<String, List<String>> byPackage = new TreeMap<>();
+                for (String binaryName : location.getValue()) {
+                    int dot = binaryName.lastIndexOf('.');
+                    byPackage.computeIfAbsent(binaryName.substring(0, dot + 1), p -> new ArrayList<>())
+                            .add(binaryName.substring(dot + 1));
+                }
+                out.writeInt(byPackage.size());
+                for (Map.Entry<String, List<String>> classes : byPackage.entrySet()) {
+                    out.writeUTF(classes.getKey());
+                    out.writeInt(classes.getValue().size());
+                    for (String simpleName : classes.getValue()) {
+                        out.writeUTF(simpleName);
+                    }
+                }
+            }
+        }
+        Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the jars indexed, in classpath order
+     */
+    public List<Path> getJars() {
+        return Collections.unmodifiableList(jars);
+    }
+
+    public Path getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Close the jars opened to read class signatures
+     */
+    @Override
+    public void close() {
+        synchronized (openJars) {
+            for (ZipFile zip : openJars.values()) {
+                try {
+                    zip.close();
+                } catch (IOException e) {
+                    logger.debug("Unable to close {}: {}", zip.getName(), e.getMessage());
+                }
+            }
+            openJars.clear();
+        }
+    }
+}
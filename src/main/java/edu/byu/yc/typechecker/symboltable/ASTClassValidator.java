@@ -2,6 +2,7 @@ package edu.byu.yc.typechecker.symboltable;
 
 import org.eclipse.jdt.core.dom.ASTNode;
 
+import java.util.Collections;
 import java.util.Set;
 
 /**
@@ -15,6 +16,7 @@ public class ASTClassValidator {
     private Set<String> declaredTypes;
     private ASTNode rootNode;
     private String packageName;
+    private Set<String> importedPackages = Collections.emptySet();
 
     public ASTClassValidator(Set<String> declaredTypes, ASTNode rootNode, String packageName) {
         this.declaredTypes = declaredTypes;
@@ -33,4 +35,15 @@ public class ASTClassValidator {
     public String getPackageName() {
         return packageName;
     }
+
+    /**
+     * @return the packages the file imports on demand, such as java.util for java.util.*
+     */
+    public Set<String> getImportedPackages() {
+        return importedPackages;
+    }
+
+    public void setImportedPackages(Set<String> importedPackages) {
+        this.importedPackages = importedPackages;
+    }
 }
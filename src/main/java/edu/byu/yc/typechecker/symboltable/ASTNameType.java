@@ -1,20 +1,30 @@
 package edu.byu.yc.typechecker.symboltable;
 
+import java.util.Objects;
+
 /**
  * @author Samuel Nuttall
  *
- * Simple tuple class to organize pairings of names with their types
+ * Simple tuple class to organize pairings of names with their types. Pairings made by the symbol
+ * table visitor reference the canonical type of the declaration, and so share its name String.
  */
 public class ASTNameType {
 
     private String name;
     private String type;
+    private CanonicalType canonicalType;
 
     public ASTNameType(String name, String type) {
         this.name = name;
         this.type = type;
     }
 
+    public ASTNameType(String name, CanonicalType canonicalType) {
+        this.name = name;
+        this.type = canonicalType.getName();
+        this.canonicalType = canonicalType;
+    }
+
     public String getName() {
         return name;
     }
@@ -23,6 +33,26 @@ public class ASTNameType {
         return type;
     }
 
+    /**
+     * @return the canonical type, or null if the pairing was made from a type name
+     */
+    public CanonicalType getCanonicalType() {
+        return canonicalType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ASTNameType that = (ASTNameType) o;
+        return Objects.equals(name, that.name) && Objects.equals(type, that.type);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, type);
+    }
+
     @Override
     public String toString() {
         return "{" +
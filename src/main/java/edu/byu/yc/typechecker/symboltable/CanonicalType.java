@@ -0,0 +1,122 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * One distinct type, as written in the source: a primitive, a simple or qualified class name, an
+ * array or a parameterized type. Types are handed out by a TypeRegistry, which keeps exactly one
+ * instance of each, so every declaration of the same type shares the same object and the same
+ * name String, and two canonical types of one registry are equal only if they are the same object.
+ * Immutable apart from the arrays of it, which are made on first use.
+ */
+public final class CanonicalType {
+
+    public enum Kind {
+        PRIMITIVE, SIMPLE, QUALIFIED, ARRAY, PARAMETERIZED, OTHER
+    }
+
+    private final int id;
+    private final String name;
+    private final Kind kind;
+    private final CanonicalType elementType;
+    private final int dimensions;
+    private final List<CanonicalType> typeArguments;
+
+    private volatile CanonicalType[] arrays = new CanonicalType[0];
+
+    CanonicalType(int id, String name, Kind kind, CanonicalType elementType, int dimensions,
+                  List<CanonicalType> typeArguments) {
+        this.id = id;
+        this.name = name;
+        this.kind = kind;
+        this.elementType = elementType;
+        this.dimensions = dimensions;
+        this.typeArguments = Collections.unmodifiableList(typeArguments);
+    }
+
+    /**
+     * @return the id of the type's name in the interner of its registry
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the type as the source would print it, such as "int[]" or "List<String>"
+     */
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isPrimitive() {
+        return kind == Kind.PRIMITIVE;
+    }
+
+    public boolean isArray() {
+        return kind == Kind.ARRAY;
+    }
+
+    /**
+     * @return the type of the elements of an array, or of the raw type of a parameterized type,
+     * or null for any other type
+     */
+    public CanonicalType getElementType() {
+        return elementType;
+    }
+
+    /**
+     * @return the number of dimensions of an array, 0 for any other type
+     */
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return the type arguments of a parameterized type, empty for any other type
+     */
+    public List<CanonicalType> getTypeArguments() {
+        return typeArguments;
+    }
+
+    /**
+     * @param extraDimensions number of dimensions to add
+     * @return the array of this type with that many more dimensions, if one has been made already
+     */
+    CanonicalType getArray(int extraDimensions) {
+        CanonicalType[] made = arrays;
+        return extraDimensions < made.length ? made[extraDimensions] : null;
+    }
+
+    /**
+     * Remember an array of this type, unless another thread has made it first
+     *
+     * @return the array that is kept
+     */
+    synchronized CanonicalType putArray(int extraDimensions, CanonicalType array) {
+        CanonicalType[] made = arrays;
+        if (extraDimensions < made.length && made[extraDimensions] != null) {
+            return made[extraDimensions];
+        }
+        if (extraDimensions >= made.length) {
+            made = Arrays.copyOf(made, extraDimensions + 1);
+        } else {
+            made = made.clone();
+        }
+        made[extraDimensions] = array;
+        arrays = made;
+        return array;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -1,31 +1,43 @@
 package edu.byu.yc.typechecker.symboltable;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 
-
 /**
  * @author Samuel Nuttall
  * <p>
  * ClassProperties contains an individual class's fields, methods, and params types and names
  * This class is an integral part of the symbol table and holds all the relevent information for an
  * a class that has been visited by the symbol table visitor.
+ * <p>
+ * Names and types are stored as ids from a SymbolInterner, in int-keyed hash indexes, so every
+ * lookup costs the same whatever the size of the class and each name is stored once however many
+ * members use it. When a name is declared more than once the last declaration wins, and the
+ * parameters and locals of overloaded methods are merged under the method's name. Overloads are
+ * also kept apart in a MethodIndex, by name and then by arity and parameter types, so a method
+ * can be resolved by the arguments it is called with or by the signature it is declared with.
+ * <p>
+ * A frozen copy cannot be changed, so any number of threads may read it without locking.
  */
 public class ClassProperties {
 
-    private Logger logger = LoggerFactory.getLogger(ClassProperties.class);
+    /**
+     * Estimated heap size of a ClassProperties object, with compressed references
+     */
+    private static final int OBJECT_BYTES = 48;
 
-    private String classFQN;
+    private final String classFQN;
+    private final SymbolInterner interner;
 
-    private List<ASTNameType> fields = new ArrayList<>();
-    private Map<ASTNameType, List<ASTNameType>> methodParamsMap = new HashMap<>();
-    private Map<ASTNameType, List<ASTNameType>> localVariablesMap = new HashMap<>();
+    private final IntIntMap fieldTypes;
+    private final IntIntMap methodTypes;
+    private final IntObjectMap<IntIntMap> paramTypes;
+    private final IntObjectMap<IntIntMap> localVariableTypes;
+    private final MethodIndex overloads;
+    private final boolean frozen;
 
     /**
      * Constructor for the class fields, methods, and parameters
@@ -33,7 +45,65 @@ public class ClassProperties {
      * @param classFQN the fully qualified class name of the class
      */
     public ClassProperties(String classFQN) {
+        this(classFQN, new SymbolInterner());
+    }
+
+    /**
+     * Constructor for the class fields, methods, and parameters
+     *
+     * @param classFQN the fully qualified class name of the class
+     * @param interner the interner of the symbol table the class belongs to
+     */
+    public ClassProperties(String classFQN, SymbolInterner interner) {
         this.classFQN = classFQN;
+        this.interner = interner;
+        this.fieldTypes = new IntIntMap();
+        this.methodTypes = new IntIntMap();
+        this.paramTypes = new IntObjectMap<>();
+        this.localVariableTypes = new IntObjectMap<>();
+        this.overloads = new MethodIndex();
+        this.frozen = false;
+    }
+
+    /**
+     * Copy constructor for a frozen class, with every index sized to fit
+     */
+    private ClassProperties(ClassProperties source) {
+        this.classFQN = source.classFQN;
+        this.interner = source.interner;
+        this.fieldTypes = new IntIntMap(source.fieldTypes);
+        this.methodTypes = new IntIntMap(source.methodTypes);
+        this.paramTypes = copy(source.paramTypes);
+        this.localVariableTypes = copy(source.localVariableTypes);
+        this.overloads = new MethodIndex(source.overloads);
+        this.frozen = true;
+    }
+
+    private static IntObjectMap<IntIntMap> copy(IntObjectMap<IntIntMap> methodMap) {
+        IntObjectMap<IntIntMap> copy = new IntObjectMap<>(methodMap.size());
+        for (int entry = 0; entry < methodMap.entryCount(); entry++) {
+            if (methodMap.keyAt(entry) != IntHashIndex.NONE) {
+                copy.put(methodMap.keyAt(entry), new IntIntMap(methodMap.valueAt(entry)));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @return an immutable copy of this class, or this class if it is already frozen
+     */
+    public ClassProperties freeze() {
+        return frozen ? this : new ClassProperties(this);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Class " + classFQN + " is frozen");
+        }
     }
 
     /**
@@ -43,12 +113,7 @@ public class ClassProperties {
      * @return String representation of the type of the field that matches the fieldName param
      */
     public String getFieldTypeByName(String fieldName) {
-        String fieldType = null;
-        for (ASTNameType nameType : fields) {
-            if (nameType.getName().equals(fieldName))
-                fieldType = nameType.getType();
-        }
-        return fieldType;
+        return interner.name(getFieldType(interner.lookup(fieldName)));
     }
 
     /**
@@ -58,34 +123,9 @@ public class ClassProperties {
      * @return String representation of the return type of the method
      */
     public String getMethodTypeByName(String methodName) {
-        String methodType = null;
-        for (Map.Entry<ASTNameType, List<ASTNameType>> entry : methodParamsMap.entrySet()) {
-            if (entry.getKey().getName().equals(methodName))
-                methodType = entry.getKey().getType();
-        }
-        return methodType;
+        return interner.name(getMethodType(interner.lookup(methodName)));
     }
 
-
-    private String getMethodPropertyByName(String methodName, String propName, Map<ASTNameType,
-            List<ASTNameType>> methodMap) {
-        String type = null;
-        List<ASTNameType> params = null;
-        for (Map.Entry<ASTNameType, List<ASTNameType>> entry : methodMap.entrySet()) {
-            if (entry.getKey().getName().equals(methodName))
-                params = entry.getValue();
-        }
-        //logger.info("TYPE!!!!!!!!!!!!!!!!!! RETURNING: {}", type);
-        if (params == null) return null;
-        for (ASTNameType nameType : params) {
-            if (nameType.getName().equals(propName))
-                type = nameType.getType();
-        }
-        //logger.info("Querying propName {}, RETURNING: {}", propName, type);
-        return type;
-    }
-
-
     /**
      * Returns the type of the parameter that matches the given method name and parameter name
      *
@@ -94,44 +134,308 @@ public class ClassProperties {
      * @return String representation of the type of the parameter
      */
     public String getParamTypeByName(String methodName, String paramName) {
-        return getMethodPropertyByName(methodName, paramName, methodParamsMap);
+        return interner.name(getParamType(interner.lookup(methodName), interner.lookup(paramName)));
     }
 
     public String getLocalVariableTypeByName(String methodName, String varName) {
-        return getMethodPropertyByName(methodName, varName, localVariablesMap);
+        return interner.name(getLocalVariableType(interner.lookup(methodName), interner.lookup(varName)));
+    }
+
+    public boolean hasField(String fieldName) {
+        return fieldTypes.containsKey(interner.lookup(fieldName));
+    }
+
+    public boolean hasMethod(String methodName) {
+        return methodTypes.containsKey(interner.lookup(methodName));
+    }
+
+    public boolean hasParam(String methodName, String paramName) {
+        return hasProperty(paramTypes, interner.lookup(methodName), interner.lookup(paramName));
+    }
+
+    public boolean hasLocalVariable(String methodName, String varName) {
+        return hasProperty(localVariableTypes, interner.lookup(methodName), interner.lookup(varName));
+    }
+
+    /**
+     * @param fieldId interned field name
+     * @return interned type of the field, or SymbolInterner.NONE
+     */
+    public int getFieldType(int fieldId) {
+        return fieldTypes.get(fieldId);
+    }
+
+    /**
+     * @param methodId interned method name
+     * @return interned return type of the method, or SymbolInterner.NONE
+     */
+    public int getMethodType(int methodId) {
+        return methodTypes.get(methodId);
+    }
+
+    /**
+     * @param methodId interned method name
+     * @param paramId  interned parameter name
+     * @return interned type of the parameter, or SymbolInterner.NONE
+     */
+    public int getParamType(int methodId, int paramId) {
+        return getProperty(paramTypes, methodId, paramId);
+    }
+
+    /**
+     * @param methodId interned method name
+     * @param varId    interned local variable name
+     * @return interned type of the local variable, or SymbolInterner.NONE
+     */
+    public int getLocalVariableType(int methodId, int varId) {
+        return getProperty(localVariableTypes, methodId, varId);
+    }
+
+    /**
+     * @param methodId  interned method name
+     * @param signature interned types of the parameters of an overload, in order
+     * @return interned return type of the overload, or SymbolInterner.NONE
+     */
+    public int getMethodType(int methodId, int[] signature) {
+        return overloads.getReturnType(methodId, signature);
+    }
+
+    /**
+     * @param methodId interned method name
+     * @param arity    number of arguments a call passes
+     * @return interned return type of the overload taking that many arguments, the last declared
+     * if several do, or SymbolInterner.NONE
+     */
+    public int getMethodTypeByArity(int methodId, int arity) {
+        return overloads.getReturnType(methodId, arity);
+    }
+
+    /**
+     * @param methodId  interned method name
+     * @param signature interned types of the parameters of an overload, in order
+     * @param paramId   interned parameter name
+     * @return interned type of the parameter of that overload, or SymbolInterner.NONE
+     */
+    public int getParamType(int methodId, int[] signature, int paramId) {
+        return overloads.getParamType(methodId, signature, paramId);
+    }
+
+    /**
+     * @param methodId interned method name
+     * @return the number of overloads of the method
+     */
+    public int getOverloadCount(int methodId) {
+        return overloads.getOverloadCount(methodId);
+    }
+
+    private static int getProperty(IntObjectMap<IntIntMap> methodMap, int methodId, int propId) {
+        IntIntMap properties = methodMap.get(methodId);
+        return properties == null ? SymbolInterner.NONE : properties.get(propId);
+    }
+
+    private static boolean hasProperty(IntObjectMap<IntIntMap> methodMap, int methodId, int propId) {
+        IntIntMap properties = methodMap.get(methodId);
+        return properties != null && properties.containsKey(propId);
     }
 
     public String getClassFQN() {
         return classFQN;
     }
 
+    /**
+     * @return the fields in declaration order, built from the index on every call
+     */
     public List<ASTNameType> getFields() {
+        List<ASTNameType> fields = new ArrayList<>(fieldTypes.size());
+        for (int entry = 0; entry < fieldTypes.entryCount(); entry++) {
+            if (fieldTypes.keyAt(entry) != IntHashIndex.NONE) {
+                fields.add(new ASTNameType(interner.name(fieldTypes.keyAt(entry)), interner.name(fieldTypes.valueAt(entry))));
+            }
+        }
         return fields;
     }
 
+    /**
+     * @return each method mapped to its parameters, built from the index on every call
+     */
     public Map<ASTNameType, List<ASTNameType>> getMethodParamsMap() {
-        return methodParamsMap;
+        return toNameTypes(paramTypes);
+    }
+
+    /**
+     * @return each method mapped to its local variables, built from the index on every call
+     */
+    public Map<ASTNameType, List<ASTNameType>> getLocalVariablesMap() {
+        return toNameTypes(localVariableTypes);
+    }
+
+    private Map<ASTNameType, List<ASTNameType>> toNameTypes(IntObjectMap<IntIntMap> methodMap) {
+        Map<ASTNameType, List<ASTNameType>> nameTypes = new LinkedHashMap<>();
+        for (int entry = 0; entry < methodTypes.entryCount(); entry++) {
+            int methodId = methodTypes.keyAt(entry);
+            if (methodId == IntHashIndex.NONE) {
+                continue;
+            }
+            List<ASTNameType> properties = new ArrayList<>();
+            IntIntMap types = methodMap.get(methodId);
+            for (int property = 0; types != null && property < types.entryCount(); property++) {
+                if (types.keyAt(property) != IntHashIndex.NONE) {
+                    properties.add(new ASTNameType(interner.name(types.keyAt(property)), interner.name(types.valueAt(property))));
+                }
+            }
+            nameTypes.put(new ASTNameType(interner.name(methodId), interner.name(methodTypes.valueAt(entry))), properties);
+        }
+        return nameTypes;
     }
 
     public void addField(ASTNameType fieldNameTypes) {
-        fields.add(fieldNameTypes);
+        checkMutable();
+        fieldTypes.put(interner.intern(fieldNameTypes.getName()), interner.intern(fieldNameTypes.getType()));
     }
 
     public void addMethod(ASTNameType methodNameType, List<ASTNameType> paramNameTypes,
                           List<ASTNameType> localVariables) {
-        methodParamsMap.put(methodNameType, paramNameTypes);
-        localVariablesMap.put(methodNameType, localVariables);
+        checkMutable();
+        int methodId = interner.intern(methodNameType.getName());
+        int returnType = interner.intern(methodNameType.getType());
+        methodTypes.put(methodId, returnType);
+        int[] paramNames = new int[paramNameTypes.size()];
+        int[] signature = new int[paramNameTypes.size()];
+        for (int param = 0; param < signature.length; param++) {
+            paramNames[param] = interner.intern(paramNameTypes.get(param).getName());
+            signature[param] = interner.intern(paramNameTypes.get(param).getType());
+        }
+        overloads.add(methodId, returnType, paramNames, signature);
+        index(methodId, paramNameTypes, paramTypes);
+        index(methodId, localVariables, localVariableTypes);
     }
 
-    public Map<ASTNameType, List<ASTNameType>> getLocalVariablesMap() {
-        return localVariablesMap;
+    /**
+     * Add every member of another part of this class, as if its declarations were added after
+     * this one's. Members declared by both take the other part's types.
+     *
+     * @param other members of the same class collected separately
+     */
+    public void addAll(ClassProperties other) {
+        checkMutable();
+        for (int entry = 0; entry < other.fieldTypes.entryCount(); entry++) {
+            if (other.fieldTypes.keyAt(entry) != IntHashIndex.NONE) {
+                fieldTypes.put(other.fieldTypes.keyAt(entry), other.fieldTypes.valueAt(entry));
+            }
+        }
+        for (int entry = 0; entry < other.methodTypes.entryCount(); entry++) {
+            if (other.methodTypes.keyAt(entry) != IntHashIndex.NONE) {
+                methodTypes.put(other.methodTypes.keyAt(entry), other.methodTypes.valueAt(entry));
+            }
+        }
+        addAll(other.paramTypes, paramTypes);
+        addAll(other.localVariableTypes, localVariableTypes);
+        overloads.addAll(other.overloads);
+    }
+
+    private static void addAll(IntObjectMap<IntIntMap> from, IntObjectMap<IntIntMap> to) {
+        for (int entry = 0; entry < from.entryCount(); entry++) {
+            int methodId = from.keyAt(entry);
+            if (methodId == IntHashIndex.NONE) {
+                continue;
+            }
+            IntIntMap fromTypes = from.valueAt(entry);
+            IntIntMap types = to.get(methodId);
+            if (types == null) {
+                to.put(methodId, new IntIntMap(fromTypes));
+                continue;
+            }
+            for (int prop = 0; prop < fromTypes.entryCount(); prop++) {
+                if (fromTypes.keyAt(prop) != IntHashIndex.NONE) {
+                    types.put(fromTypes.keyAt(prop), fromTypes.valueAt(prop));
+                }
+            }
+        }
+    }
+
+    public int getFieldCount() {
+        return fieldTypes.size();
+    }
+
+    public int getMethodCount() {
+        return methodTypes.size();
+    }
+
+    /**
+     * @return the number of parameters of every method, overloads merged
+     */
+    public int getParamCount() {
+        return count(paramTypes);
+    }
+
+    /**
+     * @return the number of locals of every method, overloads merged
+     */
+    public int getLocalVariableCount() {
+        return count(localVariableTypes);
+    }
+
+    private static int count(IntObjectMap<IntIntMap> methodMap) {
+        int count = 0;
+        for (int entry = 0; entry < methodMap.entryCount(); entry++) {
+            if (methodMap.keyAt(entry) != IntHashIndex.NONE) {
+                count += methodMap.valueAt(entry).size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return an estimate of the heap retained by this class and its indexes. The names and
+     * types are ids, so the Strings they stand for are not counted: the interner holds them once.
+     */
+    public long estimateBytes() {
+        return OBJECT_BYTES + fieldTypes.estimateBytes() + methodTypes.estimateBytes()
+                + estimateBytes(paramTypes) + estimateBytes(localVariableTypes) + overloads.estimateBytes();
+    }
+
+    private static long estimateBytes(IntObjectMap<IntIntMap> methodMap) {
+        long bytes = methodMap.estimateBytes();
+        for (int entry = 0; entry < methodMap.entryCount(); entry++) {
+            if (methodMap.keyAt(entry) != IntHashIndex.NONE) {
+                bytes += methodMap.valueAt(entry).estimateBytes();
+            }
+        }
+        return bytes;
+    }
+
+    IntIntMap getFieldTypes() {
+        return fieldTypes;
+    }
+
+    IntIntMap getMethodTypes() {
+        return methodTypes;
+    }
+
+    IntObjectMap<IntIntMap> getParamTypes() {
+        return paramTypes;
+    }
+
+    IntObjectMap<IntIntMap> getLocalVariableTypes() {
+        return localVariableTypes;
+    }
+
+    private void index(int methodId, List<ASTNameType> nameTypes, IntObjectMap<IntIntMap> methodMap) {
+        IntIntMap types = methodMap.get(methodId);
+        if (types == null) {
+            types = new IntIntMap(nameTypes.size());
+            methodMap.put(methodId, types);
+        }
+        for (ASTNameType nameType : nameTypes) {
+            types.put(interner.intern(nameType.getName()), interner.intern(nameType.getType()));
+        }
     }
 
     @Override
     public String toString() {
         return "\tClassFQN='" + classFQN + '\'' +
-                ", \n\tFields=" + fields +
-                ", \n\tMethodParams=" + methodParamsMap +
-                ", \n\tLocalVariables=" + localVariablesMap;
+                ", \n\tFields=" + getFields() +
+                ", \n\tMethodParams=" + getMethodParamsMap() +
+                ", \n\tLocalVariables=" + getLocalVariablesMap();
     }
 }
@@ -0,0 +1,228 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.Arrays;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The open-addressing hash index shared by IntIntMap, IntObjectMap and IntSet. Keys are
+ * non-negative ints, such as the ids handed out by a SymbolInterner. Entries are stored densely
+ * in insertion order, and a power of two table of slots maps each key's hash to its entry with
+ * linear probing. Subclasses keep their values in arrays parallel to the keys.
+ */
+public abstract class IntHashIndex {
+
+    /**
+     * Marks an empty slot, a removed entry, and a missing key or value
+     */
+    public static final int NONE = -1;
+
+    private static final int MIN_ENTRIES = 4;
+
+    /**
+     * Estimated heap size of an index object, and of the header of an array, with compressed
+     * references
+     */
+    private static final int OBJECT_BYTES = 32;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private int[] slots;
+    private int[] keys;
+    private int entries;
+    private int size;
+
+    protected IntHashIndex(int expectedSize) {
+        int capacity = Math.max(MIN_ENTRIES, expectedSize);
+        keys = new int[capacity];
+        slots = new int[tableSizeFor(capacity * 2)];
+        Arrays.fill(slots, NONE);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        return n < 0 ? 1 << 30 : n;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @param key the key to find
+     * @return the entry holding key, or NONE
+     */
+    protected final int findEntry(int key) {
+        if (key < 0) {
+            return NONE;
+        }
+        int mask = slots.length - 1;
+        for (int i = hash(key) & mask; slots[i] != NONE; i = (i + 1) & mask) {
+            if (keys[slots[i]] == key) {
+                return slots[i];
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * @param key a non-negative key
+     * @return the entry holding key, added if the key was missing
+     */
+    protected final int insertEntry(int key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key " + key);
+        }
+        int entry = findEntry(key);
+        if (entry != NONE) {
+            return entry;
+        }
+        if (entries == keys.length) {
+            if (size <= entries / 2) {
+                compact();
+            } else {
+                int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                growValues(capacity);
+            }
+        }
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        entry = entries++;
+        keys[entry] = key;
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * @param key the key to remove
+     * @return the entry that held key, now cleared, or NONE if the key was missing
+     */
+    protected final int removeEntry(int key) {
+        int entry = findEntry(key);
+        if (entry == NONE) {
+            return NONE;
+        }
+        int mask = slots.length - 1;
+        int i = hash(key) & mask;
+        while (slots[i] != entry) {
+            i = (i + 1) & mask;
+        }
+        // Shift later entries of the probe sequence back so lookups never stop at a hole
+        for (int j = (i + 1) & mask; slots[j] != NONE; j = (j + 1) & mask) {
+            int home = hash(keys[slots[j]]) & mask;
+            boolean movable = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        slots[i] = NONE;
+        keys[entry] = NONE;
+        clearValue(entry);
+        size--;
+        return entry;
+    }
+
+    private void place(int entry) {
+        int mask = slots.length - 1;
+        int i = hash(keys[entry]) & mask;
+        while (slots[i] != NONE) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = entry;
+    }
+
+    private void rehash(int tableSize) {
+        slots = new int[tableSize];
+        Arrays.fill(slots, NONE);
+        for (int entry = 0; entry < entries; entry++) {
+            if (keys[entry] != NONE) {
+                place(entry);
+            }
+        }
+    }
+
+    /**
+     * Close the holes left by removed entries, keeping the insertion order
+     */
+    private void compact() {
+        int to = 0;
+        for (int from = 0; from < entries; from++) {
+            if (keys[from] != NONE) {
+                keys[to] = keys[from];
+                moveValue(from, to);
+                to++;
+            }
+        }
+        for (int entry = to; entry < entries; entry++) {
+            clearValue(entry);
+        }
+        entries = to;
+        rehash(slots.length);
+    }
+
+    /**
+     * Grow the value arrays to hold capacity entries
+     */
+    protected abstract void growValues(int capacity);
+
+    /**
+     * Move the value of entry from to entry to
+     */
+    protected abstract void moveValue(int from, int to);
+
+    /**
+     * Forget the value of a removed entry
+     */
+    protected abstract void clearValue(int entry);
+
+    public final int size() {
+        return size;
+    }
+
+    public final boolean isEmpty() {
+        return size == 0;
+    }
+
+    public final boolean containsKey(int key) {
+        return findEntry(key) != NONE;
+    }
+
+    /**
+     * @return the number of entries to iterate over with keyAt, including removed ones
+     */
+    public final int entryCount() {
+        return entries;
+    }
+
+    /**
+     * @param entry an entry below entryCount
+     * @return the key of the entry, or NONE if it was removed
+     */
+    public final int keyAt(int entry) {
+        return keys[entry];
+    }
+
+    /**
+     * @return the number of arrays, parallel to the keys, a subclass keeps its values in. Values
+     * are ints or compressed references, four bytes each.
+     */
+    protected int valueArrayCount() {
+        return 0;
+    }
+
+    /**
+     * @return an estimate of the heap taken by this index's own object and arrays, not counting
+     * any objects its values refer to
+     */
+    public long estimateBytes() {
+        return OBJECT_BYTES + intArrayBytes(slots.length) + intArrayBytes(keys.length) * (1 + valueArrayCount());
+    }
+
+    static long intArrayBytes(int length) {
+        return (ARRAY_HEADER_BYTES + 4L * length + 7) & ~7L;
+    }
+}
@@ -0,0 +1,93 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.Arrays;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * A map from non-negative int keys to int values without boxing. Iterates in insertion order.
+ */
+public class IntIntMap extends IntHashIndex {
+
+    private int[] values;
+
+    public IntIntMap() {
+        this(0);
+    }
+
+    public IntIntMap(int expectedSize) {
+        super(expectedSize);
+        values = new int[Math.max(4, expectedSize)];
+    }
+
+    /**
+     * Copy a map into one sized to fit it exactly, leaving out removed entries
+     *
+     * @param source the map to copy
+     */
+    public IntIntMap(IntIntMap source) {
+        this(source.size());
+        for (int entry = 0; entry < source.entryCount(); entry++) {
+            if (source.keyAt(entry) != NONE) {
+                put(source.keyAt(entry), source.valueAt(entry));
+            }
+        }
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value of key, or NONE if the key is missing
+     */
+    public int get(int key) {
+        int entry = findEntry(key);
+        return entry == NONE ? NONE : values[entry];
+    }
+
+    public void put(int key, int value) {
+        // Insert first: inserting may replace the values array
+        int entry = insertEntry(key);
+        values[entry] = value;
+    }
+
+    /**
+     * @param key the key to remove
+     * @return the value key had, or NONE if the key was missing
+     */
+    public int remove(int key) {
+        int entry = findEntry(key);
+        if (entry == NONE) {
+            return NONE;
+        }
+        int value = values[entry];
+        removeEntry(key);
+        return value;
+    }
+
+    /**
+     * @param entry an entry below entryCount whose key is not NONE
+     * @return the value of the entry
+     */
+    public int valueAt(int entry) {
+        return values[entry];
+    }
+
+    @Override
+    protected int valueArrayCount() {
+        return 1;
+    }
+
+    @Override
+    protected void growValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    protected void clearValue(int entry) {
+        values[entry] = NONE;
+    }
+}
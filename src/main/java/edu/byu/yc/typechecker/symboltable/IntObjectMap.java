@@ -0,0 +1,80 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.Arrays;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * A map from non-negative int keys to objects without boxing the keys. Iterates in insertion
+ * order.
+ *
+ * @param <V> the type of the values
+ */
+public class IntObjectMap<V> extends IntHashIndex {
+
+    private Object[] values;
+
+    public IntObjectMap() {
+        this(0);
+    }
+
+    public IntObjectMap(int expectedSize) {
+        super(expectedSize);
+        values = new Object[Math.max(4, expectedSize)];
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value of key, or null if the key is missing
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int entry = findEntry(key);
+        return entry == NONE ? null : (V) values[entry];
+    }
+
+    public void put(int key, V value) {
+        // Insert first: inserting may replace the values array
+        int entry = insertEntry(key);
+        values[entry] = value;
+    }
+
+    /**
+     * @param key the key to remove
+     * @return the value key had, or null if the key was missing
+     */
+    public V remove(int key) {
+        V value = get(key);
+        removeEntry(key);
+        return value;
+    }
+
+    /**
+     * @param entry an entry below entryCount whose key is not NONE
+     * @return the value of the entry
+     */
+    @SuppressWarnings("unchecked")
+    public V valueAt(int entry) {
+        return (V) values[entry];
+    }
+
+    @Override
+    protected int valueArrayCount() {
+        return 1;
+    }
+
+    @Override
+    protected void growValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    protected void clearValue(int entry) {
+        values[entry] = null;
+    }
+}
@@ -0,0 +1,58 @@
+package edu.byu.yc.typechecker.symboltable;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * A set of non-negative ints without boxing. Iterates in insertion order.
+ */
+public class IntSet extends IntHashIndex {
+
+    public IntSet() {
+        this(0);
+    }
+
+    public IntSet(int expectedSize) {
+        super(expectedSize);
+    }
+
+    /**
+     * Copy a set into one sized to fit it exactly, leaving out removed entries
+     *
+     * @param source the set to copy
+     */
+    public IntSet(IntSet source) {
+        this(source.size());
+        for (int entry = 0; entry < source.entryCount(); entry++) {
+            if (source.keyAt(entry) != NONE) {
+                add(source.keyAt(entry));
+            }
+        }
+    }
+
+    public void add(int key) {
+        insertEntry(key);
+    }
+
+    public boolean contains(int key) {
+        return containsKey(key);
+    }
+
+    public boolean remove(int key) {
+        return removeEntry(key) != NONE;
+    }
+
+    @Override
+    protected void growValues(int capacity) {
+        // No values
+    }
+
+    @Override
+    protected void moveValue(int from, int to) {
+        // No values
+    }
+
+    @Override
+    protected void clearValue(int entry) {
+        // No values
+    }
+}
@@ -0,0 +1,124 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.Arrays;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The local variables in scope at the point a visitor has reached, as a stack of bindings of
+ * interned name ids to type ids. Opening a scope records the height of the stack and closing it
+ * pops back down to that height. Each binding remembers the binding of the same name it shadows,
+ * and the innermost binding of every name is kept in an array indexed by name id, so looking a
+ * name up, declaring one and closing a scope never search. Nothing is allocated once the arrays
+ * have grown to fit the deepest method. Not thread safe.
+ */
+class LocalScopes {
+
+    private int[] names = new int[16];
+    private int[] types = new int[16];
+    private int[] shadowed = new int[16];
+    private int size;
+
+    private int[] scopeStarts = new int[8];
+    private int depth;
+
+    private int[] innermost = newInnermost(64);
+
+    private static int[] newInnermost(int length) {
+        int[] innermost = new int[length];
+        Arrays.fill(innermost, IntHashIndex.NONE);
+        return innermost;
+    }
+
+    /**
+     * Open a scope. Locals declared from now on go out of scope when it is closed.
+     */
+    void push() {
+        if (depth == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+        }
+        scopeStarts[depth++] = size;
+    }
+
+    /**
+     * Close the innermost scope, which brings back any locals its locals shadowed
+     */
+    void pop() {
+        if (depth == 0) {
+            throw new IllegalStateException("No scope is open");
+        }
+        popTo(scopeStarts[--depth]);
+    }
+
+    /**
+     * Declare a local in the innermost scope, shadowing any local of the same name
+     *
+     * @param nameId interned name of the local
+     * @param typeId interned type of the local
+     */
+    void add(int nameId, int typeId) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+            shadowed = Arrays.copyOf(shadowed, size * 2);
+        }
+        if (nameId >= innermost.length) {
+            int[] grown = newInnermost(Math.max(nameId + 1, innermost.length * 2));
+            System.arraycopy(innermost, 0, grown, 0, innermost.length);
+            innermost = grown;
+        }
+        names[size] = nameId;
+        types[size] = typeId;
+        shadowed[size] = innermost[nameId];
+        innermost[nameId] = size;
+        size++;
+    }
+
+    /**
+     * Remove the innermost binding of a name, bringing back the binding it shadowed
+     *
+     * @param nameId interned name of the local
+     * @return false if no local of that name is in scope
+     */
+    boolean remove(int nameId) {
+        if (nameId < 0 || nameId >= innermost.length || innermost[nameId] == IntHashIndex.NONE) {
+            return false;
+        }
+        int binding = innermost[nameId];
+        innermost[nameId] = shadowed[binding];
+        names[binding] = IntHashIndex.NONE;
+        int start = depth == 0 ? 0 : scopeStarts[depth - 1];
+        while (size > start && names[size - 1] == IntHashIndex.NONE) {
+            size--;
+        }
+        return true;
+    }
+
+    /**
+     * @param nameId interned name of a local
+     * @return the interned type of the innermost local of that name, or NONE if none is in scope
+     */
+    int lookup(int nameId) {
+        if (nameId < 0 || nameId >= innermost.length || innermost[nameId] == IntHashIndex.NONE) {
+            return IntHashIndex.NONE;
+        }
+        return types[innermost[nameId]];
+    }
+
+    /**
+     * Close every scope
+     */
+    void clear() {
+        depth = 0;
+        popTo(0);
+    }
+
+    private void popTo(int start) {
+        while (size > start) {
+            size--;
+            if (names[size] != IntHashIndex.NONE) {
+                innermost[names[size]] = shadowed[size];
+            }
+        }
+    }
+}
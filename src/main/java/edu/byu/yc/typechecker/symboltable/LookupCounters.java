@@ -0,0 +1,64 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Counts the hits and misses of each kind of symbol table lookup. Checker threads reading a
+ * frozen table count into striped adders, so counting does not make them contend.
+ */
+class LookupCounters {
+
+    private final LongAdder[] hits = newAdders();
+    private final LongAdder[] misses = newAdders();
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[SymbolTableStats.Lookup.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * @return found, after counting it as a hit or a miss
+     */
+    boolean record(SymbolTableStats.Lookup lookup, boolean found) {
+        (found ? hits : misses)[lookup.ordinal()].increment();
+        return found;
+    }
+
+    /**
+     * @return type, after counting a null type as a miss and any other as a hit
+     */
+    String record(SymbolTableStats.Lookup lookup, String type) {
+        (type != null ? hits : misses)[lookup.ordinal()].increment();
+        return type;
+    }
+
+    Map<SymbolTableStats.Lookup, Long> getHits() {
+        return sums(hits);
+    }
+
+    Map<SymbolTableStats.Lookup, Long> getMisses() {
+        return sums(misses);
+    }
+
+    private static Map<SymbolTableStats.Lookup, Long> sums(LongAdder[] adders) {
+        Map<SymbolTableStats.Lookup, Long> sums = new EnumMap<>(SymbolTableStats.Lookup.class);
+        for (SymbolTableStats.Lookup lookup : SymbolTableStats.Lookup.values()) {
+            sums.put(lookup, adders[lookup.ordinal()].sum());
+        }
+        return sums;
+    }
+
+    void reset() {
+        for (int i = 0; i < hits.length; i++) {
+            hits[i].reset();
+            misses[i].reset();
+        }
+    }
+}
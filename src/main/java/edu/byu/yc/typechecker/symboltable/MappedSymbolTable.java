@@ -0,0 +1,355 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import static edu.byu.yc.typechecker.symboltable.SymbolTableFile.HEADER_SIZE;
+import static edu.byu.yc.typechecker.symboltable.SymbolTableFile.MAGIC;
+import static edu.byu.yc.typechecker.symboltable.SymbolTableFile.VERSION;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * A read-only symbol table answered straight from a file written by SymbolTableFile. The file is
+ * memory mapped and nothing is decoded up front: each query hashes its names into the file's
+ * string index and binary searches the class's record, so opening a table costs the same however
+ * many classes it holds, apart from verifying the checksum. Instances are safe to share between
+ * threads.
+ */
+public class MappedSymbolTable implements ISymbolTable {
+
+    private static final int FIELDS = 0;
+    private static final int METHODS = 1;
+    private static final int VALID_TYPES = 2;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+
+    private final int stringCount;
+    private final int stringSlotCount;
+    private final int stringSlots;
+    private final int stringOffsets;
+    private final int stringBytes;
+
+    private final int classCount;
+    private final int classSlotCount;
+    private final int classSlots;
+
+    private final int names;
+
+    private MappedSymbolTable(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a symbol table file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " was written by symbol table format " + buffer.getInt(4)
+                    + ", expected " + VERSION);
+        }
+        if (buffer.getInt(8) != buffer.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+        ByteBuffer body = buffer.duplicate();
+        body.position(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != buffer.getInt(24)) {
+            throw new IOException(file + " is corrupt, its checksum does not match");
+        }
+
+        int strings = buffer.getInt(12);
+        stringCount = buffer.getInt(strings);
+        stringSlotCount = buffer.getInt(strings + 4);
+        stringSlots = strings + 8;
+        stringOffsets = stringSlots + stringSlotCount * 4;
+        stringBytes = stringOffsets + (stringCount + 1) * 4;
+
+        int classes = buffer.getInt(16);
+        classCount = buffer.getInt(classes);
+        classSlotCount = buffer.getInt(classes + 4);
+        classSlots = classes + 8;
+
+        names = buffer.getInt(20);
+    }
+
+    /**
+     * Map a symbol table file
+     *
+     * @param file a file written by SymbolTableFile.write
+     * @return the mapped table
+     * @throws IOException if the file cannot be read, or is of another version, truncated or corrupt
+     */
+    public static MappedSymbolTable open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to be a symbol table file");
+            }
+            return new MappedSymbolTable(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @param name a name used in the table
+     * @return the id of the name in the file, or NONE if the file does not contain it
+     */
+    private int lookup(String name) {
+        if (name == null) {
+            return IntHashIndex.NONE;
+        }
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        int slot = SymbolTableFile.hash(name) & (stringSlotCount - 1);
+        while (true) {
+            int id = buffer.getInt(stringSlots + slot * 4);
+            if (id == IntHashIndex.NONE || nameEquals(id, utf8)) {
+                return id;
+            }
+            slot = (slot + 1) & (stringSlotCount - 1);
+        }
+    }
+
+    private boolean nameEquals(int id, byte[] utf8) {
+        int start = buffer.getInt(stringOffsets + id * 4);
+        int end = buffer.getInt(stringOffsets + id * 4 + 4);
+        if (end - start != utf8.length) {
+            return false;
+        }
+        for (int i = 0; i < utf8.length; i++) {
+            if (buffer.get(stringBytes + start + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String name(int id) {
+        if (id == IntHashIndex.NONE) {
+            return null;
+        }
+        int start = buffer.getInt(stringOffsets + id * 4);
+        byte[] utf8 = new byte[buffer.getInt(stringOffsets + id * 4 + 4) - start];
+        for (int i = 0; i < utf8.length; i++) {
+            utf8[i] = buffer.get(stringBytes + start + i);
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the offset of the class's record, or NONE if there is no such class
+     */
+    private int record(String classFQN) {
+        int classId = lookup(classFQN);
+        if (classId == IntHashIndex.NONE) {
+            return IntHashIndex.NONE;
+        }
+        int slot = SymbolTableFile.hash(classId) & (classSlotCount - 1);
+        while (true) {
+            int id = buffer.getInt(classSlots + slot * 8);
+            if (id == classId) {
+                return buffer.getInt(classSlots + slot * 8 + 4);
+            }
+            if (id == IntHashIndex.NONE) {
+                return IntHashIndex.NONE;
+            }
+            slot = (slot + 1) & (classSlotCount - 1);
+        }
+    }
+
+    /**
+     * @return the offset of one of the three sorted blocks of a record
+     */
+    private int block(int record, int block) {
+        int offset = record;
+        if (block > FIELDS) {
+            offset += 4 + buffer.getInt(offset) * 8;
+        }
+        if (block > METHODS) {
+            offset += 4 + buffer.getInt(offset) * 16;
+        }
+        return offset;
+    }
+
+    /**
+     * Binary search a block of entries sorted by their first int
+     *
+     * @param block  offset of the block's count
+     * @param key    the id to find
+     * @param stride the number of ints in each entry
+     * @return the offset of the matching entry, or NONE
+     */
+    private int find(int block, int key, int stride) {
+        if (key == IntHashIndex.NONE) {
+            return IntHashIndex.NONE;
+        }
+        int low = 0;
+        int high = buffer.getInt(block) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = block + 4 + middle * stride * 4;
+            int id = buffer.getInt(entry);
+            if (id < key) {
+                low = middle + 1;
+            } else if (id > key) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return IntHashIndex.NONE;
+    }
+
+    private int findMethod(String classFQN, String methodName) {
+        int record = record(classFQN);
+        return record == IntHashIndex.NONE ? IntHashIndex.NONE
+                : find(block(record, METHODS), lookup(methodName), 4);
+    }
+
+    /**
+     * @param method offset of a method entry
+     * @param locals true for the method's locals, false for its parameters
+     * @return the type of the name, or null
+     */
+    private String getMethodProperty(int method, boolean locals, String name) {
+        if (method == IntHashIndex.NONE) {
+            return null;
+        }
+        int entry = find(buffer.getInt(method + (locals ? 12 : 8)), lookup(name), 2);
+        return entry == IntHashIndex.NONE ? null : name(buffer.getInt(entry + 4));
+    }
+
+    @Override
+    public String getFieldType(String classFQN, String fieldName) {
+        int record = record(classFQN);
+        if (record == IntHashIndex.NONE) {
+            return null;
+        }
+        int entry = find(block(record, FIELDS), lookup(fieldName), 2);
+        return entry == IntHashIndex.NONE ? null : name(buffer.getInt(entry + 4));
+    }
+
+    @Override
+    public String getMethodReturnType(String classFQN, String methodName) {
+        int method = findMethod(classFQN, methodName);
+        return method == IntHashIndex.NONE ? null : name(buffer.getInt(method + 4));
+    }
+
+    @Override
+    public String getParameterType(String classFQN, String methodName, String paramName) {
+        return getMethodProperty(findMethod(classFQN, methodName), false, paramName);
+    }
+
+    @Override
+    public String getLocalVariableType(String classFQN, String methodName, String localVariableName) {
+        return getMethodProperty(findMethod(classFQN, methodName), true, localVariableName);
+    }
+
+    @Override
+    public boolean classExists(String classFQN) {
+        return record(classFQN) != IntHashIndex.NONE;
+    }
+
+    @Override
+    public boolean methodExists(String classFQN, String methodName) {
+        return findMethod(classFQN, methodName) != IntHashIndex.NONE;
+    }
+
+    @Override
+    public boolean parameterExists(String classFQN, String methodName, String paramName) {
+        return getParameterType(classFQN, methodName, paramName) != null;
+    }
+
+    @Override
+    public boolean localVariableExists(String classFQN, String methodName, String localVariableName) {
+        return getLocalVariableType(classFQN, methodName, localVariableName) != null;
+    }
+
+    @Override
+    public boolean fieldExists(String classFQN, String fieldName) {
+        return getFieldType(classFQN, fieldName) != null;
+    }
+
+    public boolean validTypeExists(String classFQN, String type) {
+        int record = record(classFQN);
+        return record != IntHashIndex.NONE
+                && find(block(record, VALID_TYPES), lookup(type), 1) != IntHashIndex.NONE;
+    }
+
+    /**
+     * @param simpleName the simple name of a class
+     * @return the fully qualified name it resolves to, or null
+     */
+    public String getQualifiedName(String simpleName) {
+        int entry = find(names, lookup(simpleName), 2);
+        return entry == IntHashIndex.NONE ? null : name(buffer.getInt(entry + 4));
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * The mapped table cannot change
+     */
+    @Override
+    public ISymbolTable addLocal(String name, String type) {
+        throw new UnsupportedOperationException("A mapped symbol table is read-only");
+    }
+
+    /**
+     * The mapped table cannot change
+     */
+    @Override
+    public ISymbolTable removeLocal(String name) {
+        throw new UnsupportedOperationException("A mapped symbol table is read-only");
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("MappedSymbolTable ").append(file).append("\n{\n");
+        for (int slot = 0; slot < classSlotCount; slot++) {
+            int classId = buffer.getInt(classSlots + slot * 8);
+            if (classId == IntHashIndex.NONE) {
+                continue;
+            }
+            int record = buffer.getInt(classSlots + slot * 8 + 4);
+            sb.append("\tClassFQN='").append(name(classId)).append('\'');
+            sb.append(", \n\tFields=");
+            appendPairs(sb, block(record, FIELDS));
+            sb.append(", \n\tMethods=[");
+            int methods = block(record, METHODS);
+            for (int i = 0; i < buffer.getInt(methods); i++) {
+                int method = methods + 4 + i * 16;
+                sb.append(i == 0 ? "" : ", ").append("{name='").append(name(buffer.getInt(method)))
+                        .append("', type='").append(name(buffer.getInt(method + 4))).append("', params=");
+                appendPairs(sb, buffer.getInt(method + 8));
+                sb.append(", locals=");
+                appendPairs(sb, buffer.getInt(method + 12));
+                sb.append('}');
+            }
+            sb.append("]\n");
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private void appendPairs(StringBuilder sb, int block) {
+        sb.append('[');
+        for (int i = 0; i < buffer.getInt(block); i++) {
+            int entry = block + 4 + i * 8;
+            sb.append(i == 0 ? "" : ", ").append("{name='").append(name(buffer.getInt(entry)))
+                    .append("', type='").append(name(buffer.getInt(entry + 4))).append("'}");
+        }
+        sb.append(']');
+    }
+}
@@ -0,0 +1,217 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.Arrays;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The overloads of every method of a class, bucketed by method name and then by arity. An
+ * overload is identified by its signature, the interned types of its parameters in order, and
+ * declaring a signature again replaces the overload. Within a name, the overloads of each arity
+ * are chained newest first from an int-keyed head, so resolving the common single overload of a
+ * name, or the single overload of an arity, never compares signatures, and resolving among
+ * several overloads of one arity compares only those.
+ */
+class MethodIndex {
+
+    private final IntObjectMap<Overloads> byName;
+
+    MethodIndex() {
+        byName = new IntObjectMap<>();
+    }
+
+    /**
+     * Copy constructor, with every index sized to fit
+     */
+    MethodIndex(MethodIndex source) {
+        byName = new IntObjectMap<>(source.byName.size());
+        for (int entry = 0; entry < source.byName.entryCount(); entry++) {
+            if (source.byName.keyAt(entry) != IntHashIndex.NONE) {
+                byName.put(source.byName.keyAt(entry), new Overloads(source.byName.valueAt(entry)));
+            }
+        }
+    }
+
+    /**
+     * Add an overload, or replace the overload with the same signature
+     *
+     * @param methodId   interned method name
+     * @param returnType interned return type
+     * @param paramNames interned parameter names, in order
+     * @param paramTypes interned parameter types, in order
+     */
+    void add(int methodId, int returnType, int[] paramNames, int[] paramTypes) {
+        Overloads overloads = byName.get(methodId);
+        if (overloads == null) {
+            overloads = new Overloads();
+            byName.put(methodId, overloads);
+        }
+        overloads.add(returnType, paramNames, paramTypes);
+    }
+
+    /**
+     * Add every overload of another index, as if they were declared after this one's
+     */
+    void addAll(MethodIndex other) {
+        for (int entry = 0; entry < other.byName.entryCount(); entry++) {
+            int methodId = other.byName.keyAt(entry);
+            if (methodId == IntHashIndex.NONE) {
+                continue;
+            }
+            Overloads from = other.byName.valueAt(entry);
+            for (int overload = 0; overload < from.count; overload++) {
+                add(methodId, from.returnTypes[overload], from.paramNames[overload], from.paramTypes[overload]);
+            }
+        }
+    }
+
+    /**
+     * @param methodId interned method name
+     * @return the number of overloads of the method
+     */
+    int getOverloadCount(int methodId) {
+        Overloads overloads = byName.get(methodId);
+        return overloads == null ? 0 : overloads.count;
+    }
+
+    /**
+     * @param methodId  interned method name
+     * @param signature interned parameter types, in order
+     * @return the interned return type of the overload with that signature, or NONE
+     */
+    int getReturnType(int methodId, int[] signature) {
+        Overloads overloads = byName.get(methodId);
+        int overload = overloads == null ? IntHashIndex.NONE : overloads.find(signature);
+        return overload == IntHashIndex.NONE ? IntHashIndex.NONE : overloads.returnTypes[overload];
+    }
+
+    /**
+     * @param methodId interned method name
+     * @param arity    number of arguments
+     * @return the interned return type of the overload taking that many arguments, the newest if
+     * there are several, or NONE
+     */
+    int getReturnType(int methodId, int arity) {
+        Overloads overloads = byName.get(methodId);
+        int overload = overloads == null ? IntHashIndex.NONE : overloads.findByArity(arity);
+        return overload == IntHashIndex.NONE ? IntHashIndex.NONE : overloads.returnTypes[overload];
+    }
+
+    /**
+     * @param methodId  interned method name
+     * @param signature interned parameter types, in order
+     * @param paramId   interned parameter name
+     * @return the interned type of the parameter of the overload with that signature, or NONE
+     */
+    int getParamType(int methodId, int[] signature, int paramId) {
+        Overloads overloads = byName.get(methodId);
+        int overload = overloads == null ? IntHashIndex.NONE : overloads.find(signature);
+        if (overload == IntHashIndex.NONE) {
+            return IntHashIndex.NONE;
+        }
+        int[] names = overloads.paramNames[overload];
+        for (int param = 0; param < names.length; param++) {
+            if (names[param] == paramId) {
+                return overloads.paramTypes[overload][param];
+            }
+        }
+        return IntHashIndex.NONE;
+    }
+
+    /**
+     * @return an estimate of the heap retained by the index. Signatures shared with a copy are
+     * counted by both.
+     */
+    long estimateBytes() {
+        long bytes = byName.estimateBytes();
+        for (int entry = 0; entry < byName.entryCount(); entry++) {
+            if (byName.keyAt(entry) != IntHashIndex.NONE) {
+                bytes += byName.valueAt(entry).estimateBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * The overloads of one name, in arrays indexed by overload in declaration order
+     */
+    private static final class Overloads {
+
+        /**
+         * Estimated heap size of an Overloads object, with compressed references
+         */
+        private static final int OVERLOADS_BYTES = 32;
+
+        private int count;
+        private int[] returnTypes;
+        private int[][] paramNames;
+        private int[][] paramTypes;
+        private int[] nextOfArity; //the next older overload of the same arity, or NONE
+        private final IntIntMap newestOfArity;
+
+        Overloads() {
+            returnTypes = new int[1];
+            paramNames = new int[1][];
+            paramTypes = new int[1][];
+            nextOfArity = new int[1];
+            newestOfArity = new IntIntMap(1);
+        }
+
+        Overloads(Overloads source) {
+            count = source.count;
+            returnTypes = Arrays.copyOf(source.returnTypes, count);
+            paramNames = Arrays.copyOf(source.paramNames, count);
+            paramTypes = Arrays.copyOf(source.paramTypes, count);
+            nextOfArity = Arrays.copyOf(source.nextOfArity, count);
+            newestOfArity = new IntIntMap(source.newestOfArity);
+        }
+
+        void add(int returnType, int[] names, int[] types) {
+            int overload = find(types);
+            if (overload != IntHashIndex.NONE) {
+                returnTypes[overload] = returnType;
+                paramNames[overload] = names;
+                return;
+            }
+            if (count == returnTypes.length) {
+                returnTypes = Arrays.copyOf(returnTypes, count * 2);
+                paramNames = Arrays.copyOf(paramNames, count * 2);
+                paramTypes = Arrays.copyOf(paramTypes, count * 2);
+                nextOfArity = Arrays.copyOf(nextOfArity, count * 2);
+            }
+            returnTypes[count] = returnType;
+            paramNames[count] = names;
+            paramTypes[count] = types;
+            nextOfArity[count] = newestOfArity.get(types.length);
+            newestOfArity.put(types.length, count);
+            count++;
+        }
+
+        int find(int[] signature) {
+            for (int overload = newestOfArity.get(signature.length); overload != IntHashIndex.NONE;
+                 overload = nextOfArity[overload]) {
+                if (Arrays.equals(paramTypes[overload], signature)) {
+                    return overload;
+                }
+            }
+            return IntHashIndex.NONE;
+        }
+
+        long estimateBytes() {
+            long bytes = OVERLOADS_BYTES + newestOfArity.estimateBytes() + 2 * IntHashIndex.intArrayBytes(returnTypes.length)
+                    + 2 * IntHashIndex.intArrayBytes(paramNames.length);
+            for (int overload = 0; overload < count; overload++) {
+                bytes += IntHashIndex.intArrayBytes(paramNames[overload].length)
+                        + IntHashIndex.intArrayBytes(paramTypes[overload].length);
+            }
+            return bytes;
+        }
+
+        int findByArity(int arity) {
+            if (count == 1) {
+                return paramTypes[0].length == arity ? 0 : IntHashIndex.NONE;
+            }
+            return newestOfArity.get(arity);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package edu.byu.yc.typechecker.symboltable;
 import org.eclipse.jdt.core.dom.ASTNode;
 import org.eclipse.jdt.core.dom.ASTVisitor;
 import org.eclipse.jdt.core.dom.BodyDeclaration;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ImportDeclaration;
 import org.eclipse.jdt.core.dom.PackageDeclaration;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
@@ -26,6 +27,7 @@ import java.util.Set;
 public class QualifiedClassVisitor extends ASTVisitor {
 
     private Set<String> declaredClasses = new HashSet<>();
+    private Set<String> importedPackages = new HashSet<>();
     private String packageName = "";
     private Map<String, String> simpleNameToFullyQualifiedName = new HashMap<>();
     private List<ASTClassValidator> classValidators = new ArrayList<>();
@@ -33,14 +35,19 @@ public class QualifiedClassVisitor extends ASTVisitor {
 
     /**
      * Stores the import Statements in declaredClasses set so that the valid classes to be used within
-     * a file can be determined
+     * a file can be determined. Imports on demand are stored as imported packages instead, whose
+     * classes can be resolved against the classpath.
      *
      * @param node ImportDeclaration node
      * @return true to visit children
      */
     @Override
     public boolean visit(ImportDeclaration node) {
-        declaredClasses.add(node.getName().toString());
+        if (node.isOnDemand() && !node.isStatic()) {
+            importedPackages.add(node.getName().toString());
+        } else if (!node.isOnDemand()) {
+            declaredClasses.add(node.getName().toString());
+        }
         return true;
     }
 
@@ -86,6 +93,7 @@ public class QualifiedClassVisitor extends ASTVisitor {
         ASTNode parent = node.getParent();
         if (!(parent instanceof BodyDeclaration)) {
             ASTClassValidator v = new ASTClassValidator(declaredClasses, node, packageName);
+            v.setImportedPackages(importedPackages);
             classValidators.add(v);
             declaredClasses = new HashSet<>();
         }
@@ -93,6 +101,20 @@ public class QualifiedClassVisitor extends ASTVisitor {
     }
 
 
+    /**
+     * Each file starts in the default package until its PackageDeclaration is visited, so a file
+     * without one does not inherit the package of the file visited before it
+     *
+     * @param node CompilationUnit node
+     * @return true to visit children
+     */
+    @Override
+    public boolean visit(CompilationUnit node) {
+        packageName = "";
+        importedPackages = new HashSet<>();
+        return true;
+    }
+
     /**
      * Visit the packageDeclaration node and get the current package name
      *
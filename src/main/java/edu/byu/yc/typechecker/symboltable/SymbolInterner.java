@@ -0,0 +1,79 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Gives every distinct identifier and type name a dense int id, so the symbol table can store and
+ * compare ids instead of Strings and keeps a single copy of each name. Ids are handed out from 0
+ * in the order names are first seen. An interner may be shared between threads: lookups never
+ * lock, and only handing out a new id does.
+ */
+public class SymbolInterner {
+
+    /**
+     * The id of null, and the result of looking up a name that was never interned
+     */
+    public static final int NONE = IntHashIndex.NONE;
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[64];
+    private int size;
+
+    /**
+     * @param name a name, or null
+     * @return the id of name, handing out a new one if it has none yet, or NONE for null
+     */
+    public int intern(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size] = name;
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Look up a name without interning it, so queries for unknown names do not grow the interner
+     *
+     * @param name a name, or null
+     * @return the id of name, or NONE if it was never interned
+     */
+    public int lookup(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        Integer id = ids.get(name);
+        return id == null ? NONE : id;
+    }
+
+    /**
+     * @param id an id handed out by this interner, or NONE
+     * @return the name with that id, or null for NONE
+     */
+    public String name(int id) {
+        return id == NONE ? null : names[id];
+    }
+
+    /**
+     * @return the number of names interned
+     */
+    public int size() {
+        return ids.size();
+    }
+}
@@ -1,13 +1,25 @@
 package edu.byu.yc.typechecker.symboltable;
 
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import edu.byu.yc.typechecker.classpath.ClasspathIndex;
+import edu.byu.yc.typechecker.symboltable.SymbolTableStats.Lookup;
 
 
 /**
@@ -15,149 +27,577 @@ import java.util.Set;
  * <p>
  * Symbol Table, before creating a symbol table the qualified class visitor determines all of the
  * fully qualified class names and then a symbol table can be established
+ * <p>
+ * Every class name, member name and type name is interned to an int id, and classes and valid
+ * types are stored in int-keyed maps. The String methods of ISymbolTable look names up in the
+ * interner without adding them and then query by id.
+ * <p>
+ * A table is built by the symbol table visitor and then frozen. The frozen snapshot cannot be
+ * changed, so any number of checker threads may query it without locking. The only thing checking
+ * records is which types are valid in a class; on a frozen table each thread records them in its
+ * own overlay, visible to that thread at once and to everyone once the overlays are merged. A
+ * check task that has to see the same valid types whichever thread runs it checks against an
+ * overlay of its own from {@link #newOverlay()} instead.
  */
 public class SymbolTable implements ISymbolTable {
 
     private static Logger logger = LoggerFactory.getLogger(SymbolTable.class);
 
-    private Map<String, ClassProperties> classFieldsMethodsParamsMap = new HashMap<>(); //class name to fields, methods, and parameters
-    private Map<String, String> classSimpleToQualifiedName;
-    private Map<String, Set<String>> validTypes = new HashMap<>();
+    private final SymbolInterner interner;
+    private final TypeRegistry typeRegistry;
+    private final LookupCounters lookups;
+    private final IntObjectMap<ClassProperties> classes; //class name to fields, methods, and parameters
+    private final Map<String, String> classSimpleToQualifiedName;
+    private final IntObjectMap<IntSet> validTypes;
 
     private ASTClassValidator validator;
+    private final Map<ASTNode, ASTClassValidator> rootValidators;
+    private ClasspathIndex classpathIndex;
+
+    private final boolean frozen;
+    private final SymbolTable parent; //the table a fragment is collected for, null for any other table
+    private final IntObjectMap<IntSet> taskTypes; //valid types of a task overlay, null for any other table
+    private final LocalScopes taskScopes; //scopes of a task overlay, null for any other table
+    private final Queue<IntObjectMap<IntSet>> overlays = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<LocalScopes> scopes = ThreadLocal.withInitial(LocalScopes::new);
+    private final ThreadLocal<IntObjectMap<IntSet>> overlay = ThreadLocal.withInitial(() -> {
+        IntObjectMap<IntSet> threadTypes = new IntObjectMap<>();
+        overlays.add(threadTypes);
+        return threadTypes;
+    });
 
     public SymbolTable(Map<String, String> classSimpleToQualifiedName, ASTClassValidator classValidator) {
+        this(classSimpleToQualifiedName, Collections.singletonList(classValidator));
+    }
+
+    /**
+     * Constructor for a symbol table that spans several files, one validator per top level type
+     *
+     * @param classSimpleToQualifiedName simple class names mapped to their fully qualified names
+     * @param classValidators            the validators of every top level type, in visit order
+     */
+    public SymbolTable(Map<String, String> classSimpleToQualifiedName, List<ASTClassValidator> classValidators) {
+        this.interner = new SymbolInterner();
+        this.typeRegistry = new TypeRegistry(interner);
+        this.lookups = new LookupCounters();
+        this.classes = new IntObjectMap<>();
+        this.validTypes = new IntObjectMap<>();
+        this.rootValidators = new IdentityHashMap<>();
+        this.frozen = false;
+        this.parent = null;
+        this.taskTypes = null;
+        this.taskScopes = null;
         this.classSimpleToQualifiedName = classSimpleToQualifiedName;
 
         for (Map.Entry<String, String> entry : classSimpleToQualifiedName.entrySet()) {
-            classFieldsMethodsParamsMap.put(entry.getValue(), new ClassProperties(entry.getValue()));
+            addNewClass(new ClassProperties(entry.getValue(), interner));
+        }
+
+        this.validator = classValidators.isEmpty() ? null : classValidators.get(0);
+        for (ASTClassValidator classValidator : classValidators) {
+            rootValidators.put(classValidator.getRootNode(), classValidator);
+        }
+    }
+
+    /**
+     * Copy constructor for a frozen snapshot. Valid types recorded in the source's overlays, and
+     * then in the given task overlays in order, are merged into the snapshot's own.
+     */
+    private SymbolTable(SymbolTable source, List<SymbolTable> taskOverlays) {
+        this.interner = source.interner;
+        this.typeRegistry = source.typeRegistry;
+        this.lookups = source.lookups;
+        this.classes = new IntObjectMap<>(source.classes.size());
+        for (int entry = 0; entry < source.classes.entryCount(); entry++) {
+            if (source.classes.keyAt(entry) != IntHashIndex.NONE) {
+                classes.put(source.classes.keyAt(entry), source.classes.valueAt(entry).freeze());
+            }
+        }
+        this.classSimpleToQualifiedName = Collections.unmodifiableMap(new HashMap<>(source.classSimpleToQualifiedName));
+        this.validTypes = new IntObjectMap<>(source.validTypes.size());
+        copyValidTypes(source.validTypes, validTypes);
+        for (IntObjectMap<IntSet> sourceOverlay : source.overlays) {
+            copyValidTypes(sourceOverlay, validTypes);
+        }
+        for (SymbolTable taskOverlay : taskOverlays) {
+            copyValidTypes(taskOverlay.taskTypes, validTypes);
+        }
+        this.validator = source.validator;
+        this.rootValidators = Collections.unmodifiableMap(new IdentityHashMap<>(source.rootValidators));
+        this.classpathIndex = source.classpathIndex;
+        this.frozen = true;
+        this.parent = null;
+        this.taskTypes = null;
+        this.taskScopes = null;
+    }
+
+    /**
+     * Constructor for a task overlay of a frozen table, which shares everything with it but
+     * records valid types and opens scopes of its own
+     */
+    private SymbolTable(SymbolTable frozen, IntObjectMap<IntSet> taskTypes) {
+        this.interner = frozen.interner;
+        this.typeRegistry = frozen.typeRegistry;
+        this.lookups = frozen.lookups;
+        this.classes = frozen.classes;
+        this.classSimpleToQualifiedName = frozen.classSimpleToQualifiedName;
+        this.validTypes = frozen.validTypes;
+        this.validator = frozen.validator;
+        this.rootValidators = frozen.rootValidators;
+        this.classpathIndex = frozen.classpathIndex;
+        this.frozen = true;
+        this.parent = null;
+        this.taskTypes = taskTypes;
+        this.taskScopes = new LocalScopes();
+    }
+
+    /**
+     * Constructor for a fragment of parent, which shares its names and validators but starts
+     * without members
+     */
+    private SymbolTable(SymbolTable parent, boolean fragment) {
+        this.interner = parent.interner;
+        this.typeRegistry = parent.typeRegistry;
+        this.lookups = parent.lookups;
+        this.classes = new IntObjectMap<>();
+        this.classSimpleToQualifiedName = parent.classSimpleToQualifiedName;
+        this.validTypes = new IntObjectMap<>();
+        this.validator = parent.validator;
+        this.rootValidators = parent.rootValidators;
+        this.classpathIndex = parent.classpathIndex;
+        this.frozen = false;
+        this.parent = parent;
+        this.taskTypes = null;
+        this.taskScopes = null;
+    }
+
+    /**
+     * Start a fragment that collects the members of some of this table's units. Fragments are
+     * filled by separate threads while this table is left alone, then merged back in with
+     * {@link #merge(SymbolTable)}.
+     *
+     * @return an empty table that only accepts members of classes this table declares
+     */
+    public SymbolTable newFragment() {
+        checkMutable();
+        return new SymbolTable(this, true);
+    }
+
+    /**
+     * Add everything collected by a fragment, as if its units were visited after the units
+     * already merged. Merging fragments in the order of their units gives the same table as
+     * visiting the units one after another. The fragment must not be used afterwards.
+     *
+     * @param fragment a fragment of this table, or of the table this fragment belongs to
+     */
+    public void merge(SymbolTable fragment) {
+        checkMutable();
+        for (int entry = 0; entry < fragment.classes.entryCount(); entry++) {
+            int classId = fragment.classes.keyAt(entry);
+            if (classId == IntHashIndex.NONE) {
+                continue;
+            }
+            ClassProperties properties = classes.get(classId);
+            if (properties == null) {
+                classes.put(classId, fragment.classes.valueAt(entry));
+                continue;
+            }
+            properties.addAll(fragment.classes.valueAt(entry));
+        }
+        for (int entry = 0; entry < fragment.validTypes.entryCount(); entry++) {
+            int classId = fragment.validTypes.keyAt(entry);
+            if (classId == IntHashIndex.NONE) {
+                continue;
+            }
+            IntSet classTypes = validTypes.get(classId);
+            if (classTypes == null) {
+                validTypes.put(classId, fragment.validTypes.valueAt(entry));
+                continue;
+            }
+            IntSet fragmentTypes = fragment.validTypes.valueAt(entry);
+            for (int type = 0; type < fragmentTypes.entryCount(); type++) {
+                if (fragmentTypes.keyAt(type) != IntHashIndex.NONE) {
+                    classTypes.add(fragmentTypes.keyAt(type));
+                }
+            }
+        }
+    }
+
+    private static void copyValidTypes(IntObjectMap<IntSet> from, IntObjectMap<IntSet> to) {
+        for (int entry = 0; entry < from.entryCount(); entry++) {
+            int classId = from.keyAt(entry);
+            if (classId == IntHashIndex.NONE) {
+                continue;
+            }
+            IntSet classTypes = to.get(classId);
+            if (classTypes == null) {
+                to.put(classId, new IntSet(from.valueAt(entry)));
+            } else {
+                IntSet fromTypes = from.valueAt(entry);
+                for (int type = 0; type < fromTypes.entryCount(); type++) {
+                    if (fromTypes.keyAt(type) != IntHashIndex.NONE) {
+                        classTypes.add(fromTypes.keyAt(type));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * End the build phase, or, on a frozen table, merge the valid types every thread recorded in
+     * its overlay. The snapshot shares this table's interner, and must be handed to other threads
+     * the usual safe way, for example by submitting the tasks that read it to an executor after it
+     * is created.
+     * <p>
+     * Call it on a frozen table once the threads checking against it are done. The overlays are
+     * dropped once merged, along with the calling thread's overlay and scopes, so valid types
+     * recorded on this table afterwards are not in any snapshot.
+     *
+     * @return an immutable snapshot of this table, with every index sized to fit and the valid
+     * types of every thread's overlay
+     */
+    public SymbolTable freeze() {
+        SymbolTable snapshot = new SymbolTable(this, Collections.emptyList());
+        overlays.clear();
+        overlay.remove();
+        scopes.remove();
+        return snapshot;
+    }
+
+    /**
+     * Start an overlay for one check task. The overlay answers like this table, except that the
+     * valid types the task records, and the scopes it opens, are its own rather than its thread's,
+     * so what the task sees does not depend on which thread runs it or on what ran there before.
+     * The overlay is used by one thread at a time.
+     *
+     * @return an empty overlay of this frozen table
+     */
+    public SymbolTable newOverlay() {
+        if (!frozen || taskTypes != null) {
+            throw new IllegalStateException("Only a frozen symbol table has task overlays");
+        }
+        return new SymbolTable(this, new IntObjectMap<>());
+    }
+
+    /**
+     * Merge the valid types recorded in task overlays, in the order given, so the merged table is
+     * the same however the tasks were scheduled. Call once the tasks are done.
+     *
+     * @param taskOverlays overlays from newOverlay of this table
+     * @return a frozen snapshot whose valid types include every task overlay
+     */
+    public SymbolTable mergeOverlays(List<SymbolTable> taskOverlays) {
+        return new SymbolTable(this, taskOverlays);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        if (frozen) {
+            throw new IllegalStateException("Symbol table is frozen");
+        }
+    }
+
+    /**
+     * A fragment creates its part of a class the first time a member of it is added
+     */
+    private ClassProperties getWritableClassProperties(String classFQN) {
+        ClassProperties properties = getClassProperties(classFQN);
+        if (properties == null && parent != null && parent.getClassProperties(classFQN) != null) {
+            properties = new ClassProperties(classFQN, interner);
+            classes.put(interner.intern(classFQN), properties);
         }
+        return properties;
+    }
+
+    private ClassProperties getClassProperties(String classFQN) {
+        return classes.get(interner.lookup(classFQN));
+    }
+
+    /**
+     * @param classId interned fully qualified class name
+     * @return the properties of the class, or null if there is no such class
+     */
+    public ClassProperties getClassProperties(int classId) {
+        return classes.get(classId);
+    }
+
+    IntObjectMap<ClassProperties> getClasses() {
+        return classes;
+    }
+
+    IntObjectMap<IntSet> getValidTypeIds() {
+        return validTypes;
+    }
+
+    /**
+     * @return the index library types are resolved against, or null if only the checked sources'
+     * own types and imports are known
+     */
+    public ClasspathIndex getClasspathIndex() {
+        return classpathIndex;
+    }
+
+    public void setClasspathIndex(ClasspathIndex classpathIndex) {
+        checkMutable();
+        this.classpathIndex = classpathIndex;
+    }
+
+    /**
+     * @return the interner every name in this table is interned with
+     */
+    public SymbolInterner getInterner() {
+        return interner;
+    }
 
-        this.validator = classValidator;
+    /**
+     * @return the registry of the declared types of this table's members, shared with its frozen
+     * copies and fragments
+     */
+    public TypeRegistry getTypeRegistry() {
+        return typeRegistry;
     }
 
     @Override
     public String getFieldType(String classFQN, String fieldName) {
-        ClassProperties classFmp = classFieldsMethodsParamsMap.get(classFQN);
-        return classFmp.getFieldTypeByName(fieldName);
-
+        ClassProperties classFmp = getClassProperties(classFQN);
+        return lookups.record(Lookup.FIELD_TYPE, classFmp == null ? null : classFmp.getFieldTypeByName(fieldName));
     }
 
     @Override
     public String getMethodReturnType(String classFQN, String methodName) {
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        return classFPM.getMethodTypeByName(methodName);
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.METHOD_RETURN_TYPE,
+                classFPM == null ? null : classFPM.getMethodTypeByName(methodName));
+    }
+
+    /**
+     * Resolve an overloaded method by the signature it is declared with
+     *
+     * @param signature the interned types of the overload's parameters, as from getSignature
+     * @return the return type of the overload, or null if the class has no such overload
+     */
+    public String getMethodReturnType(String classFQN, String methodName, int[] signature) {
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.METHOD_RETURN_TYPE, classFPM == null ? null
+                : interner.name(classFPM.getMethodType(interner.lookup(methodName), signature)));
+    }
+
+    /**
+     * Resolve an overloaded method by the number of arguments it is called with
+     *
+     * @param arity the number of arguments
+     * @return the return type of the overload taking that many arguments, the last declared if
+     * several do, or null if none does
+     */
+    public String getMethodReturnType(String classFQN, String methodName, int arity) {
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.METHOD_RETURN_TYPE, classFPM == null ? null
+                : interner.name(classFPM.getMethodTypeByArity(interner.lookup(methodName), arity)));
+    }
+
+    /**
+     * @param signature the interned types of the overload's parameters, as from getSignature
+     * @return the type of the parameter of that overload, or null if it has no such parameter
+     */
+    public String getParameterType(String classFQN, String methodName, int[] signature, String paramName) {
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.PARAMETER_TYPE, classFPM == null ? null
+                : interner.name(classFPM.getParamType(interner.lookup(methodName), signature, interner.lookup(paramName))));
+    }
+
+    /**
+     * @param signature the interned types of the overload's parameters, as from getSignature
+     * @return true if that overload has a parameter of that name
+     */
+    public boolean parameterExists(String classFQN, String methodName, int[] signature, String paramName) {
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.PARAMETER_EXISTS, classFPM != null && classFPM.getParamType(
+                interner.lookup(methodName), signature, interner.lookup(paramName)) != SymbolInterner.NONE);
+    }
+
+    /**
+     * @param md a method declaration
+     * @return the interned types of its parameters, in order, which identify the overload
+     */
+    @SuppressWarnings("unchecked")
+    public int[] getSignature(MethodDeclaration md) {
+        List<SingleVariableDeclaration> parameters = md.parameters();
+        int[] signature = new int[parameters.size()];
+        for (int param = 0; param < signature.length; param++) {
+            SingleVariableDeclaration declaration = parameters.get(param);
+            signature[param] = typeRegistry.getId(declaration.getType(), declaration.getExtraDimensions());
+        }
+        return signature;
     }
 
     @Override
     public String getParameterType(String classFQN, String methodName, String paramName) {
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        return classFPM.getParamTypeByName(methodName, paramName);
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.PARAMETER_TYPE,
+                classFPM == null ? null : classFPM.getParamTypeByName(methodName, paramName));
     }
 
     @Override
     public String getLocalVariableType(String classFQN, String methodName, String localVariableName) {
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        return classFPM.getLocalVariableTypeByName(methodName, localVariableName);
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.LOCAL_VARIABLE_TYPE,
+                classFPM == null ? null : classFPM.getLocalVariableTypeByName(methodName, localVariableName));
     }
 
     @Override
     public boolean classExists(String classFQN) {
-        return classFieldsMethodsParamsMap.get(classFQN) != null;
+        return lookups.record(Lookup.CLASS_EXISTS, getClassProperties(classFQN) != null);
     }
 
     @Override
     public boolean methodExists(String classFQN, String methodName) {
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        if (classFPM == null) {
-            return false;
-        }
-
-        Map<ASTNameType, List<ASTNameType>> methodMap = classFPM.getMethodParamsMap();
-        for (Map.Entry<ASTNameType, List<ASTNameType>> entry : methodMap.entrySet()) {
-            if (entry.getKey().getName().equals(methodName)) {
-                return true;
-            }
-        }
-        return false;
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.METHOD_EXISTS, classFPM != null && classFPM.hasMethod(methodName));
     }
 
     @Override
     public boolean parameterExists(String classFQN, String methodName, String paramName) {
-
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        if (classFPM == null) {
-            return false;
-        }
-        return findMethodProperty(classFQN, methodName, paramName, classFPM.getMethodParamsMap());
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.PARAMETER_EXISTS, classFPM != null && classFPM.hasParam(methodName, paramName));
     }
 
     @Override
     public boolean fieldExists(String classFQN, String fieldName) {
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        if (classFPM == null) {
-            return false;
-        }
-        List<ASTNameType> fields = classFPM.getFields();
-        for (ASTNameType field : fields) {
-            if (field.getName().equals(fieldName)) {
-                return true;
-            }
-        }
-        return false;
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.FIELD_EXISTS, classFPM != null && classFPM.hasField(fieldName));
     }
 
     @Override
     public boolean localVariableExists(String classFQN, String methodName, String localVariableName) {
+        ClassProperties classFPM = getClassProperties(classFQN);
+        return lookups.record(Lookup.LOCAL_VARIABLE_EXISTS,
+                classFPM != null && classFPM.hasLocalVariable(methodName, localVariableName));
+    }
 
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        if (classFPM == null) {
-            return false;
+    public boolean validTypeExists(String classFQN, String type) {
+        int classId = interner.lookup(classFQN);
+        int typeId = interner.lookup(type);
+        IntSet classTypes = validTypes.get(classId);
+        if (classTypes != null && classTypes.contains(typeId)) {
+            return lookups.record(Lookup.VALID_TYPE_EXISTS, true);
+        }
+        if (frozen) {
+            IntSet threadTypes = overlay().get(classId);
+            return lookups.record(Lookup.VALID_TYPE_EXISTS, threadTypes != null && threadTypes.contains(typeId));
         }
-        return findMethodProperty(classFQN, methodName, localVariableName, classFPM.getLocalVariablesMap());
+        return lookups.record(Lookup.VALID_TYPE_EXISTS, false);
+    }
 
+    /**
+     * Take a snapshot of the size of this table and of the lookups made so far. Lookups are
+     * counted together for a table, its fragments and its frozen copies. Valid types recorded in
+     * the overlays of a frozen table are counted once they are merged.
+     *
+     * @return the stats of every class and the lookup counts
+     */
+    public SymbolTableStats getStats() {
+        List<SymbolTableStats.ClassStats> classStats = new ArrayList<>(classes.size());
+        for (int entry = 0; entry < classes.entryCount(); entry++) {
+            int classId = classes.keyAt(entry);
+            if (classId == IntHashIndex.NONE) {
+                continue;
+            }
+            ClassProperties properties = classes.valueAt(entry);
+            IntSet classTypes = validTypes.get(classId);
+            classStats.add(new SymbolTableStats.ClassStats(properties.getClassFQN(), properties.getFieldCount(),
+                    properties.getMethodCount(), properties.getParamCount(), properties.getLocalVariableCount(),
+                    classTypes == null ? 0 : classTypes.size(),
+                    properties.estimateBytes() + (classTypes == null ? 0 : classTypes.estimateBytes())));
+        }
+        return new SymbolTableStats(classStats, interner.size(), SymbolTableStats.estimateNameBytes(interner),
+                typeRegistry.size(), lookups.getHits(), lookups.getMisses());
     }
 
-    public boolean validTypeExists(String classFQN, String type) {
-        if (getValidTypes().get(classFQN) == null) {
-            return false;
-        } else return getValidTypes().get(classFQN).contains(type);
+    /**
+     * Start counting lookups from zero again, for this table, its fragments and its frozen copies
+     */
+    public void resetLookupCounts() {
+        lookups.reset();
+    }
 
+    /**
+     * @return the valid types recorded by this task overlay, or by the calling thread
+     */
+    private IntObjectMap<IntSet> overlay() {
+        return taskTypes != null ? taskTypes : overlay.get();
     }
 
-    private boolean findMethodProperty(String classFQN, String methodName, String propName,
-                                       Map<ASTNameType, List<ASTNameType>> propMap) {
-        ClassProperties classFPM = classFieldsMethodsParamsMap.get(classFQN);
-        if (classFPM == null) {
-            return false;
-        }
+    /**
+     * @return the scopes of this task overlay, or of the calling thread
+     */
+    private LocalScopes scopes() {
+        return taskScopes != null ? taskScopes : scopes.get();
+    }
 
-        for (Map.Entry<ASTNameType, List<ASTNameType>> entry : propMap.entrySet()) {
-            if (entry.getKey().getName().equals(methodName)) {
-                for (ASTNameType nameType : entry.getValue()) {
-                    if (nameType.getName().equals(propName)) return true;
-                }
-            }
+    /**
+     * Open a block scope for the calling thread. Scopes, and the locals declared in them, belong
+     * to the thread that opened them, or to the task overlay they were opened in, so they may be
+     * used on a frozen table.
+     */
+    public void pushScope() {
+        scopes().push();
+    }
+
+    /**
+     * Close the calling thread's innermost scope, taking the locals declared in it out of scope
+     */
+    public void popScope() {
+        scopes().pop();
+    }
+
+    /**
+     * Close every scope the calling thread has open, for example before visiting another file.
+     * The thread's scopes are dropped until it opens one again.
+     */
+    public void clearScopes() {
+        if (taskScopes != null) {
+            taskScopes.clear();
+        } else {
+            scopes.remove();
         }
-        return false;
     }
 
+    /**
+     * Declare a local in the calling thread's innermost scope, shadowing fields, parameters and
+     * locals of outer scopes with the same name
+     */
     @Override
     public ISymbolTable addLocal(String name, String type) {
-        return null;
+        scopes().add(interner.intern(name), interner.intern(type));
+        return this;
     }
 
+    /**
+     * Take the innermost local of a name out of scope before its scope closes
+     */
     @Override
     public ISymbolTable removeLocal(String name) {
-        return null;
+        scopes().remove(interner.lookup(name));
+        return this;
+    }
+
+    /**
+     * @param name name of a local
+     * @return the type of the innermost local of that name in scope on the calling thread, or null
+     */
+    public String getScopedLocalType(String name) {
+        return interner.name(scopes().lookup(interner.lookup(name)));
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("SymbolTable\n{\n");
-        for (Map.Entry<String, ClassProperties> entry : classFieldsMethodsParamsMap.entrySet()) {
-            sb.append(entry.getValue().toString());
+        for (ClassProperties classProperties : getClassFieldsMethodsParamsMap().values()) {
+            sb.append(classProperties.toString());
         }
         sb.append("\n\tValidTypes: ");
         sb.append(getValidTypes());
@@ -165,17 +605,78 @@ public class SymbolTable implements ISymbolTable {
         return sb.toString();
     }
 
+    /**
+     * @return every class mapped by its fully qualified name, built from the index on every call
+     */
     public Map<String, ClassProperties> getClassFieldsMethodsParamsMap() {
-        return classFieldsMethodsParamsMap;
+        Map<String, ClassProperties> classMap = new LinkedHashMap<>();
+        for (int entry = 0; entry < classes.entryCount(); entry++) {
+            if (classes.keyAt(entry) != IntHashIndex.NONE) {
+                classMap.put(interner.name(classes.keyAt(entry)), classes.valueAt(entry));
+            }
+        }
+        return classMap;
     }
 
+    /**
+     * Add a class, replacing any class with the same name
+     *
+     * @param classProperties a class whose names are interned with getInterner()
+     */
     public void addNewClass(ClassProperties classProperties) {
-        classFieldsMethodsParamsMap.put(classProperties.getClassFQN(), classProperties);
+        checkMutable();
+        classes.put(interner.intern(classProperties.getClassFQN()), classProperties);
+    }
+
+    /**
+     * Add the classes and validators collected from one more file
+     *
+     * @param simpleToQualifiedName simple class names declared by the file mapped to their FQNs
+     * @param classValidators       the validators of the file's top level types
+     */
+    public void addDeclarations(Map<String, String> simpleToQualifiedName, List<ASTClassValidator> classValidators) {
+        checkMutable();
+        for (Map.Entry<String, String> entry : simpleToQualifiedName.entrySet()) {
+            classSimpleToQualifiedName.put(entry.getKey(), entry.getValue());
+            if (!classExists(entry.getValue())) {
+                addNewClass(new ClassProperties(entry.getValue(), interner));
+            }
+        }
+        for (ASTClassValidator classValidator : classValidators) {
+            rootValidators.put(classValidator.getRootNode(), classValidator);
+        }
+        if (validator == null && !classValidators.isEmpty()) {
+            validator = classValidators.get(0);
+        }
+    }
+
+    /**
+     * Remove the classes, valid types and validators collected from a file, for example when
+     * the file has changed and is about to be collected again
+     *
+     * @param simpleToQualifiedName simple class names declared by the file mapped to their FQNs
+     * @param classValidators       the validators of the file's top level types
+     */
+    public void removeDeclarations(Map<String, String> simpleToQualifiedName, List<ASTClassValidator> classValidators) {
+        checkMutable();
+        for (Map.Entry<String, String> entry : simpleToQualifiedName.entrySet()) {
+            classSimpleToQualifiedName.remove(entry.getKey(), entry.getValue());
+            int classId = interner.lookup(entry.getValue());
+            classes.remove(classId);
+            validTypes.remove(classId);
+        }
+        for (ASTClassValidator classValidator : classValidators) {
+            rootValidators.remove(classValidator.getRootNode());
+        }
+        if (classValidators.contains(validator)) {
+            validator = rootValidators.isEmpty() ? null : rootValidators.values().iterator().next();
+        }
     }
 
     public void addField(String curClassName, ASTNameType field) {
+        checkMutable();
 
-        ClassProperties classFMP = classFieldsMethodsParamsMap.get(curClassName);
+        ClassProperties classFMP = getWritableClassProperties(curClassName);
         if (classFMP == null) {
             logger.error("Class not found");
             return;
@@ -185,7 +686,8 @@ public class SymbolTable implements ISymbolTable {
 
     public void addMethod(String curClassName, ASTNameType method, List<ASTNameType> params,
                           List<ASTNameType> localVariables) {
-        ClassProperties classFMP = classFieldsMethodsParamsMap.get(curClassName);
+        checkMutable();
+        ClassProperties classFMP = getWritableClassProperties(curClassName);
         classFMP.addMethod(method, params, localVariables);
     }
 
@@ -193,23 +695,71 @@ public class SymbolTable implements ISymbolTable {
         return classSimpleToQualifiedName;
     }
 
+    /**
+     * Record that a type may be used in a class. On a frozen table the type goes into the calling
+     * thread's overlay, or into the task overlay this table is.
+     *
+     * @param curClassName fully qualified name of the class
+     * @param type         simple name of the type used
+     */
     public void addValidType(String curClassName, String type) {
-        Set<String> classTypes;
-        if (validTypes.get(curClassName) == null) {
-            classTypes = new HashSet<>();
-        } else classTypes = validTypes.get(curClassName);
-
-        classTypes.add(type);
-
-        validTypes.put(curClassName, classTypes);
+        int classId = interner.intern(curClassName);
+        int typeId = interner.intern(type);
+        IntSet baseTypes = validTypes.get(classId);
+        if (baseTypes != null && baseTypes.contains(typeId)) {
+            return;
+        }
+        IntObjectMap<IntSet> types = frozen ? overlay() : validTypes;
+        IntSet classTypes = types.get(classId);
+        if (classTypes == null) {
+            classTypes = new IntSet();
+            types.put(classId, classTypes);
+        }
+        classTypes.add(typeId);
     }
 
+    /**
+     * @return the valid types of every class, built from the index on every call. On a frozen
+     * table this includes what the calling thread, or this task overlay, recorded, but not other
+     * overlays.
+     */
     public Map<String, Set<String>> getValidTypes() {
-        return validTypes;
+        Map<String, Set<String>> validTypeMap = new LinkedHashMap<>();
+        addValidTypes(validTypes, validTypeMap);
+        if (frozen) {
+            addValidTypes(overlay(), validTypeMap);
+        }
+        return validTypeMap;
+    }
+
+    private void addValidTypes(IntObjectMap<IntSet> from, Map<String, Set<String>> to) {
+        for (int entry = 0; entry < from.entryCount(); entry++) {
+            if (from.keyAt(entry) == IntHashIndex.NONE) {
+                continue;
+            }
+            IntSet classTypes = from.valueAt(entry);
+            Set<String> types = to.computeIfAbsent(interner.name(from.keyAt(entry)), name -> new LinkedHashSet<>());
+            for (int type = 0; type < classTypes.entryCount(); type++) {
+                if (classTypes.keyAt(type) != IntHashIndex.NONE) {
+                    types.add(interner.name(classTypes.keyAt(type)));
+                }
+            }
+        }
     }
 
 
     public ASTClassValidator getValidator() {
         return validator;
     }
+
+    /**
+     * Returns the validator of the file that declares the given top level type
+     *
+     * @param rootNode top level TypeDeclaration node
+     * @return the validator for that type, or the first validator if the type is unknown
+     */
+    public ASTClassValidator getValidator(ASTNode rootNode) {
+        ASTClassValidator rootValidator = rootValidators.get(rootNode);
+        return rootValidator == null ? validator : rootValidator;
+    }
 }
@@ -0,0 +1,250 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Writes a symbol table in the binary format MappedSymbolTable reads. Every name is stored once
+ * and referred to by id, and every lookup structure is laid out so it can be searched where it
+ * lies in the file. All numbers are big-endian ints, and offsets are from the start of the file.
+ * <pre>
+ * header   magic, version, file length, strings offset, classes offset, names offset,
+ *          CRC32 of everything after the header
+ * strings  count, slot count, slots (string id or -1, probed by hash), count + 1 byte offsets,
+ *          the UTF-8 bytes of every string
+ * records  per class: field count, (name, type) sorted by name,
+ *          method count, (name, type, params offset, locals offset) sorted by name,
+ *          valid type count, valid types sorted,
+ *          with each method's params and locals before it as count, (name, type) sorted by name
+ * classes  count, slot count, slots of (class name id or -1, record offset), probed by id
+ * names    count, (simple name, fully qualified name) sorted by simple name
+ * </pre>
+ */
+public class SymbolTableFile {
+
+    static final int MAGIC = 0x54435354; // "TCST"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 7 * 4;
+
+    private SymbolTableFile() {
+    }
+
+    /**
+     * Write a symbol table to file, replacing it atomically. Valid types a frozen table recorded
+     * in per-thread overlays are only written once the overlays are merged.
+     *
+     * @param symbolTable the table to write
+     * @param file        where to write it
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(SymbolTable symbolTable, Path file) throws IOException {
+        SymbolInterner interner = symbolTable.getInterner();
+        for (Map.Entry<String, String> entry : symbolTable.getClassSimpleToQualifiedName().entrySet()) {
+            interner.intern(entry.getKey());
+            interner.intern(entry.getValue());
+        }
+
+        Body body = new Body();
+        int stringsOffset = body.position();
+        writeStrings(body, interner);
+        int classesOffset = writeClasses(body, symbolTable);
+        int namesOffset = body.position();
+        writeNames(body, symbolTable.getClassSimpleToQualifiedName(), interner);
+
+        byte[] bytes = body.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temp)) {
+            DataOutputStream out = new DataOutputStream(stream);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(HEADER_SIZE + bytes.length);
+            out.writeInt(stringsOffset);
+            out.writeInt(classesOffset);
+            out.writeInt(namesOffset);
+            out.writeInt((int) crc.getValue());
+            out.write(bytes);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeStrings(Body out, SymbolInterner interner) throws IOException {
+        int count = interner.size();
+        int slotCount = slotCount(count);
+        int[] slots = new int[slotCount];
+        Arrays.fill(slots, IntHashIndex.NONE);
+        byte[][] utf8 = new byte[count][];
+        for (int id = 0; id < count; id++) {
+            String name = interner.name(id);
+            utf8[id] = name.getBytes(StandardCharsets.UTF_8);
+            int slot = hash(name) & (slotCount - 1);
+            while (slots[slot] != IntHashIndex.NONE) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = id;
+        }
+
+        out.writeInt(count);
+        out.writeInt(slotCount);
+        for (int slot : slots) {
+            out.writeInt(slot);
+        }
+        int offset = 0;
+        for (byte[] name : utf8) {
+            out.writeInt(offset);
+            offset += name.length;
+        }
+        out.writeInt(offset);
+        for (byte[] name : utf8) {
+            out.write(name);
+        }
+    }
+
+    private static int writeClasses(Body out, SymbolTable symbolTable) throws IOException {
+        IntObjectMap<ClassProperties> classes = symbolTable.getClasses();
+        int[] classIds = new int[classes.size()];
+        int[] recordOffsets = new int[classes.size()];
+        int count = 0;
+        for (int entry = 0; entry < classes.entryCount(); entry++) {
+            if (classes.keyAt(entry) == IntHashIndex.NONE) {
+                continue;
+            }
+            classIds[count] = classes.keyAt(entry);
+            recordOffsets[count] = writeRecord(out, classes.valueAt(entry),
+                    symbolTable.getValidTypeIds().get(classes.keyAt(entry)));
+            count++;
+        }
+
+        int slotCount = slotCount(count);
+        int[] slots = new int[slotCount * 2];
+        Arrays.fill(slots, IntHashIndex.NONE);
+        for (int i = 0; i < count; i++) {
+            int slot = hash(classIds[i]) & (slotCount - 1);
+            while (slots[slot * 2] != IntHashIndex.NONE) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot * 2] = classIds[i];
+            slots[slot * 2 + 1] = recordOffsets[i];
+        }
+
+        int classesOffset = out.position();
+        out.writeInt(count);
+        out.writeInt(slotCount);
+        for (int slot : slots) {
+            out.writeInt(slot);
+        }
+        return classesOffset;
+    }
+
+    private static int writeRecord(Body out, ClassProperties properties, IntSet validTypes) throws IOException {
+        IntIntMap methodTypes = properties.getMethodTypes();
+        int[] methods = sortedKeys(methodTypes);
+        int[] paramOffsets = new int[methods.length];
+        int[] localOffsets = new int[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            paramOffsets[i] = out.position();
+            writePairs(out, properties.getParamTypes().get(methods[i]));
+            localOffsets[i] = out.position();
+            writePairs(out, properties.getLocalVariableTypes().get(methods[i]));
+        }
+
+        int recordOffset = out.position();
+        writePairs(out, properties.getFieldTypes());
+        out.writeInt(methods.length);
+        for (int i = 0; i < methods.length; i++) {
+            out.writeInt(methods[i]);
+            out.writeInt(methodTypes.get(methods[i]));
+            out.writeInt(paramOffsets[i]);
+            out.writeInt(localOffsets[i]);
+        }
+        int[] types = validTypes == null ? new int[0] : sortedKeys(validTypes);
+        out.writeInt(types.length);
+        for (int type : types) {
+            out.writeInt(type);
+        }
+        return recordOffset;
+    }
+
+    private static void writePairs(Body out, IntIntMap map) throws IOException {
+        if (map == null) {
+            out.writeInt(0);
+            return;
+        }
+        int[] keys = sortedKeys(map);
+        out.writeInt(keys.length);
+        for (int key : keys) {
+            out.writeInt(key);
+            out.writeInt(map.get(key));
+        }
+    }
+
+    private static void writeNames(Body out, Map<String, String> simpleToQualifiedName,
+                                   SymbolInterner interner) throws IOException {
+        IntIntMap names = new IntIntMap(simpleToQualifiedName.size());
+        for (Map.Entry<String, String> entry : simpleToQualifiedName.entrySet()) {
+            names.put(interner.lookup(entry.getKey()), interner.lookup(entry.getValue()));
+        }
+        writePairs(out, names);
+    }
+
+    private static int[] sortedKeys(IntHashIndex index) {
+        int[] keys = new int[index.size()];
+        int count = 0;
+        for (int entry = 0; entry < index.entryCount(); entry++) {
+            if (index.keyAt(entry) != IntHashIndex.NONE) {
+                keys[count++] = index.keyAt(entry);
+            }
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    /**
+     * @return a power of two at least twice count, so probes stay short
+     */
+    static int slotCount(int count) {
+        return Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1;
+    }
+
+    static int hash(String name) {
+        return hash(name.hashCode());
+    }
+
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * The bytes after the header, tracking positions as file offsets
+     */
+    private static class Body extends DataOutputStream {
+
+        Body() {
+            super(new ByteArrayOutputStream());
+        }
+
+        int position() {
+            return HEADER_SIZE + size();
+        }
+
+        byte[] toByteArray() {
+            return ((ByteArrayOutputStream) out).toByteArray();
+        }
+    }
+}
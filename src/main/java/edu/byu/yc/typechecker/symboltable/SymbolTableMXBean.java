@@ -0,0 +1,48 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * The stats of the symbol table a long running checker holds, as an MXBean, so they can be read
+ * with jconsole or any other JMX client. Every attribute is read from a fresh snapshot.
+ */
+public interface SymbolTableMXBean {
+
+    int getClassCount();
+
+    long getFieldCount();
+
+    long getMethodCount();
+
+    long getParameterCount();
+
+    long getLocalVariableCount();
+
+    long getValidTypeCount();
+
+    int getInternedNameCount();
+
+    int getDistinctTypeCount();
+
+    long getEstimatedBytes();
+
+    /**
+     * @return the classes retaining the most heap, largest first
+     */
+    List<SymbolTableStats.ClassStats> getLargestClasses();
+
+    /**
+     * @return the number of lookups of each kind that found something
+     */
+    Map<String, Long> getLookupHits();
+
+    /**
+     * @return the number of lookups of each kind that found nothing
+     */
+    Map<String, Long> getLookupMisses();
+
+    void resetLookupCounts();
+}
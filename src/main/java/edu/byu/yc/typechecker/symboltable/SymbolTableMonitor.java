@@ -0,0 +1,173 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Publishes the stats of a symbol table over JMX. A snapshot is asked for on every read, so a
+ * checker that replaces its table, such as a CheckSession, is always monitored at its current one,
+ * and can take the snapshot under the lock it changes the table under. Before there is a table
+ * every count is zero.
+ */
+public class SymbolTableMonitor implements SymbolTableMXBean {
+
+    private static Logger logger = LoggerFactory.getLogger(SymbolTableMonitor.class);
+
+    public static final String DEFAULT_NAME = "edu.byu.yc.typechecker:type=SymbolTable";
+
+    private static final int LARGEST_CLASSES = 10;
+    private static final SymbolTableStats EMPTY = new SymbolTableStats(
+            Collections.<SymbolTableStats.ClassStats>emptyList(), 0, 0, 0,
+            Collections.<SymbolTableStats.Lookup, Long>emptyMap(), Collections.<SymbolTableStats.Lookup, Long>emptyMap());
+
+    private final Supplier<SymbolTableStats> stats;
+    private final Runnable resetLookupCounts;
+
+    /**
+     * @param stats             supplies a snapshot of the table to report on, or null if there
+     *                          is no table yet
+     * @param resetLookupCounts resets the lookup counts of the table
+     */
+    public SymbolTableMonitor(Supplier<SymbolTableStats> stats, Runnable resetLookupCounts) {
+        this.stats = stats;
+        this.resetLookupCounts = resetLookupCounts;
+    }
+
+    /**
+     * @param symbolTable a table that is not changed while it is monitored, such as a frozen one
+     */
+    public SymbolTableMonitor(SymbolTable symbolTable) {
+        this(symbolTable::getStats, symbolTable::resetLookupCounts);
+    }
+
+    /**
+     * Register a monitor with the platform MBean server under DEFAULT_NAME, replacing any monitor
+     * registered before it
+     *
+     * @param monitor the monitor to register
+     * @return the monitor, or null if it could not be registered
+     */
+    public static SymbolTableMonitor register(SymbolTableMonitor monitor) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DEFAULT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(monitor, name);
+            return monitor;
+        } catch (JMException e) {
+            logger.warn("Unable to register symbol table stats: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Unregister the monitor registered under DEFAULT_NAME, if there is one
+     */
+    public static void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DEFAULT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            logger.warn("Unable to unregister symbol table stats: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return a snapshot of the current table
+     */
+    public SymbolTableStats getStats() {
+        SymbolTableStats snapshot = stats.get();
+        return snapshot == null ? EMPTY : snapshot;
+    }
+
+    @Override
+    public int getClassCount() {
+        return getStats().getClassCount();
+    }
+
+    @Override
+    public long getFieldCount() {
+        return getStats().getFieldCount();
+    }
+
+    @Override
+    public long getMethodCount() {
+        return getStats().getMethodCount();
+    }
+
+    @Override
+    public long getParameterCount() {
+        return getStats().getParameterCount();
+    }
+
+    @Override
+    public long getLocalVariableCount() {
+        return getStats().getLocalVariableCount();
+    }
+
+    @Override
+    public long getValidTypeCount() {
+        return getStats().getValidTypeCount();
+    }
+
+    @Override
+    public int getInternedNameCount() {
+        return getStats().getInternedNameCount();
+    }
+
+    @Override
+    public int getDistinctTypeCount() {
+        return getStats().getDistinctTypeCount();
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return getStats().getEstimatedBytes();
+    }
+
+    @Override
+    public List<SymbolTableStats.ClassStats> getLargestClasses() {
+        return getStats().getLargestClasses(LARGEST_CLASSES);
+    }
+
+    @Override
+    public Map<String, Long> getLookupHits() {
+        return byName(getStats().getHits());
+    }
+
+    @Override
+    public Map<String, Long> getLookupMisses() {
+        return byName(getStats().getMisses());
+    }
+
+    private static Map<String, Long> byName(Map<SymbolTableStats.Lookup, Long> counts) {
+        Map<String, Long> byName = new LinkedHashMap<>();
+        for (Map.Entry<SymbolTableStats.Lookup, Long> entry : counts.entrySet()) {
+            byName.put(entry.getKey().name(), entry.getValue());
+        }
+        return byName;
+    }
+
+    @Override
+    public void resetLookupCounts() {
+        resetLookupCounts.run();
+    }
+}
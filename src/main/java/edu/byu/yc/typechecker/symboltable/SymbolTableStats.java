@@ -0,0 +1,254 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * A snapshot of the size of a symbol table: how many members each class has, an estimate of the
+ * heap each class's indexes retain, and how many of each kind of lookup found what they looked
+ * for. Names are interned once for the whole table, so the strings are counted once in the
+ * interner's total rather than in the classes that use them. Taking a snapshot walks every class
+ * once and never builds the table's String form.
+ */
+public class SymbolTableStats {
+
+    /**
+     * The lookups of ISymbolTable that are counted, and validTypeExists
+     */
+    public enum Lookup {
+        CLASS_EXISTS, FIELD_EXISTS, METHOD_EXISTS, PARAMETER_EXISTS, LOCAL_VARIABLE_EXISTS, VALID_TYPE_EXISTS,
+        FIELD_TYPE, METHOD_RETURN_TYPE, PARAMETER_TYPE, LOCAL_VARIABLE_TYPE
+    }
+
+    /**
+     * Estimated heap size of a String in the interner, beyond its characters, with compressed
+     * references and compact strings: the String, its byte array header, and its entry in the
+     * interner's map and name array
+     */
+    private static final int INTERNED_NAME_BYTES = 24 + 16 + 48;
+
+    private final List<ClassStats> classes;
+    private final int internedNames;
+    private final long internedNameBytes;
+    private final int distinctTypes;
+    private final Map<Lookup, Long> hits;
+    private final Map<Lookup, Long> misses;
+
+    public SymbolTableStats(List<ClassStats> classes, int internedNames, long internedNameBytes, int distinctTypes,
+                            Map<Lookup, Long> hits, Map<Lookup, Long> misses) {
+        this.classes = Collections.unmodifiableList(classes);
+        this.internedNames = internedNames;
+        this.internedNameBytes = internedNameBytes;
+        this.distinctTypes = distinctTypes;
+        this.hits = copy(hits);
+        this.misses = copy(misses);
+    }
+
+    private static Map<Lookup, Long> copy(Map<Lookup, Long> counts) {
+        Map<Lookup, Long> copy = new EnumMap<>(Lookup.class);
+        copy.putAll(counts);
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @param interner an interner
+     * @return an estimate of the heap the interner's names take
+     */
+    static long estimateNameBytes(SymbolInterner interner) {
+        long bytes = 0;
+        for (int id = 0; id < interner.size(); id++) {
+            bytes += INTERNED_NAME_BYTES + ((interner.name(id).length() + 7) & ~7);
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the stats of every class, in the order the table stores them
+     */
+    public List<ClassStats> getClasses() {
+        return classes;
+    }
+
+    /**
+     * @param count the number of classes to return
+     * @return the classes retaining the most heap, largest first
+     */
+    public List<ClassStats> getLargestClasses(int count) {
+        List<ClassStats> largest = new ArrayList<>(classes);
+        largest.sort(Comparator.comparingLong(ClassStats::getEstimatedBytes).reversed());
+        return largest.subList(0, Math.min(count, largest.size()));
+    }
+
+    public int getClassCount() {
+        return classes.size();
+    }
+
+    public long getFieldCount() {
+        long count = 0;
+        for (ClassStats stats : classes) {
+            count += stats.getFields();
+        }
+        return count;
+    }
+
+    public long getMethodCount() {
+        long count = 0;
+        for (ClassStats stats : classes) {
+            count += stats.getMethods();
+        }
+        return count;
+    }
+
+    public long getParameterCount() {
+        long count = 0;
+        for (ClassStats stats : classes) {
+            count += stats.getParameters();
+        }
+        return count;
+    }
+
+    public long getLocalVariableCount() {
+        long count = 0;
+        for (ClassStats stats : classes) {
+            count += stats.getLocalVariables();
+        }
+        return count;
+    }
+
+    public long getValidTypeCount() {
+        long count = 0;
+        for (ClassStats stats : classes) {
+            count += stats.getValidTypes();
+        }
+        return count;
+    }
+
+    public int getInternedNameCount() {
+        return internedNames;
+    }
+
+    public int getDistinctTypeCount() {
+        return distinctTypes;
+    }
+
+    /**
+     * @return an estimate of the heap retained by every class and the interned names
+     */
+    public long getEstimatedBytes() {
+        long bytes = internedNameBytes;
+        for (ClassStats stats : classes) {
+            bytes += stats.getEstimatedBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * @param lookup a kind of lookup
+     * @return the number of lookups of that kind that found a class, member or type
+     */
+    public long getHits(Lookup lookup) {
+        Long count = hits.get(lookup);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * @param lookup a kind of lookup
+     * @return the number of lookups of that kind that found nothing
+     */
+    public long getMisses(Lookup lookup) {
+        Long count = misses.get(lookup);
+        return count == null ? 0 : count;
+    }
+
+    public Map<Lookup, Long> getHits() {
+        return hits;
+    }
+
+    public Map<Lookup, Long> getMisses() {
+        return misses;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SymbolTableStats{classes=%d, fields=%d, methods=%d, parameters=%d, locals=%d, "
+                        + "validTypes=%d, names=%d, types=%d, estimatedKB=%.1f}",
+                getClassCount(), getFieldCount(), getMethodCount(), getParameterCount(), getLocalVariableCount(),
+                getValidTypeCount(), internedNames, distinctTypes, getEstimatedBytes() / 1024.0);
+    }
+
+    /**
+     * The size of one class of a symbol table. The getters make it readable as composite data
+     * over JMX.
+     */
+    public static class ClassStats {
+
+        private final String classFQN;
+        private final int fields;
+        private final int methods;
+        private final int parameters;
+        private final int localVariables;
+        private final int validTypes;
+        private final long estimatedBytes;
+
+        public ClassStats(String classFQN, int fields, int methods, int parameters, int localVariables,
+                          int validTypes, long estimatedBytes) {
+            this.classFQN = classFQN;
+            this.fields = fields;
+            this.methods = methods;
+            this.parameters = parameters;
+            this.localVariables = localVariables;
+            this.validTypes = validTypes;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        public String getClassFQN() {
+            return classFQN;
+        }
+
+        public int getFields() {
+            return fields;
+        }
+
+        public int getMethods() {
+            return methods;
+        }
+
+        public int getParameters() {
+            return parameters;
+        }
+
+        public int getLocalVariables() {
+            return localVariables;
+        }
+
+        public int getValidTypes() {
+            return validTypes;
+        }
+
+        /**
+         * @return an estimate of the heap retained by the class's indexes and its valid types
+         */
+        public long getEstimatedBytes() {
+            return estimatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "ClassStats{" +
+                    "classFQN='" + classFQN + '\'' +
+                    ", fields=" + fields +
+                    ", methods=" + methods +
+                    ", parameters=" + parameters +
+                    ", localVariables=" + localVariables +
+                    ", validTypes=" + validTypes +
+                    ", estimatedBytes=" + estimatedBytes +
+                    '}';
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package edu.byu.yc.typechecker.symboltable;
 
-import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.AnonymousClassDeclaration;
 import org.eclipse.jdt.core.dom.FieldDeclaration;
 import org.eclipse.jdt.core.dom.ImportDeclaration;
 import org.eclipse.jdt.core.dom.MethodDeclaration;
@@ -8,8 +9,9 @@ import org.eclipse.jdt.core.dom.SimpleType;
 import org.eclipse.jdt.core.dom.SingleVariableDeclaration;
 import org.eclipse.jdt.core.dom.Type;
 import org.eclipse.jdt.core.dom.TypeDeclaration;
+import org.eclipse.jdt.core.dom.TypeDeclarationStatement;
+import org.eclipse.jdt.core.dom.VariableDeclaration;
 import org.eclipse.jdt.core.dom.VariableDeclarationFragment;
-import org.eclipse.jdt.core.dom.VariableDeclarationStatement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,7 +53,7 @@ public class SymbolTableVisitor extends AbstractTypeCheckerVisitor {
         String fieldName = ASTUtilities.getFieldDeclarationName(fd);
 
         //AST nameType binding
-        ASTNameType fieldNameType = new ASTNameType(fieldName, fd.getType().toString());
+        ASTNameType fieldNameType = new ASTNameType(fieldName, getSymbolTable().getTypeRegistry().get(fd.getType()));
 
         getSymbolTable().addField(getCurClassFQN(), fieldNameType);
         return true;
@@ -68,8 +70,9 @@ public class SymbolTableVisitor extends AbstractTypeCheckerVisitor {
     @Override
     public boolean visit(MethodDeclaration md) {
 
+        TypeRegistry typeRegistry = getSymbolTable().getTypeRegistry();
         String methodName = md.getName().toString();
-        String methodType = md.getReturnType2().toString();
+        CanonicalType methodType = typeRegistry.get(md.getReturnType2(), md.getExtraDimensions());
         setCurMethodName(methodName);
 
         ASTNameType method = new ASTNameType(methodName, methodType);
@@ -81,30 +84,62 @@ public class SymbolTableVisitor extends AbstractTypeCheckerVisitor {
 
             for (SingleVariableDeclaration declaration : (List<SingleVariableDeclaration>) paramDeclarations) {
                 String paramName = declaration.getName().toString();
-                String paramType = declaration.getType().toString();
+                CanonicalType paramType = typeRegistry.get(declaration.getType(), declaration.getExtraDimensions());
                 ASTNameType paramNT = new ASTNameType(paramName, paramType);
                 params.add(paramNT);
             }
         }
 
-        List<ASTNode> statements = md.getBody().statements();
-
-        for (ASTNode statement : statements) {
-            if (statement instanceof VariableDeclarationStatement) {
-                VariableDeclarationStatement vd = ((VariableDeclarationStatement) statement);
-
-                if (vd.fragments().get(0) instanceof VariableDeclarationFragment) {
-                    VariableDeclarationFragment fragment = (VariableDeclarationFragment) vd.fragments().get(0);
-                    String variableName = fragment.getName().toString();
-
-                    ASTNameType localVariable = new ASTNameType(variableName, vd.getType().toString());
-                    localVariables.add(localVariable);
-                }
-            }
+        if (md.getBody() != null) {
+            md.getBody().accept(new LocalVariableCollector(typeRegistry, localVariables));
         }
 
         getSymbolTable().addMethod(getCurClassFQN(), method, params, localVariables);
         return true;
     }
 
-}
\ No newline at end of file
+    /**
+     * Collects every local declared in a method body, in nested blocks, loops and catch clauses
+     * included, but not those of methods of local or anonymous classes
+     */
+    private static class LocalVariableCollector extends ASTVisitor {
+
+        private final TypeRegistry typeRegistry;
+        private final List<ASTNameType> localVariables;
+
+        LocalVariableCollector(TypeRegistry typeRegistry, List<ASTNameType> localVariables) {
+            this.typeRegistry = typeRegistry;
+            this.localVariables = localVariables;
+        }
+
+        @Override
+        public boolean visit(VariableDeclarationFragment fragment) {
+            add(fragment);
+            return false;
+        }
+
+        @Override
+        public boolean visit(SingleVariableDeclaration declaration) {
+            add(declaration);
+            return false;
+        }
+
+        @Override
+        public boolean visit(TypeDeclarationStatement node) {
+            return false;
+        }
+
+        @Override
+        public boolean visit(AnonymousClassDeclaration node) {
+            return false;
+        }
+
+        private void add(VariableDeclaration declaration) {
+            Type type = ASTUtilities.getLocalVariableTypeNode(declaration);
+            if (type != null) {
+                CanonicalType canonical = typeRegistry.get(type, declaration.getExtraDimensions());
+                localVariables.add(new ASTNameType(declaration.getName().toString(), canonical));
+            }
+        }
+    }
+}
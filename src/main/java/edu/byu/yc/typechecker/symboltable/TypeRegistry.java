@@ -0,0 +1,242 @@
+package edu.byu.yc.typechecker.symboltable;
+
+import org.eclipse.jdt.core.dom.ArrayType;
+import org.eclipse.jdt.core.dom.Name;
+import org.eclipse.jdt.core.dom.ParameterizedType;
+import org.eclipse.jdt.core.dom.PrimitiveType;
+import org.eclipse.jdt.core.dom.SimpleType;
+import org.eclipse.jdt.core.dom.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Hands out one CanonicalType per distinct type, so a table of thousands of int fields holds one
+ * "int" rather than one String per declaration. Types are built from the JDT nodes directly:
+ * primitives and names are found by the identifier the node already holds, and arrays are kept on
+ * their element type, so only the first declaration of a type prints its name. Names are interned
+ * with the symbol table's interner, so a type's id is the id the table stores for it.
+ * <p>
+ * The registry counts how often each type is asked for, and estimates the memory the copies it
+ * did not make would have taken. It may be shared between threads.
+ */
+public class TypeRegistry {
+
+    /**
+     * Estimated heap size of a String object, and of the header of the byte array it holds,
+     * with compressed references and compact strings
+     */
+    private static final int STRING_BYTES = 24;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    private final SymbolInterner interner;
+    private final ConcurrentHashMap<String, CanonicalType> types = new ConcurrentHashMap<>();
+
+    private final LongAdder references = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    public TypeRegistry(SymbolInterner interner) {
+        this.interner = interner;
+    }
+
+    /**
+     * @param type a type node
+     * @return the canonical type of the node
+     */
+    public CanonicalType get(Type type) {
+        return get(type, 0);
+    }
+
+    /**
+     * @param type            a type node
+     * @param extraDimensions dimensions written after the variable name, as in "int a[]"
+     * @return the canonical type of the node with the extra dimensions added
+     */
+    public CanonicalType get(Type type, int extraDimensions) {
+        CanonicalType canonical = resolve(type);
+        if (extraDimensions > 0) {
+            canonical = arrayOf(canonical, extraDimensions);
+        }
+        count(canonical);
+        return canonical;
+    }
+
+    /**
+     * Look up the id of a type node's type without counting it as a reference, for checkers that
+     * only compare types
+     *
+     * @param type            a type node
+     * @param extraDimensions dimensions written after the variable name
+     * @return the interned name of the type
+     */
+    public int getId(Type type, int extraDimensions) {
+        CanonicalType canonical = resolve(type);
+        return (extraDimensions > 0 ? arrayOf(canonical, extraDimensions) : canonical).getId();
+    }
+
+    /**
+     * @param name a type as the source would print it
+     * @return the canonical type of that name
+     */
+    public CanonicalType get(String name) {
+        CanonicalType canonical = types.get(name);
+        if (canonical == null) {
+            canonical = parse(name);
+        }
+        count(canonical);
+        return canonical;
+    }
+
+    /**
+     * @param id the interned name of a type
+     * @return the canonical type with that id, or null if the registry has not made one
+     */
+    public CanonicalType lookup(int id) {
+        String name = interner.name(id);
+        return name == null ? null : types.get(name);
+    }
+
+    private CanonicalType resolve(Type type) {
+        if (type.isPrimitiveType()) {
+            String keyword = ((PrimitiveType) type).getPrimitiveTypeCode().toString();
+            CanonicalType canonical = types.get(keyword);
+            return canonical != null ? canonical
+                    : register(keyword, CanonicalType.Kind.PRIMITIVE, null, 0, Collections.<CanonicalType>emptyList());
+        }
+        if (type.isSimpleType()) {
+            Name name = ((SimpleType) type).getName();
+            String fullName = name.getFullyQualifiedName();
+            CanonicalType canonical = types.get(fullName);
+            if (canonical != null) {
+                return canonical;
+            }
+            return register(fullName, name.isQualifiedName() ? CanonicalType.Kind.QUALIFIED : CanonicalType.Kind.SIMPLE,
+                    null, 0, Collections.<CanonicalType>emptyList());
+        }
+        if (type.isArrayType()) {
+            ArrayType arrayType = (ArrayType) type;
+            return arrayOf(resolve(arrayType.getElementType()), arrayType.getDimensions());
+        }
+        if (type.isParameterizedType()) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            CanonicalType raw = resolve(parameterized.getType());
+            List<CanonicalType> arguments = new ArrayList<>(parameterized.typeArguments().size());
+            StringBuilder name = new StringBuilder(raw.getName()).append('<');
+            for (Object argument : parameterized.typeArguments()) {
+                CanonicalType canonical = resolve((Type) argument);
+                if (!arguments.isEmpty()) {
+                    name.append(',');
+                }
+                name.append(canonical.getName());
+                arguments.add(canonical);
+            }
+            String fullName = name.append('>').toString();
+            CanonicalType canonical = types.get(fullName);
+            return canonical != null ? canonical
+                    : register(fullName, CanonicalType.Kind.PARAMETERIZED, raw, 0, arguments);
+        }
+        String fullName = type.toString();
+        CanonicalType canonical = types.get(fullName);
+        return canonical != null ? canonical
+                : register(fullName, type.isQualifiedType() ? CanonicalType.Kind.QUALIFIED : CanonicalType.Kind.OTHER,
+                null, 0, Collections.<CanonicalType>emptyList());
+    }
+
+    /**
+     * Classify a type that was given by name rather than by node. Type arguments are not split
+     * out, so a parameterized type named this way has none.
+     */
+    private CanonicalType parse(String name) {
+        if (name.endsWith("[]")) {
+            return arrayOf(parse(name.substring(0, name.length() - 2)), 1);
+        }
+        CanonicalType canonical = types.get(name);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (PrimitiveType.toCode(name) != null) {
+            return register(name, CanonicalType.Kind.PRIMITIVE, null, 0, Collections.<CanonicalType>emptyList());
+        }
+        int open = name.indexOf('<');
+        if (open > 0) {
+            return register(name, CanonicalType.Kind.PARAMETERIZED, parse(name.substring(0, open)), 0,
+                    Collections.<CanonicalType>emptyList());
+        }
+        return register(name, name.indexOf('.') >= 0 ? CanonicalType.Kind.QUALIFIED : CanonicalType.Kind.SIMPLE,
+                null, 0, Collections.<CanonicalType>emptyList());
+    }
+
+    private CanonicalType arrayOf(CanonicalType type, int extraDimensions) {
+        CanonicalType array = type.getArray(extraDimensions);
+        if (array != null) {
+            return array;
+        }
+        CanonicalType element = type.isArray() ? type.getElementType() : type;
+        int dimensions = type.getDimensions() + extraDimensions;
+        StringBuilder name = new StringBuilder(element.getName());
+        for (int i = 0; i < dimensions; i++) {
+            name.append("[]");
+        }
+        String fullName = name.toString();
+        array = types.get(fullName);
+        if (array == null) {
+            array = register(fullName, CanonicalType.Kind.ARRAY, element, dimensions,
+                    Collections.<CanonicalType>emptyList());
+        }
+        return type.putArray(extraDimensions, array);
+    }
+
+    private CanonicalType register(String name, CanonicalType.Kind kind, CanonicalType elementType, int dimensions,
+                                   List<CanonicalType> typeArguments) {
+        int id = interner.intern(name);
+        CanonicalType canonical = new CanonicalType(id, interner.name(id), kind, elementType, dimensions, typeArguments);
+        CanonicalType existing = types.putIfAbsent(canonical.getName(), canonical);
+        return existing == null ? canonical : existing;
+    }
+
+    private void count(CanonicalType canonical) {
+        references.increment();
+        bytesSaved.add(stringBytes(canonical.getName()));
+    }
+
+    private static long stringBytes(String name) {
+        return STRING_BYTES + ((ARRAY_HEADER_BYTES + name.length() + 7) & ~7);
+    }
+
+    /**
+     * @return the number of distinct types
+     */
+    public int size() {
+        return types.size();
+    }
+
+    /**
+     * @return the number of times a type has been asked for
+     */
+    public long getReferenceCount() {
+        return references.sum();
+    }
+
+    /**
+     * @return an estimate of the bytes a String per reference would have taken beyond one String
+     * per distinct type
+     */
+    public long getBytesSaved() {
+        long distinctBytes = 0;
+        for (String name : types.keySet()) {
+            distinctBytes += stringBytes(name);
+        }
+        return Math.max(0, bytesSaved.sum() - distinctBytes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Types: %d references to %d distinct types, about %.1f KB of type strings saved",
+                getReferenceCount(), size(), getBytesSaved() / 1024.0);
+    }
+}
@@ -0,0 +1,120 @@
+package edu.byu.yc.typechecker;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests that the staged pipeline checks the same files and finds the same errors as checking
+ * the files one stage at a time
+ */
+public class CheckPipelineTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private final String root = System.getProperty("user.dir");
+    private final List<Path> roots = Collections.singletonList(Paths.get(root, TEST_DIR));
+
+    /**
+     * Tests that a pipeline with single-item queues finds every file and every error
+     */
+    @Test
+    @DisplayName("Test pipeline with minimal queues")
+    public void testPipeline() {
+        CheckPipeline pipeline = new CheckPipeline(new SourceDiscovery(), 2, 3, 2, 1);
+        List<Diagnostic> diagnostics = pipeline.run(roots);
+
+        CheckSession session = new CheckSession(new SourceDiscovery(), 1);
+        try {
+            assertEquals(session.check(roots), diagnostics);
+        } finally {
+            session.close();
+        }
+
+        assertEquals(5, pipeline.getUnits().size());
+        assertTrue(pipeline.getSymbolTable().classExists("edu.byu.yc.tests.TestTC"));
+        assertTrue(pipeline.getTypeTable().containsValue("edu.byu.yc.tests.Empty"));
+
+        List<StageMetrics> metrics = pipeline.getMetrics();
+        assertEquals(5, metrics.size());
+        for (StageMetrics stage : metrics.subList(0, 4)) {
+            assertEquals(5, stage.getItems(), stage.getName());
+            assertTrue(stage.getMaxQueueDepth() <= 1, stage.getName());
+        }
+        assertEquals(1, metrics.get(4).getItems());
+    }
+
+    /**
+     * Tests that a pipeline over no sources finishes without checking anything
+     */
+    @Test
+    @DisplayName("Test pipeline without sources")
+    public void testEmptyPipeline() {
+        CheckPipeline pipeline = new CheckPipeline(new SourceDiscovery(), 4);
+        assertTrue(pipeline.run(Collections.singletonList(Paths.get(root, "res"))).isEmpty());
+        assertTrue(pipeline.getUnits().isEmpty());
+    }
+
+    /**
+     * Tests that an Error thrown while reading one file fails the run instead of leaving the
+     * stages after it waiting forever
+     */
+    @Test
+    @DisplayName("Test pipeline with a failing stage")
+    public void testStageError() {
+        SourceLoader failing = new SourceLoader() {
+            @Override
+            public char[] load(Path path) throws IOException {
+                if (path.getFileName().toString().equals("Fields.java")) {
+                    throw new StackOverflowError("too deep");
+                }
+                return super.load(path);
+            }
+        };
+        CheckPipeline pipeline = new CheckPipeline(new SourceDiscovery(), failing, 2, 2, 1, 1);
+        IllegalStateException failed = assertTimeoutPreemptively(Duration.ofMinutes(1),
+                () -> assertThrows(IllegalStateException.class, () -> pipeline.run(roots)));
+        assertTrue(failed.getCause() instanceof StackOverflowError, String.valueOf(failed.getCause()));
+    }
+
+    /**
+     * Tests that interrupting the caller while it discovers sources, as a build server cancelling
+     * a check does, fails the run and stops every worker instead of leaving them waiting for input
+     */
+    @Test
+    @DisplayName("Test pipeline interrupted during discovery")
+    public void testInterruptedDiscovery() throws InterruptedException {
+        SourceDiscovery interrupting = new SourceDiscovery() {
+            @Override
+            public void discover(Collection<Path> roots, Consumer<Path> sink) {
+                Thread.currentThread().interrupt();
+                super.discover(roots, sink);
+            }
+        };
+        CheckPipeline pipeline = new CheckPipeline(interrupting, 2, 2, 1, 16);
+        assertTimeoutPreemptively(Duration.ofMinutes(1), () -> {
+            try {
+                assertThrows(IllegalStateException.class, () -> pipeline.run(roots));
+            } finally {
+                Thread.interrupted();
+            }
+        });
+        assertTrue(pipeline.getWorkers().awaitTermination(1, TimeUnit.MINUTES));
+    }
+}
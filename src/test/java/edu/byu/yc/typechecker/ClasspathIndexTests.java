@@ -0,0 +1,171 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import edu.byu.yc.typechecker.classpath.ClassSignature;
+import edu.byu.yc.typechecker.classpath.ClasspathIndex;
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests resolving library types against an index of jars and the JDK, and that the index is
+ * cached on disk
+ */
+public class ClasspathIndexTests {
+
+    private static final String CLASSES_DIR = "target/classes";
+    private static final String SYMBOL_TABLE_PACKAGE = "edu.byu.yc.typechecker.symboltable";
+
+    private final String root = System.getProperty("user.dir");
+    private Path jar;
+    private Path cacheFile;
+
+    /**
+     * Package a public and a package-private class of the checker into a jar
+     */
+    @BeforeEach
+    public void createJar() throws IOException {
+        jar = Files.createTempFile("library", ".jar");
+        cacheFile = Files.createTempFile("classpath", ".idx");
+        Files.delete(cacheFile);
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for (String name : new String[]{"SymbolTable", "LocalScopes"}) {
+                String entry = SYMBOL_TABLE_PACKAGE.replace('.', '/') + "/" + name + ".class";
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(Files.readAllBytes(Paths.get(root, CLASSES_DIR, entry)));
+                out.closeEntry();
+            }
+        }
+    }
+
+    @AfterEach
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(jar);
+        Files.deleteIfExists(cacheFile);
+    }
+
+    /**
+     * Tests that simple names resolve through java.lang and imports on demand, qualified names
+     * resolve directly or as nested classes, and classes that are not public do not resolve
+     */
+    @Test
+    @DisplayName("Test resolving classpath types")
+    public void testResolve() {
+        try (ClasspathIndex index = new ClasspathIndex(Collections.singletonList(jar), true, cacheFile, 2)) {
+            assertEquals("java.lang.String", index.resolve("String", Collections.emptySet()));
+            assertEquals("java.util.List", index.resolve("List", Collections.singleton("java.util")));
+            assertNull(index.resolve("List", Collections.emptySet()));
+            assertEquals("java.util.Map$Entry", index.resolve("java.util.Map.Entry", Collections.emptySet()));
+            assertEquals(SYMBOL_TABLE_PACKAGE + ".SymbolTable",
+                    index.resolve("SymbolTable", Collections.singleton(SYMBOL_TABLE_PACKAGE)));
+            assertTrue(index.classExists(SYMBOL_TABLE_PACKAGE + ".LocalScopes"));
+            assertNull(index.resolve(SYMBOL_TABLE_PACKAGE + ".LocalScopes", Collections.emptySet()));
+
+            ClassSignature signature = index.getSignature(SYMBOL_TABLE_PACKAGE + ".SymbolTable");
+            assertTrue(signature.isPublic());
+            assertEquals("java.lang.Object", signature.getSuperName());
+            assertEquals(Collections.singletonList(SYMBOL_TABLE_PACKAGE + ".ISymbolTable"), signature.getInterfaceNames());
+            assertEquals(2, index.getCachedSignatureCount());
+        }
+    }
+
+    /**
+     * Tests that the index is saved, loaded from the cache by the next index, and rebuilt once a
+     * jar changes
+     */
+    @Test
+    @DisplayName("Test classpath index cache")
+    public void testCache() throws IOException {
+        List<Path> jars = Collections.singletonList(jar);
+        int size;
+        try (ClasspathIndex index = new ClasspathIndex(jars, false, cacheFile)) {
+            assertFalse(Files.exists(cacheFile));
+            size = index.size();
+            assertEquals(2, size);
+            assertTrue(Files.exists(cacheFile));
+        }
+
+        FileTime written = Files.getLastModifiedTime(cacheFile);
+        try (ClasspathIndex index = new ClasspathIndex(jars, false, cacheFile)) {
+            assertEquals(size, index.size());
+            assertEquals(written, Files.getLastModifiedTime(cacheFile));
+            assertTrue(index.getSignature(SYMBOL_TABLE_PACKAGE + ".SymbolTable").isPublic());
+        }
+
+        Files.setLastModifiedTime(jar, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        Files.setLastModifiedTime(cacheFile, FileTime.fromMillis(0));
+        try (ClasspathIndex index = new ClasspathIndex(jars, false, cacheFile)) {
+            assertEquals(size, index.size());
+            assertTrue(Files.getLastModifiedTime(cacheFile).toMillis() > 0);
+        }
+    }
+
+    /**
+     * Tests that the index of a classpath whose cache key is longer than a modified UTF-8 string
+     * can hold is still saved and loaded
+     */
+    @Test
+    @DisplayName("Test classpath index cache of a long classpath")
+    public void testCacheLongClasspath() {
+        List<Path> jars = Collections.nCopies(4096, jar);
+        try (ClasspathIndex index = new ClasspathIndex(jars, false, cacheFile)) {
+            assertTrue(index.getCacheKey().length() > 65535);
+            assertEquals(2, index.size());
+            assertTrue(Files.exists(cacheFile));
+        }
+        try (ClasspathIndex index = new ClasspathIndex(jars, false, cacheFile)) {
+            assertEquals(2, index.size());
+        }
+    }
+
+    /**
+     * Tests that the checker accepts JDK types once it has an index to resolve them against
+     */
+    @Test
+    @DisplayName("Test checking with JDK types")
+    public void testCheckJdkTypes() {
+        String source = "package edu.byu.yc.tests;\n"
+                + "import java.util.*;\n"
+                + "public class Library {\n"
+                + "    String name;\n"
+                + "    List list;\n"
+                + "    java.util.Map.Entry entry;\n"
+                + "    Missing missing;\n"
+                + "}\n";
+
+        ASTNode node = TypeChecker.parse(source);
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(node);
+        TypeCheckerVisitor withoutIndex = new TypeCheckerVisitor(symbolTable);
+        node.accept(withoutIndex);
+        assertEquals(4, withoutIndex.getDiagnostics().size());
+
+        try (ClasspathIndex index = new ClasspathIndex(Collections.<Path>emptyList(), true, cacheFile)) {
+            symbolTable.setClasspathIndex(index);
+            TypeCheckerVisitor withIndex = new TypeCheckerVisitor(symbolTable);
+            node.accept(withIndex);
+            assertEquals(1, withIndex.getDiagnostics().size());
+            assertTrue(withIndex.getDiagnostics().get(0).getMessage().contains("Missing"));
+            assertTrue(symbolTable.validTypeExists("edu.byu.yc.tests.Library", "List"));
+        }
+    }
+}
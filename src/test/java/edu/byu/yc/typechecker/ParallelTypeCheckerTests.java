@@ -0,0 +1,108 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests that checking types and methods on a fork-join pool finds the same errors, in the same
+ * order, and the same types as a single visitor, whatever the size of the pool
+ */
+public class ParallelTypeCheckerTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private static final String NESTED = "package edu.byu.yc.tests;\n"
+            + "public class Nested {\n"
+            + "    int a;\n"
+            + "    short early = a + a;\n"
+            + "    byte first() {\n        return a * 2;\n    }\n"
+            + "    class Inner {\n"
+            + "        long l;\n"
+            + "        int inner() {\n            return l + a;\n        }\n"
+            + "        short middle = l - 1;\n"
+            + "    }\n"
+            + "    byte late = a - 1;\n"
+            + "    int second(int x) {\n        short s = x + a;\n        return x << 1;\n    }\n"
+            + "    Missing field;\n"
+            + "}\n";
+
+    private final String root = System.getProperty("user.dir");
+
+    /**
+     * Tests that the test files check the same on pools of one and four workers as on one visitor
+     */
+    @Test
+    @DisplayName("Test parallel check of test files")
+    public void testTestFiles() {
+        List<String> paths = new ArrayList<>();
+        for (File file : Paths.get(root, TEST_DIR).toFile().listFiles()) {
+            paths.add(file.getPath());
+        }
+        paths.sort(null);
+        List<CompilationUnit> units = TypeChecker.parseUnits(paths, 1);
+
+        assertSameAsVisitor(units, 1);
+        assertSameAsVisitor(units, 4);
+    }
+
+    /**
+     * Tests that diagnostics of fields, member types and methods interleave as a single visitor
+     * finds them, including members declared after a member type
+     */
+    @Test
+    @DisplayName("Test parallel check of nested members")
+    public void testNestedMembers() {
+        List<ASTNode> units = Arrays.asList(TypeChecker.parse(NESTED));
+
+        List<Diagnostic> diagnostics = assertSameAsVisitor(units, 3);
+        assertEquals(7, diagnostics.size(), diagnostics.toString());
+        List<Integer> lines = new ArrayList<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            lines.add(diagnostic.getLine());
+        }
+        assertEquals(Arrays.asList(4, 6, 11, 13, 15, 17, 20), lines);
+    }
+
+    private List<Diagnostic> assertSameAsVisitor(List<? extends ASTNode> units, int parallelism) {
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(units);
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        for (ASTNode unit : units) {
+            unit.accept(typeCheckerVisitor);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ParallelTypeChecker typeChecker = new ParallelTypeChecker(TypeChecker.createSymbolTable(units).freeze(), pool);
+            List<Diagnostic> diagnostics = typeChecker.check(units);
+            assertEquals(typeCheckerVisitor.getDiagnostics(), diagnostics);
+
+            assertEquals(symbolTable.getValidTypes(), typeChecker.getSymbolTable().getValidTypes());
+
+            Map<ASTNode, String> types = typeChecker.getTypeTable();
+            assertFalse(types.isEmpty());
+            for (Map.Entry<ASTNode, String> entry : types.entrySet()) {
+                assertEquals(typeCheckerVisitor.getTypeTable().get(entry.getKey()), entry.getValue(), entry.getKey().toString());
+            }
+            return diagnostics;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
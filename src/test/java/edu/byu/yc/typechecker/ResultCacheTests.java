@@ -0,0 +1,156 @@
+package edu.byu.yc.typechecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import edu.byu.yc.typechecker.classpath.ClasspathIndex;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests that cached check results are replayed only while a file and the facts it depends on are
+ * unchanged
+ */
+public class ResultCacheTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private final String root = System.getProperty("user.dir");
+
+    private Path sources;
+    private Path cacheFile;
+
+    @BeforeEach
+    public void copySources() throws IOException {
+        sources = Files.createTempDirectory("ResultCache");
+        for (String name : Arrays.asList("Arithmetic.java", "Fields.java", "Widening.java")) {
+            Files.copy(Paths.get(root, TEST_DIR, name), sources.resolve(name));
+        }
+        cacheFile = sources.resolve("cache").resolve("results.bin");
+    }
+
+    @AfterEach
+    public void deleteSources() throws IOException {
+        try (Stream<Path> paths = Files.walk(sources)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private List<ResultCache.Entry> check() throws IOException {
+        return check(null);
+    }
+
+    private List<ResultCache.Entry> check(ClasspathIndex classpathIndex) throws IOException {
+        ResultCache cache = ResultCache.load(cacheFile);
+        List<Path> paths = new SourceDiscovery().discover(Collections.singletonList(sources));
+        List<ResultCache.Entry> results = TypeChecker.checkWithCache(paths, cache, 2, classpathIndex);
+        cache.save();
+        return results;
+    }
+
+    /**
+     * Tests that a second run over unchanged files replays every result exactly
+     */
+    @Test
+    @DisplayName("Test replaying unchanged files")
+    public void testReplay() throws IOException {
+        List<ResultCache.Entry> first = check();
+        List<ResultCache.Entry> second = check();
+
+        assertEquals(3, second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertFalse(first.get(i).isReplayed());
+            assertTrue(second.get(i).isReplayed());
+            assertEquals(first.get(i).getDiagnostics(), second.get(i).getDiagnostics());
+            assertEquals(first.get(i).getTypeSummary(), second.get(i).getTypeSummary());
+        }
+
+        // Arithmetic.java adds a boolean in addWrong
+        assertEquals(1, second.get(0).getDiagnostics().size());
+        assertEquals(13, second.get(0).getDiagnostics().get(0).getLine());
+        // Widening.java has two incompatible expressions in invalid
+        assertEquals(2, second.get(2).getDiagnostics().size());
+    }
+
+    /**
+     * Tests that only an edited file is checked again
+     */
+    @Test
+    @DisplayName("Test checking an edited file")
+    public void testEditedFile() throws IOException {
+        check();
+
+        Path arithmetic = sources.resolve("Arithmetic.java");
+        String fixed = new String(Files.readAllBytes(arithmetic)).replace("a+p", "a+b");
+        Files.write(arithmetic, fixed.getBytes());
+
+        List<ResultCache.Entry> results = check();
+        assertFalse(results.get(0).isReplayed());
+        assertTrue(results.get(0).getDiagnostics().isEmpty());
+        assertTrue(results.get(1).isReplayed());
+        assertTrue(results.get(2).isReplayed());
+    }
+
+    /**
+     * Tests that a file declaring a type another file also declares forces both to be checked
+     */
+    @Test
+    @DisplayName("Test checking files whose facts changed")
+    public void testChangedFacts() throws IOException {
+        check();
+
+        Files.write(sources.resolve("Duplicate.java"),
+                Collections.singletonList("package edu.byu.yc.tests;\npublic class Fields { int other = 1; }"));
+
+        List<ResultCache.Entry> results = check();
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isReplayed());
+        assertFalse(results.get(1).isReplayed()); // Duplicate.java
+        assertFalse(results.get(2).isReplayed()); // Fields.java
+        assertTrue(results.get(3).isReplayed());
+    }
+
+    /**
+     * Tests that results cached without a classpath, or against a jar that has since changed, are
+     * not replayed
+     */
+    @Test
+    @DisplayName("Test checking files whose classpath changed")
+    public void testChangedClasspath() throws IOException {
+        Path jar = sources.resolve("lib.jar");
+        Files.write(jar, new byte[]{1});
+        check();
+
+        List<ResultCache.Entry> results = check(new ClasspathIndex(Collections.singletonList(jar), false, null));
+        for (ResultCache.Entry result : results) {
+            assertFalse(result.isReplayed());
+        }
+        results = check(new ClasspathIndex(Collections.singletonList(jar), false, null));
+        for (ResultCache.Entry result : results) {
+            assertTrue(result.isReplayed());
+        }
+
+        Files.write(jar, new byte[]{1, 2});
+        results = check(new ClasspathIndex(Collections.singletonList(jar), false, null));
+        for (ResultCache.Entry result : results) {
+            assertFalse(result.isReplayed());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests that SourceDiscovery finds the right files and skips build directories and excludes
+ */
+public class SourceDiscoveryTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private final String root = System.getProperty("user.dir");
+
+    private Path tree;
+
+    @BeforeEach
+    public void createTree() throws IOException {
+        tree = Files.createTempDirectory("SourceDiscovery");
+        for (String file : Arrays.asList("A.java", "notes.txt", "pkg/B.java", "pkg/deep/C.java",
+                "target/D.java", "pkg/generated/E.java", "pkg/skip/F.java", "pkg/.git/G.java",
+                "module/pom.xml", "module/build/H.java", "module/src/build/I.java")) {
+            Path path = tree.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.write(path, Collections.singletonList("class X {}"));
+        }
+    }
+
+    @AfterEach
+    public void deleteTree() throws IOException {
+        try (Stream<Path> paths = Files.walk(tree)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    /**
+     * Tests that Java files are found at every depth, that build output directories are skipped
+     * under the root and next to a build file but not where they are packages, and that tool
+     * directories are skipped everywhere
+     */
+    @Test
+    @DisplayName("Test default discovery")
+    public void testDiscover() {
+        SourceDiscovery discovery = new SourceDiscovery();
+        List<Path> found = discovery.discover(Collections.singletonList(tree));
+
+        assertEquals(Arrays.asList(tree.resolve("A.java"), tree.resolve("module/src/build/I.java"),
+                tree.resolve("pkg/B.java"), tree.resolve("pkg/deep/C.java"), tree.resolve("pkg/generated/E.java"),
+                tree.resolve("pkg/skip/F.java")), found);
+        for (Path file : found) {
+            assertTrue(discovery.matches(tree, file));
+        }
+        assertFalse(discovery.matches(tree, tree.resolve("module/build/H.java")));
+        assertFalse(discovery.matches(tree, tree.resolve("pkg/.git/G.java")));
+        assertFalse(discovery.searches(tree, tree.resolve("target")));
+        assertTrue(discovery.searches(tree, tree.resolve("pkg/generated")));
+    }
+
+    /**
+     * Tests that include and exclude globs are matched relative to the root
+     */
+    @Test
+    @DisplayName("Test include and exclude globs")
+    public void testGlobs() {
+        SourceDiscovery discovery = new SourceDiscovery(Collections.singletonList("pkg/**.java"),
+                Collections.singletonList("pkg/skip"), 2);
+
+        assertEquals(Arrays.asList(tree.resolve("pkg/B.java"), tree.resolve("pkg/deep/C.java"),
+                tree.resolve("pkg/generated/E.java")), discovery.discover(Collections.singletonList(tree)));
+    }
+
+    /**
+     * Tests that every file is streamed to the sink and that file roots are passed through
+     */
+    @Test
+    @DisplayName("Test streaming discovery")
+    public void testStreaming() {
+        AtomicInteger count = new AtomicInteger();
+        new SourceDiscovery().discover(Arrays.asList(tree.resolve("pkg"), tree.resolve("A.java")),
+                path -> count.incrementAndGet());
+
+        assertEquals(4, count.get());
+    }
+
+    /**
+     * Tests that discovered files are parsed and returned in path order
+     */
+    @Test
+    @DisplayName("Test parsing discovered files")
+    public void testParseDiscovered() {
+        List<CompilationUnit> units = TypeChecker.parseUnits(
+                Collections.singletonList(Paths.get(root, TEST_DIR)), new SourceDiscovery(), 4);
+
+        assertEquals(5, units.size());
+        for (int i = 1; i < units.size(); i++) {
+            String previous = (String) units.get(i - 1).getProperty(TypeChecker.SOURCE_PATH_PROPERTY);
+            String current = (String) units.get(i).getProperty(TypeChecker.SOURCE_PATH_PROPERTY);
+            assertTrue(previous.compareTo(current) < 0);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package edu.byu.yc.typechecker;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests that the SourceLoader decodes files exactly as they are stored on disk, whether they are
+ * read through the pooled buffer or memory-mapped
+ */
+public class SourceLoaderTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private final String root = System.getProperty("user.dir");
+    private final File fieldsFile = new File(new File(root, TEST_DIR), "Fields.java");
+
+    /**
+     * Tests that a small file is decoded to the same characters as a plain read
+     */
+    @Test
+    @DisplayName("Test loading a small file")
+    public void testLoadSmallFile() throws IOException {
+        SourceLoader loader = new SourceLoader();
+        Path path = fieldsFile.toPath();
+
+        char[] expected = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).toCharArray();
+        assertArrayEquals(expected, loader.load(path));
+        assertArrayEquals(expected, loader.load(path));
+
+        assertEquals(2, loader.getFilesRead());
+        assertEquals(2 * Files.size(path), loader.getBytesRead());
+        assertTrue(loader.getBytesPerSecond() > 0);
+    }
+
+    /**
+     * Tests that multi-byte characters are decoded to an array of exactly the decoded length
+     */
+    @Test
+    @DisplayName("Test loading multi-byte characters")
+    public void testLoadMultiByte() throws IOException {
+        String source = "class Café { String s = \"über ☃\"; }";
+        Path path = Files.createTempFile("SourceLoader", ".java");
+        try {
+            Files.write(path, source.getBytes(StandardCharsets.UTF_8));
+            assertArrayEquals(source.toCharArray(), new SourceLoader().load(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Tests that a file over the mapping threshold is read through a memory-mapped buffer
+     */
+    @Test
+    @DisplayName("Test loading a memory-mapped file")
+    public void testLoadMappedFile() throws IOException {
+        StringBuilder sb = new StringBuilder("class Big {\n");
+        while (sb.length() < SourceLoader.MAP_THRESHOLD) {
+            sb.append("    int field").append(sb.length()).append(" = 1;\n");
+        }
+        sb.append("}\n");
+
+        Path path = Files.createTempFile("SourceLoader", ".java");
+        try {
+            Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+            assertArrayEquals(sb.toString().toCharArray(), new SourceLoader().load(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package edu.byu.yc.typechecker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests that incremental updates of a session give the same diagnostics as a full check, and
+ * that the watcher re-checks files when they are saved
+ */
+public class SourceWatcherTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private final String root = System.getProperty("user.dir");
+    private Path sources;
+
+    @BeforeEach
+    public void copySources() throws IOException {
+        sources = Files.createTempDirectory("watched");
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(root, TEST_DIR))) {
+            for (Path file : files) {
+                Files.copy(file, sources.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    @AfterEach
+    public void deleteSources() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(sources)) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(sources);
+    }
+
+    private List<Diagnostic> fullCheck() {
+        CheckSession session = new CheckSession(new SourceDiscovery(), 2);
+        try {
+            return session.check(Collections.singletonList(sources));
+        } finally {
+            session.close();
+        }
+    }
+
+    private void write(String name, String contents) throws IOException {
+        Path file = sources.resolve(name);
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+        // Make sure the stamp changes even on file systems with coarse modification times
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 2000));
+    }
+
+    /**
+     * Tests that editing, adding and deleting files updates the session like a full check
+     */
+    @Test
+    @DisplayName("Test session update")
+    public void testSessionUpdate() throws IOException {
+        CheckSession session = new CheckSession(new SourceDiscovery(), 2);
+        try {
+            List<Diagnostic> initial = session.check(Collections.singletonList(sources));
+            assertEquals(5, session.getUnitsChecked());
+
+            String arithmetic = new String(Files.readAllBytes(sources.resolve("Arithmetic.java")), StandardCharsets.UTF_8);
+            write("Arithmetic.java", arithmetic.replace("a+p", "a+b"));
+            List<Diagnostic> fixed = session.update(Collections.singletonList(sources.resolve("Arithmetic.java")));
+            assertEquals(fullCheck(), fixed);
+            assertEquals(initial.size() - 1, fixed.size());
+            assertEquals(6, session.getUnitsChecked());
+            assertTrue(session.getSymbolTable().classExists("edu.byu.yc.tests.Adder"));
+
+            write("Extra.java", "package edu.byu.yc.tests;\npublic class Extra {\n    int a;\n    int x = a + true;\n}\n");
+            List<Diagnostic> added = session.update(Collections.singletonList(sources.resolve("Extra.java")));
+            assertEquals(fullCheck(), added);
+            assertEquals(7, session.getUnitsChecked());
+            assertTrue(session.getSymbolTable().classExists("edu.byu.yc.tests.Extra"));
+
+            Files.delete(sources.resolve("Extra.java"));
+            List<Diagnostic> deleted = session.update(Collections.singletonList(sources.resolve("Extra.java")));
+            assertEquals(fixed, deleted);
+            assertFalse(session.getSymbolTable().classExists("edu.byu.yc.tests.Extra"));
+            assertEquals(5, session.getUnitCount());
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Tests that saving a watched file re-checks it
+     */
+    @Test
+    @DisplayName("Test watcher re-check")
+    public void testWatcher() throws IOException, InterruptedException {
+        SourceDiscovery discovery = new SourceDiscovery();
+        try (SourceWatcher watcher = new SourceWatcher(new CheckSession(discovery, 2), discovery, 50)) {
+            List<Diagnostic> initial = watcher.start(Collections.singletonList(sources));
+
+            String arithmetic = new String(Files.readAllBytes(sources.resolve("Arithmetic.java")), StandardCharsets.UTF_8);
+            write("Arithmetic.java", arithmetic.replace("a+p", "a+b"));
+            List<Diagnostic> diagnostics = watcher.awaitChanges();
+
+            assertEquals(initial.size() - 1, diagnostics.size());
+            assertEquals(1, watcher.getCycles());
+        }
+    }
+
+    /**
+     * Tests that the sources of a directory moved into the watched root are checked, matched
+     * relative to the root, and that moving the directory out drops them
+     */
+    @Test
+    @DisplayName("Test watcher directory moves")
+    public void testWatchedDirectories() throws IOException, InterruptedException {
+        Path staging = Files.createTempDirectory("staging");
+        Path pkg = staging.resolve("pkg");
+        Files.createDirectories(pkg);
+        Files.write(pkg.resolve("Extra.java"),
+                "package edu.byu.yc.tests;\npublic class Extra {\n    int a;\n    int x = a + true;\n}\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(pkg.resolve("Excluded.java"),
+                "package edu.byu.yc.tests;\npublic class Excluded {\n    int a;\n    int y = a + true;\n}\n".getBytes(StandardCharsets.UTF_8));
+
+        SourceDiscovery discovery = new SourceDiscovery(Collections.singletonList("**.java"),
+                Collections.singletonList("pkg/Excluded.java"), 2);
+        try (SourceWatcher watcher = new SourceWatcher(new CheckSession(discovery, 2), discovery, 50)) {
+            List<Diagnostic> initial = watcher.start(Collections.singletonList(sources));
+
+            Files.move(pkg, sources.resolve("pkg"));
+            List<Diagnostic> added = watcher.awaitChanges();
+            assertEquals(initial.size() + 1, added.size());
+            for (Diagnostic diagnostic : added) {
+                assertFalse(diagnostic.getSourcePath().endsWith("Excluded.java"));
+            }
+
+            Files.move(sources.resolve("pkg"), pkg);
+            assertEquals(initial, watcher.awaitChanges());
+            assertEquals(2, watcher.getCycles());
+        } finally {
+            Path moved = Files.exists(pkg) ? pkg : sources.resolve("pkg");
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(moved)) {
+                for (Path file : files) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(moved);
+            Files.delete(staging);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package edu.byu.yc.typechecker;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import edu.byu.yc.typechecker.symboltable.IntHashIndex;
+import edu.byu.yc.typechecker.symboltable.IntIntMap;
+import edu.byu.yc.typechecker.symboltable.IntObjectMap;
+import edu.byu.yc.typechecker.symboltable.SymbolInterner;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests the symbol interner and the int-keyed maps the symbol table stores its ids in
+ */
+public class SymbolInternerTests {
+
+    /**
+     * Tests that ids are dense, stable, and that lookups do not intern
+     */
+    @Test
+    @DisplayName("Test interner ids")
+    public void testInterner() {
+        SymbolInterner interner = new SymbolInterner();
+        assertEquals(0, interner.intern("int"));
+        assertEquals(1, interner.intern("edu.byu.yc.tests.Fields"));
+        assertEquals(0, interner.intern(new String("int")));
+        assertEquals("edu.byu.yc.tests.Fields", interner.name(1));
+
+        assertEquals(SymbolInterner.NONE, interner.lookup("long"));
+        assertEquals(SymbolInterner.NONE, interner.intern(null));
+        assertNull(interner.name(SymbolInterner.NONE));
+        assertEquals(2, interner.size());
+    }
+
+    /**
+     * Tests that interning from several threads hands every name exactly one id
+     */
+    @Test
+    @DisplayName("Test concurrent interning")
+    public void testConcurrentInterning() throws InterruptedException {
+        SymbolInterner interner = new SymbolInterner();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    interner.intern("name" + i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, interner.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("name" + i, interner.name(interner.lookup("name" + i)));
+        }
+    }
+
+    /**
+     * Tests the int maps against a HashMap through random puts and removes, which exercises
+     * growing, removal with backward shifting and compaction
+     */
+    @Test
+    @DisplayName("Test int maps")
+    public void testIntMaps() {
+        IntIntMap ints = new IntIntMap();
+        IntObjectMap<String> objects = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                Integer removed = expected.remove(key);
+                assertEquals(removed == null ? IntHashIndex.NONE : removed, ints.remove(key));
+                assertEquals(removed == null ? null : String.valueOf(removed), objects.remove(key));
+            } else {
+                expected.put(key, i);
+                ints.put(key, i);
+                objects.put(key, String.valueOf(i));
+            }
+        }
+
+        assertEquals(expected.size(), ints.size());
+        assertEquals(expected.size(), objects.size());
+        for (int key = 0; key < 500; key++) {
+            Integer value = expected.get(key);
+            assertEquals(value != null, ints.containsKey(key));
+            assertEquals(value == null ? IntHashIndex.NONE : value, ints.get(key));
+            assertEquals(value == null ? null : String.valueOf(value), objects.get(key));
+        }
+        assertFalse(ints.containsKey(SymbolInterner.NONE));
+    }
+
+    /**
+     * Tests that the maps iterate in insertion order, skipping removed entries
+     */
+    @Test
+    @DisplayName("Test int map order")
+    public void testIntMapOrder() {
+        IntIntMap ints = new IntIntMap();
+        for (int key : new int[]{42, 7, 19, 3}) {
+            ints.put(key, key * 2);
+        }
+        ints.remove(7);
+        ints.put(42, 1);
+
+        List<Integer> keys = new ArrayList<>();
+        for (int entry = 0; entry < ints.entryCount(); entry++) {
+            if (ints.keyAt(entry) != IntHashIndex.NONE) {
+                keys.add(ints.keyAt(entry));
+            }
+        }
+        assertEquals(3, keys.size());
+        assertEquals(Integer.valueOf(42), keys.get(0));
+        assertEquals(Integer.valueOf(19), keys.get(1));
+        assertEquals(Integer.valueOf(3), keys.get(2));
+        assertEquals(1, ints.get(42));
+        assertTrue(ints.containsKey(3));
+    }
+}
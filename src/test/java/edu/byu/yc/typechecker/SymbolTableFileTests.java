@@ -0,0 +1,123 @@
+package edu.byu.yc.typechecker;
+
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.byu.yc.typechecker.symboltable.ASTNameType;
+import edu.byu.yc.typechecker.symboltable.ClassProperties;
+import edu.byu.yc.typechecker.symboltable.MappedSymbolTable;
+import edu.byu.yc.typechecker.symboltable.SymbolTable;
+import edu.byu.yc.typechecker.symboltable.SymbolTableFile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests that a symbol table written to disk answers the same queries when mapped back in, and
+ * that damaged files are rejected
+ */
+public class SymbolTableFileTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private final String root = System.getProperty("user.dir");
+    private Path file;
+    private SymbolTable symbolTable;
+
+    @BeforeEach
+    public void writeTable() throws IOException {
+        List<CompilationUnit> units = TypeChecker.parseUnits(
+                Collections.singletonList(Paths.get(root, TEST_DIR)), new SourceDiscovery(), 1);
+        symbolTable = TypeChecker.createSymbolTable(units);
+        file = Files.createTempFile("symbols", ".bin");
+        SymbolTableFile.write(symbolTable, file);
+    }
+
+    @AfterEach
+    public void deleteTable() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that every class, field, method, parameter, local and valid type can be looked up
+     * in the mapped table, and that names that are not in it are not found
+     */
+    @Test
+    @DisplayName("Test mapped symbol table")
+    public void testMappedTable() throws IOException {
+        MappedSymbolTable mapped = MappedSymbolTable.open(file);
+        Map<String, ClassProperties> classes = symbolTable.getClassFieldsMethodsParamsMap();
+        assertEquals(classes.size(), mapped.getClassCount());
+
+        for (Map.Entry<String, ClassProperties> entry : classes.entrySet()) {
+            String classFQN = entry.getKey();
+            assertTrue(mapped.classExists(classFQN));
+            for (ASTNameType field : entry.getValue().getFields()) {
+                assertEquals(field.getType(), mapped.getFieldType(classFQN, field.getName()));
+            }
+            for (Map.Entry<ASTNameType, List<ASTNameType>> method : entry.getValue().getMethodParamsMap().entrySet()) {
+                String methodName = method.getKey().getName();
+                assertEquals(method.getKey().getType(), mapped.getMethodReturnType(classFQN, methodName));
+                for (ASTNameType param : method.getValue()) {
+                    assertEquals(param.getType(), mapped.getParameterType(classFQN, methodName, param.getName()));
+                }
+                for (ASTNameType local : entry.getValue().getLocalVariablesMap().get(method.getKey())) {
+                    assertEquals(local.getType(), mapped.getLocalVariableType(classFQN, methodName, local.getName()));
+                }
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : symbolTable.getValidTypes().entrySet()) {
+            for (String type : entry.getValue()) {
+                assertTrue(mapped.validTypeExists(entry.getKey(), type));
+            }
+        }
+        for (Map.Entry<String, String> entry : symbolTable.getClassSimpleToQualifiedName().entrySet()) {
+            assertEquals(entry.getValue(), mapped.getQualifiedName(entry.getKey()));
+        }
+
+        assertFalse(mapped.classExists("edu.byu.yc.tests.Missing"));
+        assertFalse(mapped.fieldExists("edu.byu.yc.tests.Arithmetic", "missing"));
+        assertFalse(mapped.methodExists("edu.byu.yc.tests.Missing", "add"));
+        assertNull(mapped.getParameterType("edu.byu.yc.tests.Arithmetic", "missing", "a"));
+        assertNull(mapped.getQualifiedName("Missing"));
+    }
+
+    /**
+     * Tests that a file with a flipped byte or another version is refused
+     */
+    @Test
+    @DisplayName("Test damaged symbol table file")
+    public void testDamagedFile() throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] corrupt = bytes.clone();
+        corrupt[corrupt.length - 1] ^= 1;
+        Files.write(file, corrupt);
+        assertThrows(IOException.class, () -> MappedSymbolTable.open(file));
+
+        byte[] otherVersion = bytes.clone();
+        otherVersion[7] = 99;
+        Files.write(file, otherVersion);
+        assertThrows(IOException.class, () -> MappedSymbolTable.open(file));
+
+        Files.write(file, new byte[]{1, 2, 3});
+        assertThrows(IOException.class, () -> MappedSymbolTable.open(file));
+    }
+}
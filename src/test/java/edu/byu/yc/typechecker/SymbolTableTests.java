@@ -1,17 +1,42 @@
 package edu.byu.yc.typechecker;
 
+import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.FieldDeclaration;
+import org.eclipse.jdt.core.dom.Type;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.byu.yc.typechecker.symboltable.ASTNameType;
+import edu.byu.yc.typechecker.symboltable.CanonicalType;
+import edu.byu.yc.typechecker.symboltable.ClassProperties;
+import edu.byu.yc.typechecker.symboltable.QualifiedClassVisitor;
 import edu.byu.yc.typechecker.symboltable.SymbolTable;
+import edu.byu.yc.typechecker.symboltable.SymbolTableMonitor;
+import edu.byu.yc.typechecker.symboltable.SymbolTableStats;
+import edu.byu.yc.typechecker.symboltable.TypeRegistry;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -245,5 +270,264 @@ public class SymbolTableTests {
 
     }
 
+    /**
+     * Tests the name indexes of ClassProperties: later declarations of a name win, overloads
+     * share their parameters and locals, and ASTNameType compares by value
+     */
+    @Test
+    @DisplayName("Test ClassProperties indexes")
+    public void testClassPropertiesIndexes() {
+        ClassProperties properties = new ClassProperties(PACKAGE_FQN + ".Indexed");
+        properties.addField(new ASTNameType("a", "int"));
+        properties.addField(new ASTNameType("a", "long"));
+        properties.addMethod(new ASTNameType("m", "int"),
+                Collections.singletonList(new ASTNameType("x", "int")),
+                Collections.singletonList(new ASTNameType("y", "double")));
+        properties.addMethod(new ASTNameType("m", "int"),
+                Collections.singletonList(new ASTNameType("s", "String")), Collections.emptyList());
+
+        assertEquals("long", properties.getFieldTypeByName("a"));
+        assertTrue(properties.hasField("a"));
+        assertFalse(properties.hasField("b"));
+        assertEquals("int", properties.getMethodTypeByName("m"));
+        assertEquals("int", properties.getParamTypeByName("m", "x"));
+        assertEquals("String", properties.getParamTypeByName("m", "s"));
+        assertEquals("double", properties.getLocalVariableTypeByName("m", "y"));
+        assertTrue(properties.hasLocalVariable("m", "y"));
+        assertFalse(properties.hasParam("n", "x"));
+        assertNull(properties.getParamTypeByName("n", "x"));
+
+        assertEquals(new ASTNameType("m", "int"), new ASTNameType("m", "int"));
+        assertNotEquals(new ASTNameType("m", "int"), new ASTNameType("m", "long"));
+        assertTrue(properties.getMethodParamsMap().containsKey(new ASTNameType("m", "int")));
+    }
+
+    /**
+     * Tests that a frozen snapshot answers like the table it was made from and rejects mutation
+     */
+    @Test
+    @DisplayName("Test frozen symbol table")
+    public void testFreeze() {
+        SymbolTable table = TypeChecker.createSymbolTable(TypeChecker.parse(fieldsMethodsParams));
+        SymbolTable frozen = table.freeze();
+
+        assertTrue(frozen.isFrozen());
+        assertFalse(table.isFrozen());
+        assertEquals(table.getClassFieldsMethodsParamsMap().toString(), frozen.getClassFieldsMethodsParamsMap().toString());
+        assertEquals(table.getValidTypes(), frozen.getValidTypes());
+        assertThrows(IllegalStateException.class,
+                () -> frozen.addField(PACKAGE_FQN + ".FieldsMethodsParams", new ASTNameType("z", "int")));
+        assertThrows(IllegalStateException.class,
+                () -> frozen.addNewClass(new ClassProperties(PACKAGE_FQN + ".Other")));
+
+        table.addField(PACKAGE_FQN + ".FieldsMethodsParams", new ASTNameType("z", "int"));
+        assertTrue(table.fieldExists(PACKAGE_FQN + ".FieldsMethodsParams", "z"));
+        assertFalse(frozen.fieldExists(PACKAGE_FQN + ".FieldsMethodsParams", "z"));
+    }
+
+    /**
+     * Tests that valid types recorded on a frozen table stay with the thread that recorded them
+     * until the overlays are merged, and that merging drops them
+     */
+    @Test
+    @DisplayName("Test frozen symbol table overlays")
+    public void testFreezeOverlays() throws InterruptedException {
+        String className = PACKAGE_FQN + ".FieldsMethodsParams";
+        SymbolTable frozen = TypeChecker.createSymbolTable(TypeChecker.parse(fieldsMethodsParams)).freeze();
+
+        List<Thread> threads = new ArrayList<>();
+        List<Boolean> seenByOthers = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < 4; t++) {
+            String type = "Type" + t;
+            Thread thread = new Thread(() -> {
+                frozen.addValidType(className, type);
+                assertTrue(frozen.validTypeExists(className, type));
+                seenByOthers.add(frozen.validTypeExists(className, "Type" + (type.equals("Type0") ? 1 : 0)));
+            });
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+            thread.join();
+        }
+
+        assertFalse(seenByOthers.contains(true));
+        assertFalse(frozen.validTypeExists(className, "Type0"));
+        frozen.addValidType(className, "Type4");
+        SymbolTable merged = frozen.freeze();
+        assertTrue(merged.isFrozen());
+        for (int t = 0; t < 5; t++) {
+            assertTrue(merged.validTypeExists(className, "Type" + t));
+        }
+        assertFalse(frozen.validTypeExists(className, "Type4"));
+    }
+
+    /**
+     * Tests that valid types recorded in a task overlay stay with the task, even on the thread
+     * that recorded another task's, until the overlays are merged
+     */
+    @Test
+    @DisplayName("Test frozen symbol table task overlays")
+    public void testTaskOverlays() {
+        String className = PACKAGE_FQN + ".FieldsMethodsParams";
+        SymbolTable frozen = TypeChecker.createSymbolTable(TypeChecker.parse(fieldsMethodsParams)).freeze();
+
+        SymbolTable first = frozen.newOverlay();
+        SymbolTable second = frozen.newOverlay();
+        first.addValidType(className, "Type1");
+        second.addValidType(className, "Type0");
+        second.addValidType(className, "Type1");
+        first.pushScope();
+        first.addLocal("local", "int");
+
+        assertTrue(first.validTypeExists(className, "Type1"));
+        assertFalse(first.validTypeExists(className, "Type0"));
+        assertFalse(frozen.validTypeExists(className, "Type1"));
+        assertEquals("int", first.getScopedLocalType("local"));
+        assertNull(second.getScopedLocalType("local"));
+        assertNull(frozen.getScopedLocalType("local"));
+        assertThrows(IllegalStateException.class, first::newOverlay);
+
+        SymbolTable merged = frozen.mergeOverlays(Arrays.asList(first, second));
+        assertTrue(merged.isFrozen());
+        assertTrue(merged.validTypeExists(className, "Type0"));
+        assertTrue(merged.validTypeExists(className, "Type1"));
+        assertEquals(merged.getValidTypes(), frozen.mergeOverlays(Arrays.asList(second, first)).getValidTypes());
+    }
+
+    /**
+     * Tests that collecting members in parallel builds the same table as collecting them on one
+     * thread, including for a class declared by two files, whose later declarations win
+     */
+    @Test
+    @DisplayName("Test parallel symbol table")
+    public void testParallelSymbolTable() {
+        List<ASTNode> units = new ArrayList<>();
+        List<QualifiedClassVisitor> declarations = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String source = i == 5 || i == 30
+                    ? "package " + PACKAGE_FQN + ";\npublic class Twice {\n    " + (i == 5 ? "int" : "long") + " x;\n"
+                    + "    int m" + i + "(int a) { Twice t; return a; }\n}\n"
+                    : "package " + PACKAGE_FQN + ";\npublic class Unit" + i + " {\n    int f" + i + ";\n"
+                    + "    double g(int a) { int b = a; Unit" + i + " u; return b; }\n}\n";
+            ASTNode unit = TypeChecker.parse(source);
+            units.add(unit);
+            declarations.add(TypeChecker.collectDeclarations(unit));
+        }
+
+        ForkJoinPool one = new ForkJoinPool(1);
+        ForkJoinPool four = new ForkJoinPool(4);
+        try {
+            SymbolTable sequential = TypeChecker.createSymbolTable(units, declarations, one);
+            SymbolTable parallel = TypeChecker.createSymbolTable(units, declarations, four);
+
+            assertEquals(sequential.getClassFieldsMethodsParamsMap().toString(),
+                    parallel.getClassFieldsMethodsParamsMap().toString());
+            assertEquals(sequential.getValidTypes(), parallel.getValidTypes());
+            assertEquals("long", parallel.getFieldType(PACKAGE_FQN + ".Twice", "x"));
+            assertTrue(parallel.methodExists(PACKAGE_FQN + ".Twice", "m5"));
+            assertTrue(parallel.methodExists(PACKAGE_FQN + ".Twice", "m30"));
+            assertEquals("int", parallel.getLocalVariableType(PACKAGE_FQN + ".Unit39", "g", "b"));
+        } finally {
+            one.shutdown();
+            four.shutdown();
+        }
+    }
 
+    /**
+     * Tests that every declaration of a type gets the same canonical object, that its name is
+     * what the type node prints, and that the registry counts the copies it saved
+     */
+    @Test
+    @DisplayName("Test canonical types")
+    public void testTypeRegistry() {
+        String source = "package " + PACKAGE_FQN + ";\npublic class Types {\n"
+                + "    int a;\n    int b;\n    String s;\n    java.util.List l;\n    int[] v;\n    int[][] grid;\n"
+                + "    java.util.Map<String, int[]> m;\n"
+                + "    int[] m(int p[]) { int c[] = v; int[] d = c; return d; }\n}\n";
+        ASTNode node = TypeChecker.parse(source);
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(node);
+        TypeRegistry registry = symbolTable.getTypeRegistry();
+
+        final List<Type> declared = new ArrayList<>();
+        node.accept(new ASTVisitor() {
+            @Override
+            public boolean visit(FieldDeclaration fd) {
+                declared.add(fd.getType());
+                return true;
+            }
+        });
+        for (Type type : declared) {
+            assertEquals(type.toString(), registry.get(type).getName());
+        }
+
+        CanonicalType intType = registry.get(declared.get(0));
+        assertSame(intType, registry.get(declared.get(1)));
+        assertSame(intType, registry.get("int"));
+        assertEquals(CanonicalType.Kind.PRIMITIVE, intType.getKind());
+        assertEquals(CanonicalType.Kind.QUALIFIED, registry.get(declared.get(3)).getKind());
+
+        CanonicalType grid = registry.get(declared.get(5));
+        assertEquals(CanonicalType.Kind.ARRAY, grid.getKind());
+        assertEquals(2, grid.getDimensions());
+        assertSame(intType, grid.getElementType());
+        assertSame(registry.get(declared.get(4)), registry.get("int[]"));
+
+        CanonicalType map = registry.get(declared.get(6));
+        assertEquals(CanonicalType.Kind.PARAMETERIZED, map.getKind());
+        assertSame(registry.get("int[]"), map.getTypeArguments().get(1));
+
+        String classFQN = PACKAGE_FQN + ".Types";
+        assertEquals("int[]", symbolTable.getParameterType(classFQN, "m", "p"));
+        assertEquals("int[]", symbolTable.getLocalVariableType(classFQN, "m", "c"));
+        assertSame(registry.get("int[]"), registry.lookup(symbolTable.getInterner().lookup("int[]")));
+        assertTrue(registry.getBytesSaved() > 0);
+        assertTrue(registry.getReferenceCount() > registry.size());
+    }
+
+    /**
+     * Tests that the stats count every member of each class, estimate its heap, count the hits
+     * and misses of lookups across a frozen copy, and can be read over JMX
+     */
+    @Test
+    @DisplayName("Test symbol table stats")
+    public void testStats() throws JMException {
+        SymbolTable table = TypeChecker.createSymbolTable(TypeChecker.parse(fieldsMethodsParams));
+        String classFQN = PACKAGE_FQN + ".FieldsMethodsParams";
+
+        SymbolTableStats stats = table.getStats();
+        assertEquals(1, stats.getClassCount());
+        assertEquals(4, stats.getFieldCount());
+        assertEquals(2, stats.getMethodCount());
+        assertEquals(3, stats.getParameterCount());
+        assertEquals(0, stats.getLocalVariableCount());
+        assertEquals(1, stats.getValidTypeCount());
+        SymbolTableStats.ClassStats classStats = stats.getLargestClasses(5).get(0);
+        assertEquals(classFQN, classStats.getClassFQN());
+        assertTrue(classStats.getEstimatedBytes() > 0);
+        assertTrue(stats.getEstimatedBytes() > classStats.getEstimatedBytes());
+
+        SymbolTable frozen = table.freeze();
+        assertTrue(table.fieldExists(classFQN, "cheese"));
+        assertFalse(frozen.fieldExists(classFQN, "missing"));
+        assertEquals("int", frozen.getParameterType(classFQN, "add", "num1"));
+        assertNull(frozen.getMethodReturnType(PACKAGE_FQN + ".Missing", "add"));
+        stats = frozen.getStats();
+        assertEquals(1, stats.getHits(SymbolTableStats.Lookup.FIELD_EXISTS));
+        assertEquals(1, stats.getMisses(SymbolTableStats.Lookup.FIELD_EXISTS));
+        assertEquals(1, stats.getHits(SymbolTableStats.Lookup.PARAMETER_TYPE));
+        assertEquals(1, stats.getMisses(SymbolTableStats.Lookup.METHOD_RETURN_TYPE));
+
+        assertNotNull(SymbolTableMonitor.register(new SymbolTableMonitor(frozen)));
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(SymbolTableMonitor.DEFAULT_NAME);
+            assertEquals(4L, server.getAttribute(name, "FieldCount"));
+            server.invoke(name, "resetLookupCounts", null, null);
+            assertEquals(0, frozen.getStats().getMisses(SymbolTableStats.Lookup.FIELD_EXISTS));
+            assertEquals(1, ((Object[]) server.getAttribute(name, "LargestClasses")).length);
+        } finally {
+            SymbolTableMonitor.unregister();
+        }
+    }
 }
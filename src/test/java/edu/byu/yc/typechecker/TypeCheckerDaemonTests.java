@@ -0,0 +1,82 @@
+package edu.byu.yc.typechecker;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author Samuel Nuttall
+ * <p>
+ * Tests the request protocol of the daemon and that its session reuses parsed files
+ */
+public class TypeCheckerDaemonTests {
+
+    private static final String TEST_DIR = "test-files/typechecker";
+
+    private final String root = System.getProperty("user.dir");
+
+    private List<String> responses(String requests) throws IOException {
+        CheckSession session = new CheckSession(new SourceDiscovery(), 2);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new TypeCheckerDaemon(session).serve(new StringReader(requests),
+                new PrintStream(bytes, true, "UTF-8"));
+
+        List<String> tagged = new ArrayList<>();
+        for (String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith("E ") || line.startsWith("OK") || line.startsWith("ERR")) {
+                tagged.add(line);
+            }
+        }
+        return tagged;
+    }
+
+    /**
+     * Tests that repeated checks give the same diagnostics and an answer per request
+     */
+    @Test
+    @DisplayName("Test daemon check requests")
+    public void testCheckRequests() throws IOException {
+        String arithmetic = Paths.get(root, TEST_DIR, "Arithmetic.java").toString();
+        List<String> responses = responses("check " + arithmetic + "\ncheck " + arithmetic + "\nstats\nbogus\nquit\n");
+
+        assertEquals(6, responses.size());
+        assertTrue(responses.get(0).startsWith("E " + arithmetic + ":13:"));
+        assertTrue(responses.get(1).startsWith("OK diagnostics=1 files=1 millis="));
+        assertEquals(responses.get(0), responses.get(2));
+        assertTrue(responses.get(3).startsWith("OK diagnostics=1 files=1 millis="));
+        assertTrue(responses.get(4).startsWith("OK CheckSession{checks=2, units=1, filesParsed=1"));
+        assertEquals("ERR unknown request: bogus", responses.get(5));
+    }
+
+    /**
+     * Tests that a session parses unchanged files only once
+     */
+    @Test
+    @DisplayName("Test session reuse")
+    public void testSessionReuse() {
+        CheckSession session = new CheckSession(new SourceDiscovery(), 2);
+        try {
+            List<Diagnostic> first = session.check(Collections.singletonList(Paths.get(root, TEST_DIR)));
+            List<Diagnostic> second = session.check(Collections.singletonList(Paths.get(root, TEST_DIR)));
+
+            assertEquals(first, second);
+            assertEquals(5, session.getUnitCount());
+            assertEquals(5, session.getFilesParsed());
+            assertTrue(session.getSymbolTable().classExists("edu.byu.yc.tests.Widening"));
+        } finally {
+            session.close();
+        }
+    }
+}
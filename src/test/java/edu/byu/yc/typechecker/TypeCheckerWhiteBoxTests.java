@@ -1,17 +1,31 @@
 package edu.byu.yc.typechecker;
 
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.InfixExpression;
+import org.eclipse.jdt.core.dom.MethodInvocation;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import edu.byu.yc.typechecker.symboltable.SymbolTable;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -152,4 +166,359 @@ public class TypeCheckerWhiteBoxTests {
         logger.info("Type Table {}", tt);
     }
 
+    /**
+     * Tests that several files parsed as separate compilation units share one symbol table and
+     * are type checked the same way as when they are checked on their own
+     */
+    @Test
+    @DisplayName("Test Multiple Compilation Units")
+    public void testParseUnits() {
+        List<CompilationUnit> units = TypeChecker.parseUnits(
+                Arrays.asList(fieldsFile.getPath(), arithmeticFile.getPath()), 2);
+
+        assertEquals(2, units.size());
+        assertEquals(fieldsFile.getPath(), units.get(0).getProperty(TypeChecker.SOURCE_PATH_PROPERTY));
+        assertEquals(arithmeticFile.getPath(), units.get(1).getProperty(TypeChecker.SOURCE_PATH_PROPERTY));
+
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(units);
+        assertTrue(symbolTable.classExists(CLASS_FQN_FIELDS));
+        assertTrue(symbolTable.classExists(PACKAGE_FQN + ".Adder"));
+        assertEquals("float", symbolTable.getFieldType(CLASS_FQN_FIELDS, "fl"));
+        assertEquals("boolean", symbolTable.getFieldType(PACKAGE_FQN + ".Adder", "p"));
+
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        for (CompilationUnit unit : units) {
+            unit.accept(typeCheckerVisitor);
+        }
+
+        Map<ASTNode, String> tt = typeCheckerVisitor.getTypeTable();
+        boolean found = false;
+        for (Map.Entry entry : tt.entrySet()) {
+            if (entry.getKey().toString().contains("a + b")) {
+                found = true;
+                assertEquals("int", entry.getValue());
+            }
+        }
+
+        assertTrue(found);
+        assertTrue(tt.containsValue(CLASS_FQN_FIELDS));
+    }
+
+    /**
+     * Tests that the batch API returns the diagnostics, type table and timings of a check, gives
+     * the same result when called again, and gives an empty result for no sources
+     */
+    @Test
+    @DisplayName("Test check API")
+    public void testCheckApi() {
+        TypeChecker.Options options = new TypeChecker.Options();
+        options.setThreads(2);
+        options.setExcludes(Collections.singletonList("TestTC.java"));
+        List<Path> roots = Collections.singletonList(Paths.get(root, TEST_DIR));
+
+        CheckResult first = TypeChecker.check(roots, options);
+        CheckResult second = TypeChecker.check(roots, options);
+
+        assertEquals(4, first.getUnits().size());
+        assertFalse(first.isClean());
+        assertEquals(first.getDiagnostics(), second.getDiagnostics());
+        assertTrue(first.getTypeTable().containsValue(CLASS_FQN_FIELDS));
+        assertTrue(first.getSymbolTable().classExists(CLASS_FQN_FIELDS));
+        assertEquals(Arrays.asList("discover", "read", "parse", "collect", "check"),
+                new ArrayList<>(first.getPhaseMillis().keySet()));
+
+        CheckResult none = TypeChecker.check(Collections.singletonList(Paths.get(root, TEST_DIR, "missing")), options);
+        assertTrue(none.isClean());
+        assertTrue(none.getUnits().isEmpty());
+    }
+
+    /**
+     * Tests that locals in nested blocks, loops and catch clauses are typed, that they shadow
+     * fields only while in scope, and that every local is collected into the symbol table
+     */
+    @Test
+    @DisplayName("Test block scoped locals")
+    public void testBlockScopes() {
+        String source = "package edu.byu.yc.tests;\n"
+                + "import java.lang.RuntimeException;\n"
+                + "public class Scopes {\n"
+                + "    boolean x;\n"
+                + "    int m(int p) {\n"
+                + "        int a = 1, b = 2;\n"
+                + "        {\n"
+                + "            int x = a + b;\n"
+                + "            int inner = x + 1;\n"
+                + "        }\n"
+                + "        for (int i = p; ; i++) {\n"
+                + "            long looped = i + a;\n"
+                + "        }\n"
+                + "        try {\n"
+                + "            a = b + 1;\n"
+                + "        } catch (RuntimeException e) {\n"
+                + "            double caught = a + 1.5;\n"
+                + "        }\n"
+                + "        int outer = x + 1;\n"
+                + "        return b;\n"
+                + "    }\n"
+                + "}\n";
+        ASTNode node = TypeChecker.parse(source);
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(node);
+        for (String local : new String[]{"a", "b", "x", "inner", "i", "looped", "e", "caught", "outer"}) {
+            assertTrue(symbolTable.localVariableExists("edu.byu.yc.tests.Scopes", "m", local), local);
+        }
+
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        node.accept(typeCheckerVisitor);
+
+        List<Diagnostic> diagnostics = typeCheckerVisitor.getDiagnostics();
+        assertEquals(1, diagnostics.size(), diagnostics.toString());
+        assertEquals(19, diagnostics.get(0).getLine());
+        assertTrue(diagnostics.get(0).getMessage().contains("x + 1"));
+    }
+
+    /**
+     * Tests widening and binary numeric promotion over all eight primitives, and that shifts
+     * take the promoted type of their left operand and only accept integral operands
+     */
+    @Test
+    @DisplayName("Test primitive promotion")
+    public void testPrimitivePromotion() {
+        assertTrue(Primitive.BYTE.widensTo(Primitive.SHORT));
+        assertTrue(Primitive.CHAR.widensTo(Primitive.INT));
+        assertFalse(Primitive.CHAR.widensTo(Primitive.SHORT));
+        assertFalse(Primitive.SHORT.widensTo(Primitive.CHAR));
+        assertTrue(Primitive.LONG.widensTo(Primitive.FLOAT));
+        assertFalse(Primitive.DOUBLE.widensTo(Primitive.FLOAT));
+        assertFalse(Primitive.BOOLEAN.widensTo(Primitive.INT));
+        assertEquals(Primitive.INT, Primitive.BYTE.promote(Primitive.CHAR));
+        assertEquals(Primitive.LONG, Primitive.SHORT.promote(Primitive.LONG));
+        assertEquals(Primitive.FLOAT, Primitive.LONG.promote(Primitive.FLOAT));
+        assertEquals(Primitive.INT, Primitive.SHORT.promote());
+        assertNull(Primitive.BOOLEAN.promote(Primitive.INT));
+        assertNull(Primitive.of("String"));
+
+        String source = "package edu.byu.yc.tests;\n"
+                + "public class Promotion {\n"
+                + "    byte b;\n    short s;\n    char c;\n    long l;\n    float f;\n"
+                + "    void m() {\n"
+                + "        int i = c + b;\n"
+                + "        short t = s + s;\n"
+                + "        float g = l * c;\n"
+                + "        long shifted = l << b;\n"
+                + "        int narrowed = l >> 1;\n"
+                + "        int fshift = f << 1;\n"
+                + "    }\n"
+                + "}\n";
+        ASTNode node = TypeChecker.parse(source);
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(TypeChecker.createSymbolTable(node));
+        node.accept(typeCheckerVisitor);
+
+        List<Diagnostic> diagnostics = typeCheckerVisitor.getDiagnostics();
+        assertEquals(3, diagnostics.size(), diagnostics.toString());
+        assertEquals(Arrays.asList(10, 13, 14), Arrays.asList(diagnostics.get(0).getLine(),
+                diagnostics.get(1).getLine(), diagnostics.get(2).getLine()));
+        assertTrue(diagnostics.get(2).getMessage().contains("non-integral"));
+    }
+
+    /**
+     * Tests that overloads are kept apart: each body is checked against its own return and
+     * parameter types, and a call's name is typed by the overload taking its number of arguments
+     */
+    @Test
+    @DisplayName("Test overloaded methods")
+    public void testOverloads() {
+        String source = "package edu.byu.yc.tests;\n"
+                + "public class Overloads {\n"
+                + "    int f(int a) {\n"
+                + "        return a + 1;\n"
+                + "    }\n"
+                + "    boolean f(boolean a) {\n"
+                + "        return a;\n"
+                + "    }\n"
+                + "    double f(double a, double b) {\n"
+                + "        return a + b;\n"
+                + "    }\n"
+                + "    long g() {\n"
+                + "        return f(1, 2);\n"
+                + "    }\n"
+                + "}\n";
+        ASTNode node = TypeChecker.parse(source);
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(node);
+        String classFQN = "edu.byu.yc.tests.Overloads";
+        int f = symbolTable.getInterner().lookup("f");
+        int intType = symbolTable.getInterner().lookup("int");
+        int booleanType = symbolTable.getInterner().lookup("boolean");
+        assertEquals(3, symbolTable.getClassProperties(symbolTable.getInterner().lookup(classFQN)).getOverloadCount(f));
+        assertEquals("int", symbolTable.getMethodReturnType(classFQN, "f", new int[]{intType}));
+        assertEquals("boolean", symbolTable.getMethodReturnType(classFQN, "f", new int[]{booleanType}));
+        assertEquals("boolean", symbolTable.getParameterType(classFQN, "f", new int[]{booleanType}, "a"));
+        assertFalse(symbolTable.parameterExists(classFQN, "f", new int[]{intType}, "b"));
+        assertEquals("double", symbolTable.getMethodReturnType(classFQN, "f", 2));
+        assertNull(symbolTable.getMethodReturnType(classFQN, "f", 3));
+        assertNull(symbolTable.getMethodReturnType(classFQN, "f", new int[]{intType, intType}));
+
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        node.accept(typeCheckerVisitor);
+        assertTrue(typeCheckerVisitor.getDiagnostics().isEmpty(), typeCheckerVisitor.getDiagnostics().toString());
+        int calls = 0;
+        for (Map.Entry<ASTNode, String> entry : typeCheckerVisitor.getTypeTable().entrySet()) {
+            if (entry.getKey().getLocationInParent() == MethodInvocation.NAME_PROPERTY) {
+                assertEquals("double", entry.getValue());
+                calls++;
+            }
+        }
+        assertEquals(1, calls);
+    }
+
+    /**
+     * Tests that infix expressions are checked against the type of the assignment, return,
+     * declaration or field they are in, however deeply they are nested
+     */
+    @Test
+    @DisplayName("Test expected type context")
+    public void testExpectedTypeContext() {
+        String source = "package edu.byu.yc.tests;\n"
+                + "public class Context {\n"
+                + "    int a;\n    int b;\n    long l;\n"
+                + "    int total = a + b;\n"
+                + "    short bad = a + b;\n"
+                + "    void m() {\n"
+                + "        if (true) {\n            while (true) {\n                { int deep = a + b; }\n"
+                + "                byte narrow = a * b;\n            }\n        }\n"
+                + "        a = b - a;\n"
+                + "    }\n"
+                + "    long widened() {\n        return l + a;\n    }\n"
+                + "    int narrowed() {\n        return l + a;\n    }\n"
+                + "}\n";
+        ASTNode node = TypeChecker.parse(source);
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(TypeChecker.createSymbolTable(node));
+        node.accept(typeCheckerVisitor);
+
+        List<Diagnostic> diagnostics = typeCheckerVisitor.getDiagnostics();
+        List<Integer> lines = new ArrayList<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (!lines.contains(diagnostic.getLine())) {
+                lines.add(diagnostic.getLine());
+            }
+        }
+        assertEquals(Arrays.asList(7, 12, 21), lines, diagnostics.toString());
+    }
+
+    /**
+     * Tests that nested, parenthesized and extended operands are typed once from the bottom up,
+     * and that an ill-typed expression is reported once rather than at every level around it
+     */
+    @Test
+    @DisplayName("Test bottom up expression typing")
+    public void testBottomUpTyping() {
+        String source = "package edu.byu.yc.tests;\n"
+                + "public class Operands {\n"
+                + "    int a;\n    long l;\n    double d;\n"
+                + "    void m() {\n"
+                + "        long x = ((a + 1) * (l - 2)) + a + 'c';\n"
+                + "        int y = (a + 1) * (l - 3);\n"
+                + "        int z = a + a + l;\n"
+                + "        double w = (a + 1.5f) / d;\n"
+                + "        int s = (a << 2L) >> 1;\n"
+                + "        int t = ((a + true) * 2) - a;\n"
+                + "    }\n"
+                + "}\n";
+        ASTNode node = TypeChecker.parse(source);
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(TypeChecker.createSymbolTable(node));
+        node.accept(typeCheckerVisitor);
+
+        List<Diagnostic> diagnostics = typeCheckerVisitor.getDiagnostics();
+        assertEquals(3, diagnostics.size(), diagnostics.toString());
+        assertEquals(Arrays.asList(8, 9, 12), Arrays.asList(diagnostics.get(0).getLine(),
+                diagnostics.get(1).getLine(), diagnostics.get(2).getLine()));
+        assertTrue(diagnostics.get(2).getMessage().contains("non-numeric"));
+
+        Map<String, String> types = new HashMap<>();
+        for (Map.Entry<ASTNode, String> entry : typeCheckerVisitor.getTypeTable().entrySet()) {
+            if (entry.getKey() instanceof InfixExpression) {
+                types.put(entry.getKey().toString(), entry.getValue());
+            }
+        }
+        assertEquals("int", types.get("a + 1"));
+        assertEquals("long", types.get("l - 2"));
+        assertEquals("long", types.get("(a + 1) * (l - 2)"));
+        assertEquals("float", types.get("a + 1.5f"));
+        assertEquals("int", types.get("a << 2L"));
+    }
+
+    /**
+     * Tests that the type table numbers each unit once, keeps the types of several units apart,
+     * and that its map view agrees with what was recorded
+     */
+    @Test
+    @DisplayName("Test dense type table")
+    public void testTypeTable() {
+        ASTNode first = TypeChecker.parse(fields);
+        ASTNode second = TypeChecker.parse("package edu.byu.yc.tests;\n"
+                + "public class Second {\n    int a;\n    long l;\n    long m() {\n        return a + l;\n    }\n}\n");
+        StringBuilder manyFields = new StringBuilder("package edu.byu.yc.tests;\npublic class Third {\n");
+        for (int i = 0; i < 64; i++) {
+            manyFields.append("    int f").append(i).append(" = ").append(i).append(";\n");
+        }
+        ASTNode third = TypeChecker.parse(manyFields.append("}\n").toString());
+        int expressions = TypeTable.number(first);
+        assertEquals(expressions, TypeTable.number(first));
+
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(Arrays.asList(first, second, third));
+        TypeCheckerVisitor typeCheckerVisitor = new TypeCheckerVisitor(symbolTable);
+        first.accept(typeCheckerVisitor);
+        second.accept(typeCheckerVisitor);
+        third.accept(typeCheckerVisitor);
+        Map<ASTNode, String> tt = typeCheckerVisitor.getTypeTable();
+
+        int typed = 0;
+        for (Map.Entry<ASTNode, String> entry : tt.entrySet()) {
+            assertEquals(entry.getValue(), tt.get(entry.getKey()));
+            assertTrue(tt.containsKey(entry.getKey()));
+            typed++;
+        }
+        assertEquals(tt.size(), typed);
+        assertTrue(tt.containsValue(CLASS_FQN_FIELDS));
+        assertTrue(tt.containsValue("long"));
+        assertNull(tt.get(first));
+        assertFalse(tt.containsKey("not a node"));
+
+        // Numbering leaves the expressions alone, and a table only reads its current unit
+        ASTNode firstExpression = tt.keySet().iterator().next();
+        assertSame(first, firstExpression.getRoot());
+        assertTrue(firstExpression.properties().isEmpty());
+        TypeTable table = new TypeTable();
+        table.enter(second);
+        assertThrows(AssertionError.class, () -> table.put(firstExpression, "int"));
+        assertThrows(AssertionError.class, () -> table.get(firstExpression));
+
+        TypeCheckerVisitor again = new TypeCheckerVisitor(symbolTable);
+        second.accept(again);
+        assertEquals(new HashMap<>(again.getTypeTable()).entrySet().size(), again.getTypeTable().size());
+        for (Map.Entry<ASTNode, String> entry : again.getTypeTable().entrySet()) {
+            assertEquals(entry.getValue(), tt.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Tests that locals shadow each other and are restored when scopes close or they are removed
+     */
+    @Test
+    @DisplayName("Test local scope stack")
+    public void testScopeStack() {
+        SymbolTable symbolTable = TypeChecker.createSymbolTable(TypeChecker.parse(empty));
+        symbolTable.pushScope();
+        symbolTable.addLocal("a", "int");
+        symbolTable.pushScope();
+        symbolTable.addLocal("a", "long").addLocal("b", "double");
+        assertEquals("long", symbolTable.getScopedLocalType("a"));
+        symbolTable.removeLocal("a");
+        assertEquals("int", symbolTable.getScopedLocalType("a"));
+        symbolTable.addLocal("a", "float");
+        symbolTable.popScope();
+        assertEquals("int", symbolTable.getScopedLocalType("a"));
+        assertEquals(null, symbolTable.getScopedLocalType("b"));
+        symbolTable.popScope();
+        assertEquals(null, symbolTable.getScopedLocalType("a"));
+    }
 }